@@ -0,0 +1,94 @@
+package com.exemplo.auth.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executores para trabalho fora da requisição (@Async).
+ * Pools pequenos e filas limitadas: quando a fila enche, quem publicou executa.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Trabalho assíncrono do Spring MVC (exportações em StreamingResponseBody).
+     * Com os executores abaixo declarados, o Boot não cria o
+     * applicationTaskExecutor dele e o MVC cairia no SimpleAsyncTaskExecutor,
+     * uma thread nova por requisição; este nome é o que o MVC procura.
+     * Fila cheia rejeita: a exportação falha em vez de abrir mais threads.
+     */
+    @Bean(name = "applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor() {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(8);
+        ex.setMaxPoolSize(8);
+        ex.setQueueCapacity(100);
+        ex.setThreadNamePrefix("mvc-async-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        ex.initialize();
+        return ex;
+    }
+
+    @Bean(name = "alertExecutor")
+    public ThreadPoolTaskExecutor alertExecutor() {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(2);
+        ex.setMaxPoolSize(4);
+        ex.setQueueCapacity(1000);
+        ex.setThreadNamePrefix("alerts-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        return ex;
+    }
+
+    /**
+     * Escritas SSE do SaleNotificationService (vendas, alertas, heartbeat):
+     * um cliente lento não segura a thread do commit nem o agendador.
+     */
+    @Bean(name = "pushExecutor")
+    public ThreadPoolTaskExecutor pushExecutor() {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(2);
+        ex.setMaxPoolSize(4);
+        ex.setQueueCapacity(1000);
+        ex.setThreadNamePrefix("push-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        return ex;
+    }
+
+    /** Cálculo das trocas sugeridas: um par de amigos por tarefa. */
+    @Bean(name = "tradeExecutor")
+    public ThreadPoolTaskExecutor tradeExecutor() {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        int cpus = Runtime.getRuntime().availableProcessors();
+        ex.setCorePoolSize(Math.max(2, cpus));
+        ex.setMaxPoolSize(Math.max(2, cpus));
+        ex.setQueueCapacity(10_000);
+        ex.setThreadNamePrefix("trades-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        return ex;
+    }
+
+    /**
+     * Miniaturas (OpenCV): poucas threads por causa da memória de decodificação.
+     * Fila cheia rejeita em vez de rodar no chamador; o derivado sai no primeiro pedido.
+     */
+    @Bean(name = "imageExecutor")
+    public ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(2);
+        ex.setMaxPoolSize(2);
+        ex.setQueueCapacity(200);
+        ex.setThreadNamePrefix("images-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        ex.initialize();
+        return ex;
+    }
+}
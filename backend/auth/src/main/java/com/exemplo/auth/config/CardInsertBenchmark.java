@@ -0,0 +1,123 @@
+package com.exemplo.auth.config;
+
+import com.exemplo.auth.model.CardItem;
+import com.exemplo.auth.model.CollectionFolder;
+import com.exemplo.auth.repository.CardItemRepository;
+import com.exemplo.auth.repository.CollectionFolderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark de inserção em massa de cartas. Só roda com o perfil "bench":
+ *
+ *   --spring.profiles.active=prod,bench --app.bench.user-id=1
+ *
+ * Compara o caminho antigo (um INSERT por ida ao banco: save + flush a cada
+ * carta, como acontecia com IDENTITY) com o novo (saveAll em blocos, batch
+ * JDBC de 50 e flush/clear por bloco). As cartas criadas são apagadas no fim.
+ */
+@Component
+@Profile("bench")
+public class CardInsertBenchmark implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CardInsertBenchmark.class);
+
+    private static final int CHUNK = 1000;
+
+    private final CollectionFolderRepository folders;
+    private final CardItemRepository cards;
+    private final TransactionTemplate tx;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Value("${app.bench.user-id:1}")
+    private Long userId;
+
+    @Value("${app.bench.cards:100000}")
+    private int total;
+
+    /** O caminho linha a linha é lento demais para 100k; mede-se menos e compara-se a taxa. */
+    @Value("${app.bench.baseline-cards:10000}")
+    private int baselineTotal;
+
+    public CardInsertBenchmark(CollectionFolderRepository folders,
+                               CardItemRepository cards,
+                               PlatformTransactionManager txManager) {
+        this.folders = folders;
+        this.cards = cards;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long folderId = tx.execute(s -> {
+            CollectionFolder f = new CollectionFolder();
+            f.setUserId(userId);
+            f.setName("__bench__" + System.currentTimeMillis());
+            f.setCreatedAt(Instant.now());
+            return folders.save(f).getId();
+        });
+
+        try {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < baselineTotal; i++) {
+                final int n = i;
+                tx.executeWithoutResult(s -> {
+                    cards.save(card(folderId, n));
+                    em.flush();
+                });
+            }
+            report("linha a linha", baselineTotal, System.nanoTime() - t0);
+
+            t0 = System.nanoTime();
+            for (int start = 0; start < total; start += CHUNK) {
+                final int from = start;
+                final int to = Math.min(total, start + CHUNK);
+                tx.executeWithoutResult(s -> {
+                    List<CardItem> chunk = new ArrayList<>(to - from);
+                    for (int i = from; i < to; i++) chunk.add(card(folderId, i));
+                    cards.saveAll(chunk);
+                    em.flush();
+                    em.clear();
+                });
+            }
+            report("batch", total, System.nanoTime() - t0);
+        } finally {
+            tx.executeWithoutResult(s -> {
+                cards.deleteByFolderIdAndUserId(folderId, userId);
+                folders.deleteById(folderId);
+            });
+        }
+    }
+
+    private CardItem card(Long folderId, int n) {
+        CardItem c = new CardItem();
+        c.setFolderId(folderId);
+        c.setUserId(userId);
+        c.setCardName("Bench " + n);
+        c.setPokemonName("Pikachu");
+        c.setSource("bench");
+        c.setCreatedAt(Instant.now());
+        return c;
+    }
+
+    private static void report(String label, int count, long nanos) {
+        double ms = nanos / 1_000_000.0;
+        log.info("[bench] {}: {} cartas em {} ms ({} cartas/s)",
+                label, count, String.format("%.0f", ms), String.format("%.0f", count / (ms / 1000.0)));
+    }
+}
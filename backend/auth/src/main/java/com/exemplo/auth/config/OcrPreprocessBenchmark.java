@@ -0,0 +1,168 @@
+package com.exemplo.auth.config;
+
+import com.exemplo.auth.service.PixelKernels;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark do pré-processamento do OCR (cinza + escala 2× + binarização).
+ * Só roda com o perfil "bench-ocr":
+ *
+ *   --spring.profiles.active=prod,bench-ocr --app.bench.images-dir=data/users/1/images
+ *
+ * Compara, nas mesmas imagens já decodificadas:
+ * - Java2D: o caminho antigo (drawImage em TYPE_BYTE_GRAY e depois em TYPE_BYTE_BINARY);
+ * - kernels escalares numa thread;
+ * - kernels SIMD numa thread (só se a JVM subiu com jdk.incubator.vector);
+ * - kernels SIMD + fork/join (o que o OcrService usa);
+ * - kernels com limiar adaptativo;
+ * - OpenCV (cvtColor + resize + THRESH_OTSU).
+ * Usa a foto inteira, não só a faixa do nome, para as imagens grandes
+ * passarem pelo fork/join. No fim, o nível de Otsu dos kernels e o do
+ * OpenCV por imagem, como conferência.
+ */
+@Component
+@Profile("bench-ocr")
+public class OcrPreprocessBenchmark implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrPreprocessBenchmark.class);
+
+    @Value("${app.bench.images-dir:data/users/1/images}")
+    private String imagesDir;
+
+    @Value("${app.bench.rounds:20}")
+    private int rounds;
+
+    @Value("${app.bench.warmup-rounds:5}")
+    private int warmupRounds;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<Path> files;
+        try (Stream<Path> s = Files.walk(Paths.get(imagesDir))) {
+            files = s.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).matches(".*\\.(jpe?g|png)"))
+                    .sorted()
+                    .toList();
+        }
+        List<BufferedImage> images = new ArrayList<>();
+        List<Mat> mats = new ArrayList<>();
+        for (Path f : files) {
+            BufferedImage img = ImageIO.read(f.toFile());
+            Mat mat = opencv_imgcodecs.imread(f.toString(), opencv_imgcodecs.IMREAD_COLOR);
+            if (img == null || mat == null || mat.empty()) continue;
+            images.add(img);
+            mats.add(mat);
+        }
+        if (images.isEmpty()) {
+            log.warn("[bench] nenhuma imagem legível em {}", imagesDir);
+            return;
+        }
+        long pixels = images.stream().mapToLong(i -> (long) i.getWidth() * i.getHeight()).sum();
+        log.info("[bench] {} imagens ({} Mpx no total), SIMD disponível: {}",
+                images.size(), String.format(Locale.ROOT, "%.1f", pixels / 1e6), PixelKernels.simdAvailable());
+
+        try {
+            measure("Java2D", images, OcrPreprocessBenchmark::java2d);
+            measure("kernels escalar", images, img -> otsu(PixelKernels.SCALAR, img));
+            if (PixelKernels.simdAvailable()) {
+                measure("kernels SIMD", images, img -> otsu(PixelKernels.of(true, false), img));
+            }
+            measure("kernels SIMD + fork/join", images, img -> otsu(PixelKernels.DEFAULT, img));
+            measure("kernels adaptativo", images, OcrPreprocessBenchmark::adaptive);
+            measure("OpenCV", mats, OcrPreprocessBenchmark::opencv);
+
+            for (int i = 0; i < images.size(); i++) {
+                BufferedImage img = images.get(i);
+                PixelKernels k = PixelKernels.DEFAULT;
+                byte[] scaled = k.upscale2x(k.grayscale(img), img.getWidth(), img.getHeight());
+                int ours = PixelKernels.otsuThreshold(k.histogram(scaled, img.getWidth() * 2, img.getHeight() * 2));
+                log.info("[bench] {}: Otsu kernels={} OpenCV={}",
+                        files.get(i).getFileName(), ours, (int) opencv(mats.get(i)));
+            }
+        } finally {
+            mats.forEach(Mat::release);
+        }
+    }
+
+    private <T> void measure(String label, List<T> inputs, Consumer<T> step) {
+        for (int r = 0; r < warmupRounds; r++) inputs.forEach(step);
+        long t0 = System.nanoTime();
+        for (int r = 0; r < rounds; r++) inputs.forEach(step);
+        double ms = (System.nanoTime() - t0) / 1_000_000.0;
+        log.info("[bench] {}: {} ms por imagem ({} ms em {} rodadas)", label,
+                String.format(Locale.ROOT, "%.2f", ms / (rounds * (double) inputs.size())),
+                String.format(Locale.ROOT, "%.0f", ms), rounds);
+    }
+
+    /** O OcrService.preprocess de antes dos kernels. */
+    private static void java2d(BufferedImage img) {
+        int nw = img.getWidth() * 2;
+        int nh = img.getHeight() * 2;
+        BufferedImage scaled = new BufferedImage(nw, nh, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(img, 0, 0, nw, nh, null);
+        g.dispose();
+
+        BufferedImage bin = new BufferedImage(nw, nh, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics g2 = bin.getGraphics();
+        g2.drawImage(scaled, 0, 0, null);
+        g2.dispose();
+    }
+
+    private static void otsu(PixelKernels k, BufferedImage img) {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        k.binarizeOtsu(k.upscale2x(k.grayscale(img), w, h), w * 2, h * 2);
+    }
+
+    private static void adaptive(BufferedImage img) {
+        PixelKernels k = PixelKernels.DEFAULT;
+        int w = img.getWidth();
+        int h = img.getHeight();
+        k.binarizeAdaptive(k.upscale2x(k.grayscale(img), w, h), w * 2, h * 2, 31, 10);
+    }
+
+    /** Devolve o nível escolhido pelo Otsu do OpenCV. */
+    private static double opencv(Mat bgr) {
+        Mat gray = new Mat();
+        Mat scaled = new Mat();
+        Mat bin = new Mat();
+        try {
+            opencv_imgproc.cvtColor(bgr, gray, opencv_imgproc.COLOR_BGR2GRAY);
+            opencv_imgproc.resize(gray, scaled, new Size(bgr.cols() * 2, bgr.rows() * 2),
+                    0, 0, opencv_imgproc.INTER_LINEAR);
+            return opencv_imgproc.threshold(scaled, bin, 0, 255,
+                    opencv_imgproc.THRESH_BINARY | opencv_imgproc.THRESH_OTSU);
+        } finally {
+            gray.release();
+            scaled.release();
+            bin.release();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.exemplo.auth.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Liga os jobs @Scheduled (checkpoint/rebuild de estatísticas etc.).
+ *
+ * O agendador é o do Spring Boot, com spring.task.scheduling.pool.size
+ * threads: o padrão é uma só, e um passo lento da migração para o S3 ou da
+ * varredura de órfãos atrasaria todos os outros jobs.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,60 @@
+package com.exemplo.auth.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * As tabelas abaixo nasceram com IDs IDENTITY e passaram a usar sequências
+ * (pooled, allocationSize 50) para permitir batch de INSERT no JDBC.
+ * O ddl-auto cria as sequências começando em 1; aqui elas são empurradas
+ * para além do maior id existente antes de qualquer insert.
+ */
+@Component
+@DependsOn("entityManagerFactory") // schema/sequências já criados pelo Hibernate
+public class SequenceAlignment {
+
+    private static final Logger log = LoggerFactory.getLogger(SequenceAlignment.class);
+
+    /** Mesmo valor do allocationSize das entidades. */
+    private static final int ALLOCATION = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "card_items", "card_items_seq",
+            "market_listings", "market_listings_seq",
+            "direct_messages", "direct_messages_seq",
+            "friendships", "friendships_seq",
+            "collection_folders", "collection_folders_seq",
+            "price_alerts", "price_alerts_seq",
+            "price_alert_hits", "price_alert_hits_seq",
+            "file_reclaim_queue", "file_reclaim_queue_seq"
+    );
+
+    private final JdbcTemplate jdbc;
+
+    public SequenceAlignment(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void align() {
+        SEQUENCES.forEach((table, seq) -> {
+            try {
+                Long maxId = jdbc.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+                Long last = jdbc.queryForObject("select last_value from " + seq, Long.class);
+                long target = (maxId == null ? 0 : maxId) + ALLOCATION;
+                if (last == null || last < target) {
+                    jdbc.queryForObject("select setval('" + seq + "', ?)", Long.class, target);
+                    log.info("Sequência {} ajustada para {} (max id de {} = {})", seq, target, table, maxId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Não foi possível alinhar a sequência {}: {}", seq, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package com.exemplo.auth.config;
+
+import com.exemplo.auth.service.BlobBackend;
+import com.exemplo.auth.service.BlobStore;
+import com.exemplo.auth.service.LocalBlobBackend;
+import com.exemplo.auth.service.S3BlobBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Backend dos blobs de imagem (app.storage.backend):
+ * - local: data/blobs, particionado pelo hash (padrão);
+ * - s3: bucket S3 ou compatível, com data/blobs como cache.
+ * A URL gravada no banco é a mesma nos dois; trocar de backend não exige
+ * reescrever tabelas (a StorageMigrationService sobe o que só existe local).
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public BlobBackend blobBackend(@Value("${app.storage.backend:local}") String backend,
+                                   @Value("${app.storage.s3.endpoint:http://localhost:9000}") String endpoint,
+                                   @Value("${app.storage.s3.region:us-east-1}") String region,
+                                   @Value("${app.storage.s3.bucket:}") String bucket,
+                                   @Value("${app.storage.s3.access-key:}") String accessKey,
+                                   @Value("${app.storage.s3.secret-key:}") String secretKey,
+                                   @Value("${app.storage.s3.cache-max-bytes:2147483648}") long cacheMaxBytes)
+            throws IOException {
+        return switch (backend) {
+            case "local" -> new LocalBlobBackend(BlobStore.blobRoot());
+            case "s3" -> {
+                S3BlobBackend s3 = new S3BlobBackend(BlobStore.blobRoot(), endpoint, region, bucket,
+                        accessKey, secretKey, cacheMaxBytes);
+                s3.ensureBucket();
+                yield s3;
+            }
+            default -> throw new IllegalArgumentException("app.storage.backend desconhecido: " + backend);
+        };
+    }
+}
@@ -1,22 +0,0 @@
-// src/main/java/com/exemplo/auth/config/WebConfig.java
-package com.exemplo.auth.config;
-
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
-@Configuration
-public class WebConfig implements WebMvcConfigurer {
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path dataDir = Paths.get("data").toAbsolutePath().normalize();
-        String dataPath = dataDir.toFile().getAbsolutePath();
-
-        registry.addResourceHandler("/files/**")
-                .addResourceLocations("file:" + dataPath + "/");
-    }
-}
-
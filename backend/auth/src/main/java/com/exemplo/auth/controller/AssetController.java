@@ -0,0 +1,62 @@
+package com.exemplo.auth.controller;
+
+import com.exemplo.auth.service.AssetBundle;
+import com.exemplo.auth.service.FileServer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Frontend empacotado ({@link AssetBundle}): assets com hash no nome são
+ * imutáveis; as páginas HTML revalidam por ETag a cada carga, então um deploy
+ * novo aparece na hora e só os assets que mudaram são baixados de novo.
+ */
+@RestController
+public class AssetController {
+
+    private final AssetBundle bundle;
+    private final FileServer files;
+
+    public AssetController(AssetBundle bundle, FileServer files) {
+        this.bundle = bundle;
+        this.files = files;
+    }
+
+    @RequestMapping(value = "/assets/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void asset(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String uri = UriUtils.decode(request.getRequestURI(), StandardCharsets.UTF_8);
+        int at = uri.indexOf(AssetBundle.ASSETS_PREFIX);
+        Optional<Path> file = at < 0 ? Optional.empty()
+                : bundle.asset(uri.substring(at + AssetBundle.ASSETS_PREFIX.length()));
+        serve(file, true, request, response);
+    }
+
+    @RequestMapping(value = "/", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void index(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(bundle.page("index.html"), false, request, response);
+    }
+
+    @RequestMapping(value = "/{page:[A-Za-z0-9_-]+\\.html}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void page(@PathVariable String page, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        serve(bundle.page(page), false, request, response);
+    }
+
+    private void serve(Optional<Path> file, boolean immutable, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        files.serve(file.get(), immutable, request, response);
+    }
+}
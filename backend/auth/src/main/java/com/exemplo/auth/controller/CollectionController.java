@@ -1,23 +1,45 @@
 package com.exemplo.auth.controller;
 
 import com.exemplo.auth.dto.AddCardManualRequest;
+import com.exemplo.auth.dto.CardSearchHit;
+import com.exemplo.auth.dto.CollectionDelta;
+import com.exemplo.auth.dto.CollectionValue;
+import com.exemplo.auth.dto.CompletionStats;
 import com.exemplo.auth.dto.CreateFolderRequest;
+import com.exemplo.auth.dto.FolderSummary;
 import com.exemplo.auth.model.CardItem;
 import com.exemplo.auth.model.CollectionFolder;
 import com.exemplo.auth.repository.CardItemRepository;
 import com.exemplo.auth.repository.CollectionFolderRepository;
 import com.exemplo.auth.repository.UserRepository;
 import com.exemplo.auth.service.CollectionService;
+import com.exemplo.auth.service.CollectionStatsService;
+import com.exemplo.auth.service.CollectionSyncService;
+import com.exemplo.auth.service.CollectionValueService;
+import com.exemplo.auth.service.CollectionTransferService;
+import com.exemplo.auth.service.ImageDerivativeService;
+import com.exemplo.auth.service.ImageDerivativeService.Variant;
+import com.exemplo.auth.service.ImageQualityService;
+import com.exemplo.auth.service.ImageUploadService;
+import com.exemplo.auth.service.ImageUploadService.Burst;
+import com.exemplo.auth.service.ImageUploadService.StoredImage;
+import com.exemplo.auth.service.ImageUploadService.Upload;
+import com.exemplo.auth.service.OcrService;
+import com.exemplo.auth.service.OcrService.Latency;
+import com.exemplo.auth.service.StoragePaths;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,15 +51,36 @@ public class CollectionController {
     private final UserRepository userRepo;
     private final CollectionFolderRepository folderRepo;
     private final CardItemRepository itemRepo;
+    private final CollectionTransferService transfer;
+    private final CollectionStatsService stats;
+    private final CollectionSyncService sync;
+    private final CollectionValueService value;
+    private final ImageUploadService uploads;
+    private final ImageQualityService quality;
+
+    /** Quadros aceitos numa rajada de scan. */
+    private static final int MAX_BURST_FRAMES = 8;
 
     public CollectionController(CollectionService service,
                                 UserRepository userRepo,
                                 CollectionFolderRepository folderRepo,
-                                CardItemRepository itemRepo) {
+                                CardItemRepository itemRepo,
+                                CollectionTransferService transfer,
+                                CollectionStatsService stats,
+                                CollectionSyncService sync,
+                                CollectionValueService value,
+                                ImageUploadService uploads,
+                                ImageQualityService quality) {
         this.service = service;
         this.userRepo = userRepo;
         this.folderRepo = folderRepo;
         this.itemRepo = itemRepo;
+        this.transfer = transfer;
+        this.stats = stats;
+        this.sync = sync;
+        this.value = value;
+        this.uploads = uploads;
+        this.quality = quality;
     }
 
     // -------- helpers --------
@@ -54,22 +97,9 @@ public class CollectionController {
     @ResponseStatus(code = org.springframework.http.HttpStatus.UNAUTHORIZED)
     private static class Unauthorized extends RuntimeException {}
 
-    // Converte caminhos antigos ("data\\users\\...") para URL /files/...
-    private String normalizeImagePath(String imagePath) {
-        if (imagePath == null || imagePath.isBlank()) return null;
-        if (imagePath.startsWith("/files/")) return imagePath;
-
-        Path dataRoot = Paths.get("data").toAbsolutePath().normalize();
-        Path absoluteTarget = Paths.get(imagePath).toAbsolutePath().normalize();
-
-        try {
-            Path relative = dataRoot.relativize(absoluteTarget);
-            String rel = relative.toString().replace(File.separatorChar, '/');
-            return "/files/" + rel;
-        } catch (IllegalArgumentException e) {
-            String abs = absoluteTarget.toString().replace(File.separatorChar, '/');
-            return "/files/" + abs;
-        }
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String,String>> handleBad(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
     }
 
     // -------- endpoints --------
@@ -90,6 +120,69 @@ public class CollectionController {
         return service.listFolders(currentUserId(session));
     }
 
+    /** Pastas com nº de cartas, última atualização e capa (sem abrir cada pasta). */
+    @GetMapping("/folders/summary")
+    public List<FolderSummary> folderSummaries(HttpSession session) {
+        Long uid = currentUserId(session);
+        CollectionValue v = value.valueOf(uid);
+        return service.folderSummaries(uid).stream()
+                .map(s -> new FolderSummary(s.id(), s.name(), s.createdAt(), s.cardCount(),
+                        s.lastUpdated(), StoragePaths.publicUrl(s.coverImagePath()),
+                        v.folders().getOrDefault(s.id(), BigDecimal.ZERO)))
+                .toList();
+    }
+
+    /** Cobertura da Pokédex (mantida incrementalmente, sem varrer as cartas). */
+    @GetMapping("/stats")
+    public CompletionStats completion(HttpSession session) {
+        return stats.stats(currentUserId(session));
+    }
+
+    /** Valor estimado da coleção e de cada pasta (vendas recentes do mercado). */
+    @GetMapping("/value")
+    public CollectionValue collectionValue(HttpSession session) {
+        return value.valueOf(currentUserId(session));
+    }
+
+    /** Pokémon do dicionário que ainda faltam, paginados. */
+    @GetMapping("/stats/missing")
+    public ResponseEntity<?> missing(@RequestParam(defaultValue = "0") int page,
+                                     @RequestParam(defaultValue = "50") int size,
+                                     HttpSession session) {
+        Long uid = currentUserId(session);
+        if (page < 0 || size < 1 || size > 500) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid page/size"));
+        }
+        return ResponseEntity.ok(Map.of("page", page, "size", size, "items", stats.missing(uid, page, size)));
+    }
+
+    /** Busca por Pokémon/nome de carta em todas as pastas (paginada). */
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String q,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "20") int size,
+                                    HttpSession session) {
+        Long uid = currentUserId(session);
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid page/size"));
+        }
+        try {
+            var result = service.search(uid, q, page, size);
+            List<CardSearchHit> items = result.getContent().stream()
+                    .map(h -> new CardSearchHit(h.id(), h.folderId(), h.folderName(), h.cardName(),
+                            h.pokemonName(), h.source(), StoragePaths.publicUrl(h.imagePath()), h.createdAt()))
+                    .toList();
+            return ResponseEntity.ok(Map.of(
+                    "items", items,
+                    "page", page,
+                    "size", size,
+                    "total", result.getTotalElements()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /** Visualizar pasta + cartas */
     @GetMapping("/folders/{id}")
     public ResponseEntity<?> getFolder(@PathVariable Long id, HttpSession session) {
@@ -101,59 +194,118 @@ public class CollectionController {
         List<CardItem> items = itemRepo.findByFolderIdAndUserId(id, uid);
 
         // Monta DTO manualmente, normalizando imagePath
-        List<Map<String, Object>> itemDtos = items.stream()
-                .map(it -> Map.<String, Object>of(
-                        "id", it.getId(),
-                        "folderId", it.getFolderId(),
-                        "userId", it.getUserId(),
-                        "cardName", it.getCardName(),
-                        "pokemonName", it.getPokemonName(),
-                        "source", it.getSource(),
-                        "imagePath", normalizeImagePath(it.getImagePath()),
-                        "createdAt", it.getCreatedAt()
-                ))
-                .toList();
+        List<Map<String, Object>> itemDtos = items.stream().map(this::cardDto).toList();
 
         return ResponseEntity.ok(Map.of(
                 "id", f.getId(),
                 "name", f.getName(),
+                "estimatedValue", value.folderValue(uid, id),
                 "items", itemDtos
         ));
     }
 
+    /**
+     * Mudanças desde a versão {@code since} do cliente (0 = coleção inteira).
+     * O cliente guarda {@code version} da resposta e manda de volta no próximo sync.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<?> sync(@RequestParam(defaultValue = "0") long since, HttpSession session) {
+        Long uid = currentUserId(session);
+        CollectionDelta d = sync.since(uid, since);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", d.version());
+        body.put("full", d.full());
+        body.put("folders", d.folders().stream()
+                .map(f -> Map.of("id", f.getId(), "name", f.getName(), "createdAt", f.getCreatedAt()))
+                .toList());
+        body.put("cards", d.cards().stream().map(this::cardDto).toList());
+        body.put("deletedFolderIds", d.deletedFolderIds());
+        body.put("deletedCardIds", d.deletedCardIds());
+        return ResponseEntity.ok(body);
+    }
+
+    private Map<String, Object> cardDto(CardItem it) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", it.getId());
+        m.put("folderId", it.getFolderId());
+        m.put("userId", it.getUserId());
+        m.put("cardName", it.getCardName());
+        m.put("pokemonName", it.getPokemonName());
+        m.put("source", it.getSource());
+        String image = StoragePaths.publicUrl(it.getImagePath());
+        m.put("imagePath", image);
+        m.put("thumbUrl", image == null ? null : ImageDerivativeService.urlFor(image, Variant.THUMB));
+        m.put("createdAt", it.getCreatedAt());
+        return m;
+    }
+
     @PostMapping("/cards/manual")
     public CardItem addManual(@RequestBody @Valid AddCardManualRequest req, HttpSession session) {
         Long uid = currentUserId(session);
         return service.addManual(uid, req.folderId(), req.cardName());
     }
 
+    /**
+     * Multipart com "file" e "folderId" ou "folderName" (em qualquer ordem); corpo lido uma vez.
+     * Opcionais: "lang" (pt-br/en, senão o da pasta) e "latency" (interactive/bulk).
+     */
     @PostMapping(value = "/cards/scan", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public CardItem scan(@RequestParam(value = "folderId", required = false) Long folderId,
-                        @RequestParam(value = "folderName", required = false) String folderName,
-                        @RequestParam("file") MultipartFile file,
-                        HttpSession session) throws Exception {
-        Long uid = currentUserId(session);
-
-        // se não veio ID, tenta resolver pelo nome da pasta
-        if (folderId == null) {
-            String name = folderName == null ? "" : folderName.trim();
-            if (name.isEmpty()) {
-                throw new IllegalArgumentException("folderId or folderName is required");
-            }
-
-            var folderOpt = folderRepo.findByUserIdAndName(uid, name);
-            var folder = folderOpt.orElseThrow(() -> new IllegalArgumentException("folder not found"));
-            folderId = folder.getId();
+    public CardItem scan(HttpServletRequest request, HttpSession session) throws Exception {
+        Long uid = currentUserId(session);
+        Upload upload = uploads.receive(request, "file", true);
+
+        return uploads.consume(upload.image(), image ->
+                service.scanAndAdd(uid, folderOf(uid, upload.field("folderId"), upload.field("folderName")), image,
+                        OcrService.normalizeLanguage(upload.field("lang")),
+                        Latency.parse(upload.field("latency"))));
+    }
+
+    /**
+     * Rajada curta de fotos da mesma carta ("frames", até 8) com "folderId" ou
+     * "folderName": só o quadro mais nítido vai para o OCR, os outros são
+     * descartados na hora. Aceita os mesmos "lang" e "latency" do scan simples.
+     */
+    @PostMapping(value = "/cards/scan/burst", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CardItem scanBurst(HttpServletRequest request, HttpSession session) throws Exception {
+        Long uid = currentUserId(session);
+        Burst burst = uploads.receiveBurst(request, "frames", MAX_BURST_FRAMES);
+
+        StoredImage best;
+        try {
+            best = quality.sharpest(burst.images());
+        } catch (RuntimeException e) {
+            burst.images().forEach(uploads::discard);
+            throw e;
         }
+        for (StoredImage frame : burst.images()) {
+            if (!frame.url().equals(best.url())) uploads.discard(frame);
+        }
+        return uploads.consume(best, image ->
+                service.scanAndAdd(uid, folderOf(uid, burst.field("folderId"), burst.field("folderName")), image,
+                        OcrService.normalizeLanguage(burst.field("lang")),
+                        Latency.parse(burst.field("latency"))));
+    }
 
-        // salva arquivo temporário e chama o OCR
-        File tmp = File.createTempFile(
-                "card_",
-                "_" + (file.getOriginalFilename() == null ? "upload" : file.getOriginalFilename())
-        );
-        file.transferTo(tmp);
-        Path storage = Path.of("data", "users", String.valueOf(uid), "images");
-        return service.scanAndAdd(uid, folderId, tmp, storage);
+    /** Pasta pelo ID ou, se não veio, pelo nome. */
+    private Long folderOf(Long uid, String rawId, String rawName) {
+        Long folderId = parseId(rawId);
+        if (folderId != null) return folderId;
+        String name = rawName == null ? "" : rawName.trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("folderId or folderName is required");
+        }
+        return folderRepo.findByUserIdAndName(uid, name)
+                .orElseThrow(() -> new IllegalArgumentException("folder not found"))
+                .getId();
+    }
+
+    private static Long parseId(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        try {
+            return Long.valueOf(raw.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("folderId inválido");
+        }
     }
 
 
@@ -169,6 +321,19 @@ public class CollectionController {
         return ResponseEntity.ok(Map.of("id", f.getId(), "name", f.getName()));
     }
 
+    // idioma das cartas da pasta para o OCR: {"lang": "pt-br"} | {"lang": "en"} | {"lang": null}
+    @PutMapping("/folders/{id}/ocr-lang")
+    public ResponseEntity<?> setFolderOcrLang(@PathVariable Long id,
+                                              @RequestBody Map<String,String> body,
+                                              HttpSession session) {
+        Long uid = currentUserId(session);
+        var f = service.setFolderOcrLanguage(uid, id, OcrService.normalizeLanguage(body.get("lang")));
+        Map<String,Object> res = new LinkedHashMap<>();
+        res.put("id", f.getId());
+        res.put("ocrLang", f.getOcrLang());
+        return ResponseEntity.ok(res);
+    }
+
     // excluir pasta (apaga cartas dentro)
     @DeleteMapping("/folders/{id}")
     public ResponseEntity<?> deleteFolder(@PathVariable Long id, HttpSession session) {
@@ -199,6 +364,57 @@ public class CollectionController {
         return ResponseEntity.ok(updated);
     }
 
+    // -------- exportação / importação --------
+
+    /** Coleção inteira em NDJSON (padrão) ou CSV, escrita em streaming. */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+                                                        HttpSession session) {
+        Long uid = currentUserId(session);
+        CollectionTransferService.Format fmt = parseFormat(format);
+        String ext = fmt == CollectionTransferService.Format.CSV ? "csv" : "ndjson";
+        MediaType type = fmt == CollectionTransferService.Format.CSV
+                ? MediaType.parseMediaType("text/csv; charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody body = out -> transfer.export(uid, fmt, out);
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"colecao." + ext + "\"")
+                .body(body);
+    }
+
+    /** ZIP com cards.ndjson + imagens. */
+    @GetMapping("/export.zip")
+    public ResponseEntity<StreamingResponseBody> exportZip(HttpSession session) {
+        Long uid = currentUserId(session);
+        StreamingResponseBody body = out -> transfer.exportZip(uid, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"colecao.zip\"")
+                .body(body);
+    }
+
+    /** Importa o corpo bruto (NDJSON ou CSV da exportação) lendo linha a linha. */
+    @PostMapping("/import")
+    public ResponseEntity<?> importCards(@RequestParam(defaultValue = "ndjson") String format,
+                                         HttpServletRequest request,
+                                         HttpSession session) throws IOException {
+        Long uid = currentUserId(session);
+        try {
+            return ResponseEntity.ok(transfer.importCards(uid, parseFormat(format), request.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static CollectionTransferService.Format parseFormat(String format) {
+        return switch (format == null ? "" : format.trim().toLowerCase()) {
+            case "", "ndjson", "json" -> CollectionTransferService.Format.NDJSON;
+            case "csv" -> CollectionTransferService.Format.CSV;
+            default -> throw new IllegalArgumentException("Formato inválido: " + format);
+        };
+    }
 
 
 }
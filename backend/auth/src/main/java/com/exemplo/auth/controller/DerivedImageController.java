@@ -0,0 +1,65 @@
+package com.exemplo.auth.controller;
+
+import com.exemplo.auth.service.BlobStore;
+import com.exemplo.auth.service.FileServer;
+import com.exemplo.auth.service.ImageDerivativeService;
+import com.exemplo.auth.service.ImageDerivativeService.Variant;
+import com.exemplo.auth.service.StoragePaths;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Miniaturas em /files/derived/{largura}/{caminho original}.webp.
+ * Mais específico que o {@link FilesController}: gera o derivado se ainda
+ * não existir e, se não der (pool cheio, formato estranho), redireciona para
+ * o original. Derivado de blob também é imutável.
+ */
+@RestController
+public class DerivedImageController {
+
+    private final ImageDerivativeService derivatives;
+    private final FileServer files;
+
+    public DerivedImageController(ImageDerivativeService derivatives, FileServer files) {
+        this.derivatives = derivatives;
+        this.files = files;
+    }
+
+    @RequestMapping(value = "/files/derived/{width}/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void derived(@PathVariable int width, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<Variant> variant = Variant.ofWidth(width);
+        String prefix = "/files/derived/" + width + "/";
+        String uri = UriUtils.decode(request.getRequestURI(), StandardCharsets.UTF_8);
+        int at = uri.indexOf(prefix);
+        if (variant.isEmpty() || at < 0 || !uri.endsWith(".webp")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String original = StoragePaths.PUBLIC_PREFIX + uri.substring(at + prefix.length(), uri.length() - ".webp".length());
+        if (!FilesController.isPublic(original)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Optional<Path> file = derivatives.derivative(variant.get(), original.substring(StoragePaths.PUBLIC_PREFIX.length()));
+        if (file.isPresent()) {
+            files.serve(file.get(), BlobStore.isBlobUrl(original), request, response);
+        } else if (StoragePaths.toFile(original).map(p -> p.toFile().isFile()).orElse(false)) {
+            // derivative() já trouxe o original para o disco, se ele existir
+            response.sendRedirect(UriUtils.encodePath(original, StandardCharsets.UTF_8));
+        } else {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.exemplo.auth.controller;
+
+import com.exemplo.auth.service.BlobStore;
+import com.exemplo.auth.service.FileServer;
+import com.exemplo.auth.service.StorageMigrationService;
+import com.exemplo.auth.service.StoragePaths;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Arquivos de data/ em /files/** (imagens de cartas, anúncios, mensagens,
+ * avatares). Substitui o resource handler estático: ver {@link FileServer}
+ * para cache, ranges e envio. Blobs vêm do {@link BlobStore} (no backend S3,
+ * do cache local, baixados no primeiro pedido). URL antiga de um arquivo que
+ * acabou de ser migrado redireciona para o blob. Miniaturas têm controller
+ * próprio ({@link DerivedImageController}).
+ */
+@RestController
+public class FilesController {
+
+    private final FileServer files;
+    private final BlobStore blobs;
+    private final StorageMigrationService migration;
+
+    public FilesController(FileServer files, BlobStore blobs, StorageMigrationService migration) {
+        this.files = files;
+        this.blobs = blobs;
+        this.migration = migration;
+    }
+
+    @RequestMapping(value = "/files/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void file(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String url = UriUtils.decode(request.getRequestURI(), StandardCharsets.UTF_8);
+        Optional<Path> file = isPublic(url) ? blobs.fileFor(url) : Optional.empty();
+        if (file.isEmpty()) {
+            Optional<String> blob = isPublic(url) ? migration.movedTo(url) : Optional.empty();
+            if (blob.isPresent()) {
+                response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
+                response.setHeader(HttpHeaders.LOCATION, UriUtils.encodePath(blob.get(), StandardCharsets.UTF_8));
+            } else {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+            return;
+        }
+        files.serve(file.get(), BlobStore.isBlobUrl(url), request, response);
+    }
+
+    /** URL de data/ fora das pastas de escrita temporária. */
+    static boolean isPublic(String url) {
+        return url.startsWith(StoragePaths.PUBLIC_PREFIX) && !url.contains("/tmp/")
+                && StoragePaths.relative(url).isPresent();
+    }
+}
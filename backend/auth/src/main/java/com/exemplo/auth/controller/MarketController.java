@@ -1,18 +1,31 @@
 package com.exemplo.auth.controller;
 
+import com.exemplo.auth.dto.PriceStatsView;
 import com.exemplo.auth.model.MarketListing;
+import com.exemplo.auth.model.PriceAlert;
+import com.exemplo.auth.model.PriceAlertHit;
 import com.exemplo.auth.repository.UserRepository;
+import com.exemplo.auth.service.ImageUploadService;
+import com.exemplo.auth.service.ImageUploadService.Upload;
+import com.exemplo.auth.service.MarketFacetIndex;
+import com.exemplo.auth.service.MarketListingViews;
 import com.exemplo.auth.service.MarketService;
+import com.exemplo.auth.service.MarketStatsService;
+import com.exemplo.auth.service.OcrService;
+import com.exemplo.auth.service.PriceAlertService;
+import com.exemplo.auth.service.SaleNotificationService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.File;
 import java.math.BigDecimal;
-import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -27,10 +40,29 @@ public class MarketController {
 
     private final MarketService market;
     private final UserRepository users;
-
-    public MarketController(MarketService market, UserRepository users) {
+    private final MarketStatsService stats;
+    private final SaleNotificationService notifications;
+    private final MarketFacetIndex facets;
+    private final PriceAlertService alerts;
+    private final ImageUploadService uploads;
+    private final MarketListingViews views;
+
+    public MarketController(MarketService market,
+                            UserRepository users,
+                            MarketStatsService stats,
+                            SaleNotificationService notifications,
+                            MarketFacetIndex facets,
+                            PriceAlertService alerts,
+                            ImageUploadService uploads,
+                            MarketListingViews views) {
         this.market = market;
         this.users = users;
+        this.stats = stats;
+        this.notifications = notifications;
+        this.facets = facets;
+        this.alerts = alerts;
+        this.uploads = uploads;
+        this.views = views;
     }
 
     /* ===== auth helper ===== */
@@ -51,58 +83,67 @@ public class MarketController {
     }
 
 
-        private Map<String,Object> toView(MarketListing m) {
-        var map = new LinkedHashMap<String,Object>();
-        map.put("id", m.getId());
-        map.put("sellerId", m.getSellerId());
-
-        // pega email do vendedor
-        var sellerOpt = users.findById(m.getSellerId());
-        String sellerEmail = sellerOpt.map(u -> u.getEmail()).orElse(null);
-        map.put("sellerEmail", sellerEmail);
-
-        map.put("pokemonName", m.getPokemonName());
-        map.put("cardName", m.getCardName());
-        map.put("imagePath", m.getImagePath());
-        map.put("price", m.getPrice());
-        map.put("status", m.getStatus());
-        map.put("createdAt", m.getCreatedAt());
-        map.put("soldAt", m.getSoldAt());
-        return map;
-    }
-
-
     /* ===== scanner + criação de anúncio ===== */
 
+    /**
+     * Multipart com "file" e "price" (em qualquer ordem); a imagem vai direto para o store.
+     * Opcionais: "lang" (pt-br/en, pula a detecção de idioma) e "latency" (interactive/bulk).
+     */
     @PostMapping(value = "/listings/scan", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<MarketListing> scanAndCreate(
-            @RequestParam("price") String priceStr,
-            @RequestParam("file") MultipartFile file,
-            HttpSession session) throws Exception {
+    public ResponseEntity<MarketListing> scanAndCreate(HttpServletRequest request,
+                                                       HttpSession session) throws Exception {
 
         Long uid = currentUserId(session);
+        Upload upload = uploads.receive(request, "file", true);
+
+        return uploads.consume(upload.image(), image -> {
+            String priceStr = upload.field("price");
+            if (priceStr == null) throw new IllegalArgumentException("Preço obrigatório.");
+
+            BigDecimal price;
+            try {
+                price = new BigDecimal(priceStr.trim().replace(",", "."));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Preço inválido.");
+            }
+
+            MarketListing m = market.createListingFromScan(uid, image, price,
+                    OcrService.normalizeLanguage(upload.field("lang")),
+                    OcrService.Latency.parse(upload.field("latency")));
+            return ResponseEntity.status(HttpStatus.CREATED).body(m);
+        });
+    }
 
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("Imagem obrigatória.");
-        }
-
-        BigDecimal price;
-        try {
-            price = new BigDecimal(priceStr.replace(",", "."));
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Preço inválido.");
+    /**
+     * Anúncios em lote a partir de cartas da coleção (sem upload/OCR).
+     * Corpo: {"items": [{"cardId": 12, "price": "25.00"}, ...]}
+     */
+    @PostMapping("/listings/bulk")
+    public ResponseEntity<List<Map<String,Object>>> bulkCreate(@RequestBody Map<String, List<Map<String,Object>>> body,
+                                                               HttpSession session) {
+        Long uid = currentUserId(session);
+        List<Map<String,Object>> items = body.getOrDefault("items", List.of());
+
+        Map<Long, BigDecimal> prices = new LinkedHashMap<>();
+        for (Map<String,Object> it : items) {
+            Object cardId = it.get("cardId");
+            Object price = it.get("price");
+            if (cardId == null || price == null) {
+                throw new IllegalArgumentException("Cada item precisa de cardId e price.");
+            }
+            try {
+                prices.put(Long.valueOf(cardId.toString()),
+                        new BigDecimal(price.toString().trim().replace(",", ".")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cardId ou preço inválido.");
+            }
         }
 
-        File tmp = File.createTempFile("market_", "_" + (file.getOriginalFilename() == null ? "upload" : file.getOriginalFilename()));
-        try {
-            file.transferTo(tmp);
-            Path storage = Path.of("data", "users", String.valueOf(uid), "market");
-            MarketListing m = market.createListingFromScan(uid, tmp, storage, price);
-            return ResponseEntity.status(HttpStatus.CREATED).body(m);
-        } finally {
-            //noinspection ResultOfMethodCallIgnored
-            tmp.delete();
-        }
+        List<Map<String,Object>> created = market.createListingsFromCards(uid, prices)
+                .stream()
+                .map(views::toView)
+                .toList();
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
     /* ===== buscas / minha lista ===== */
@@ -111,28 +152,78 @@ public class MarketController {
     public List<Map<String,Object>> search(@RequestParam(name = "q", required = false) String q) {
         return market.searchActive(q)
                 .stream()
-                .map(this::toView)
+                .map(views::toView)
                 .toList();
     }
 
+    /** Navegação por facetas: filtros combináveis + contagem ao vivo de cada valor. */
+    @GetMapping("/listings/facets")
+    public Map<String,Object> facetedSearch(@RequestParam(name = "q", required = false) String q,
+                                            @RequestParam(required = false) List<String> pokemon,
+                                            @RequestParam(required = false) List<String> priceBand,
+                                            @RequestParam(required = false) Long sellerId,
+                                            @RequestParam(required = false) Integer maxAgeDays,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "24") int size) {
+        int pageSize = Math.min(Math.max(size, 1), 100);
+        var result = facets.search(
+                new MarketFacetIndex.Query(q, pokemon, priceBand, sellerId, maxAgeDays),
+                page, pageSize);
+
+        var out = new LinkedHashMap<String,Object>();
+        out.put("total", result.total());
+        out.put("page", page);
+        out.put("size", pageSize);
+        out.put("items", market.activeByIds(result.pageIds()).stream().map(views::toView).toList());
+        out.put("facets", result.facets());
+        return out;
+    }
+
     @GetMapping("/listings/mine")
     public List<Map<String,Object>> myListings(HttpSession session) {
         Long uid = currentUserId(session);
         return market.myActive(uid)
                 .stream()
-                .map(this::toView)
+                .map(views::toView)
                 .toList();
     }
 
+    /** Sem {@code since}: histórico completo. Com {@code since}: só as vendas posteriores. */
     @GetMapping("/notifications")
-    public List<Map<String,Object>> mySales(HttpSession session) {
+    public List<Map<String,Object>> mySales(@RequestParam(required = false) String since,
+                                            HttpSession session) {
         Long uid = currentUserId(session);
-        return market.mySold(uid)
-                .stream()
-                .map(this::toView)
+        List<MarketListing> sold = (since == null || since.isBlank())
+                ? market.mySold(uid)
+                : notifications.salesSince(uid, parseSince(since));
+        return sold.stream()
+                .map(views::toView)
                 .toList();
     }
 
+    /** Canal SSE: emite um evento "sold" a cada venda do usuário logado. */
+    @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter salesStream(HttpSession session) {
+        Long uid = currentUserId(session);
+        return notifications.subscribe(uid);
+    }
+
+    /** Fallback long-poll para quem não tem EventSource. */
+    @GetMapping("/notifications/poll")
+    public DeferredResult<List<Map<String,Object>>> pollSales(@RequestParam String since,
+                                                         HttpSession session) {
+        Long uid = currentUserId(session);
+        return notifications.poll(uid, parseSince(since));
+    }
+
+    private static Instant parseSince(String since) {
+        try {
+            return Instant.parse(since.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("parâmetro 'since' inválido; use ISO-8601, ex: 2025-11-05T02:10:00Z");
+        }
+    }
+
     @PatchMapping("/listings/{id}")
     public ResponseEntity<MarketListing> updateListing(@PathVariable Long id,
                                                     @RequestBody Map<String,String> body,
@@ -145,6 +236,56 @@ public class MarketController {
     }
 
 
+    /* ===== estatísticas de preço ===== */
+
+    @GetMapping("/stats/{pokemonName}")
+    public ResponseEntity<PriceStatsView> priceStats(@PathVariable String pokemonName) {
+        return stats.statsFor(pokemonName)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // sem endpoint de rebuild: um rebuild completo relê todo o histórico; roda só
+    // na subida e no cron noturno (MarketStatsService), nunca a pedido de cliente
+
+
+    /* ===== alertas de preço ===== */
+
+    @PostMapping("/alerts")
+    public ResponseEntity<PriceAlert> createAlert(@RequestBody Map<String,String> body, HttpSession session) {
+        Long uid = currentUserId(session);
+        String maxPriceStr = body.get("maxPrice");
+        BigDecimal maxPrice = null;
+        if (maxPriceStr != null && !maxPriceStr.isBlank()) {
+            try {
+                maxPrice = new BigDecimal(maxPriceStr.trim().replace(",", "."));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Preço inválido.");
+            }
+        }
+        PriceAlert a = alerts.create(uid, body.get("pokemonName"), maxPrice);
+        return ResponseEntity.status(HttpStatus.CREATED).body(a);
+    }
+
+    @GetMapping("/alerts")
+    public List<PriceAlert> myAlerts(HttpSession session) {
+        return alerts.list(currentUserId(session));
+    }
+
+    @DeleteMapping("/alerts/{id}")
+    public ResponseEntity<Void> deleteAlert(@PathVariable Long id, HttpSession session) {
+        alerts.delete(currentUserId(session), id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Disparos dos meus alertas; também chegam ao vivo como evento "alert" no stream SSE. */
+    @GetMapping("/alerts/hits")
+    public List<PriceAlertHit> alertHits(@RequestParam(required = false) String since, HttpSession session) {
+        Long uid = currentUserId(session);
+        return alerts.hits(uid, since == null || since.isBlank() ? null : parseSince(since));
+    }
+
+
     /* ===== comprar / cancelar ===== */
 
     @PostMapping("/listings/{id}/buy")
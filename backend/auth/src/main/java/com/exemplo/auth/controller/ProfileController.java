@@ -2,15 +2,17 @@ package com.exemplo.auth.controller;
 
 import com.exemplo.auth.model.User;
 import com.exemplo.auth.repository.UserRepository;
+import com.exemplo.auth.service.FileReclaimService;
+import com.exemplo.auth.service.ImageDerivativeService;
+import com.exemplo.auth.service.ImageDerivativeService.Variant;
+import com.exemplo.auth.service.ImageUploadService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,9 +20,13 @@ import java.util.Map;
 public class ProfileController {
 
     private final UserRepository users;
+    private final ImageUploadService uploads;
+    private final FileReclaimService reclaim;
 
-    public ProfileController(UserRepository users) {
+    public ProfileController(UserRepository users, ImageUploadService uploads, FileReclaimService reclaim) {
         this.users = users;
+        this.uploads = uploads;
+        this.reclaim = reclaim;
     }
 
     private Long currentUserId(HttpSession session) {
@@ -34,37 +40,21 @@ public class ProfileController {
     static class Unauthorized extends RuntimeException {}
 
     @PostMapping(value = "/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String,String>> uploadAvatar(@RequestParam("file") MultipartFile file,
+    public ResponseEntity<Map<String,String>> uploadAvatar(HttpServletRequest request,
                                                            HttpSession session) throws Exception {
         Long uid = currentUserId(session);
         User u = users.findById(uid).orElseThrow();
 
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("Arquivo de imagem obrigatório.");
-        }
-
-        String original = file.getOriginalFilename();
-        String ext = ".png";
-        if (original != null && original.lastIndexOf('.') > 0) {
-            String e = original.substring(original.lastIndexOf('.')).toLowerCase(Locale.ROOT);
-            if (e.matches("\\.(png|jpg|jpeg|webp|gif|bmp)$")) {
-                ext = e;
-            }
-        }
-
-        Path dir = Path.of("data", "users", String.valueOf(uid), "avatar");
-        Files.createDirectories(dir);
-        String filename = "avatar" + ext;
-        Path target = dir.resolve(filename);
-
-        file.transferTo(target);
-
-        // caminho servido pelo seu FileController (igual das cartas)
-        String url = "/files/users/" + uid + "/avatar/" + filename;
+        // blob: URL nova a cada troca, então navegador e miniaturas nunca ficam com a foto antiga
+        String url = uploads.receive(request, "file", true).image().url();
+        String previous = u.getProfileImagePath();
         u.setProfileImagePath(url);
         users.save(u);
+        if (previous != null && !previous.equals(url)) reclaim.enqueue(List.of(previous));
 
-        return ResponseEntity.ok(Map.of("avatarUrl", url));
+        return ResponseEntity.ok(Map.of(
+                "avatarUrl", url,
+                "avatarThumbUrl", ImageDerivativeService.urlFor(url, Variant.THUMB)));
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -1,6 +1,7 @@
 package com.exemplo.auth.controller;
 
 import com.exemplo.auth.dto.FriendView;
+import com.exemplo.auth.dto.TradeSuggestion;
 import com.exemplo.auth.model.CardItem;
 import com.exemplo.auth.model.CollectionFolder;
 import com.exemplo.auth.model.DirectMessage;
@@ -9,19 +10,20 @@ import com.exemplo.auth.model.Friendship.Status;
 import com.exemplo.auth.repository.CardItemRepository;
 import com.exemplo.auth.repository.CollectionFolderRepository;
 import com.exemplo.auth.repository.UserRepository;
+import com.exemplo.auth.service.ImageUploadService;
+import com.exemplo.auth.service.ImageUploadService.Upload;
 import com.exemplo.auth.service.SocialService;
+import com.exemplo.auth.service.TradeMatchService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 import com.exemplo.auth.dto.PendingFriendView;
 
 
-import java.io.File;
-import java.nio.file.Path;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -35,15 +37,21 @@ public class SocialController {
     private final UserRepository users;
     private final CollectionFolderRepository folders;
     private final CardItemRepository cards;
+    private final TradeMatchService trades;
+    private final ImageUploadService uploads;
 
     public SocialController(SocialService social,
                             UserRepository users,
                             CollectionFolderRepository folders,
-                            CardItemRepository cards) {
+                            CardItemRepository cards,
+                            TradeMatchService trades,
+                            ImageUploadService uploads) {
         this.social = social;
         this.users = users;
         this.folders = folders;
         this.cards = cards;
+        this.trades = trades;
+        this.uploads = uploads;
     }
 
     /* --------------------- util sessão --------------------- */
@@ -151,6 +159,16 @@ public class SocialController {
         ));
     }
 
+    /* ----------------------- trocas ------------------------ */
+
+    /** Trocas sugeridas: minhas repetidas que faltam ao amigo e vice-versa. */
+    @GetMapping("/trades")
+    public ResponseEntity<List<TradeSuggestion>> trades(@RequestParam(defaultValue = "20") int limit,
+                                                        HttpSession session) {
+        Long me = currentUserId(session);
+        return ResponseEntity.ok(trades.suggestions(me, limit));
+    }
+
     /* ---------------------- mensagens ---------------------- */
 
     @GetMapping("/messages")
@@ -169,28 +187,22 @@ public class SocialController {
         return ResponseEntity.ok(social.history(me, withUserId));
     }
 
+    /** Multipart com "toUserId", "text" e "file" opcional; a imagem vai direto para o store. */
     @PostMapping(value = "/messages", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<DirectMessage> send(@RequestParam Long toUserId,
-                                              @RequestParam(required = false) String text,
-                                              @RequestParam(value = "file", required = false) MultipartFile file,
-                                              HttpSession session) throws Exception {
+    public ResponseEntity<DirectMessage> send(HttpServletRequest request, HttpSession session) throws Exception {
         Long me = currentUserId(session);
+        Upload upload = uploads.receive(request, "file", false);
 
-        File tmp = null;
-        try {
-            if (file != null && !file.isEmpty()) {
-                String original = file.getOriginalFilename();
-                tmp = File.createTempFile("dm_", "_" + (original == null ? "upload" : original));
-                file.transferTo(tmp);
+        return uploads.consume(upload.image(), image -> {
+            String to = upload.field("toUserId");
+            Long toUserId;
+            try {
+                toUserId = Long.valueOf(to == null ? "" : to.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("toUserId inválido");
             }
-            Path storage = Path.of("data", "users", String.valueOf(me), "messages");
-            DirectMessage dm = social.sendMessage(me, toUserId, text, tmp, storage);
+            DirectMessage dm = social.sendMessage(me, toUserId, upload.field("text"), image);
             return ResponseEntity.status(HttpStatus.CREATED).body(dm);
-        } finally {
-            if (tmp != null && tmp.exists()) {
-                //noinspection ResultOfMethodCallIgnored
-                tmp.delete();
-            }
-        }
+        });
     }
 }
@@ -0,0 +1,9 @@
+package com.exemplo.auth.dto;
+
+/** {@link CardRef} + imagePath: o que a exclusão de uma pasta precisa, numa consulta só. */
+public record CardFileRef(Long id, Long folderId, String pokemonName, String imagePath) {
+
+    public CardRef ref() {
+        return new CardRef(id, folderId, pokemonName);
+    }
+}
@@ -0,0 +1,4 @@
+package com.exemplo.auth.dto;
+
+/** Projeção mínima de uma carta (sem imagem/datas) para índices em memória. */
+public record CardRef(Long id, Long folderId, String pokemonName) {}
@@ -0,0 +1,15 @@
+package com.exemplo.auth.dto;
+
+import java.time.Instant;
+
+/** Carta encontrada na busca da coleção, com a pasta onde está. */
+public record CardSearchHit(
+        Long id,
+        Long folderId,
+        String folderName,
+        String cardName,
+        String pokemonName,
+        String source,
+        String imagePath,
+        Instant createdAt
+) {}
@@ -0,0 +1,20 @@
+package com.exemplo.auth.dto;
+
+import com.exemplo.auth.model.CardItem;
+import com.exemplo.auth.model.CollectionFolder;
+
+import java.util.List;
+
+/**
+ * Resposta do sync: o que mudou entre a versão do cliente e {@code version}.
+ * Com {@code full = true} as listas trazem a coleção inteira e o cliente
+ * deve descartar o que tinha.
+ */
+public record CollectionDelta(
+        long version,
+        boolean full,
+        List<CollectionFolder> folders,
+        List<CardItem> cards,
+        List<Long> deletedFolderIds,
+        List<Long> deletedCardIds
+) {}
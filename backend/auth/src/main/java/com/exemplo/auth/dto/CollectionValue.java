@@ -0,0 +1,12 @@
+package com.exemplo.auth.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/** Valor estimado da coleção pelos preços de venda recentes do mercado. */
+public record CollectionValue(
+        BigDecimal total,
+        int pricedCards,
+        int unpricedCards,   // Pokémon sem nenhuma venda registrada
+        Map<Long, BigDecimal> folders
+) {}
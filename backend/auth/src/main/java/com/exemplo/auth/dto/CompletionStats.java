@@ -0,0 +1,14 @@
+package com.exemplo.auth.dto;
+
+import java.util.Map;
+
+/** Cobertura da Pokédex de um usuário (nomes distintos do dicionário que ele possui). */
+public record CompletionStats(
+        int ownedDistinct,
+        int dictionarySize,
+        double completionPercent,
+        int totalCards,
+        int unmatchedCards,      // pokemonName fora do dicionário
+        int duplicatedPokemon,   // nomes com mais de uma cópia na coleção
+        Map<Long, Integer> duplicatesByFolder // cópias extras por pasta
+) {}
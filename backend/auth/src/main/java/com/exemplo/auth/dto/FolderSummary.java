@@ -0,0 +1,22 @@
+package com.exemplo.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Pasta + agregados das cartas, montado numa única consulta agrupada. */
+public record FolderSummary(
+        Long id,
+        String name,
+        Instant createdAt,
+        Long cardCount,
+        Instant lastUpdated,     // carta mais recente (ou null se a pasta estiver vazia)
+        String coverImagePath,   // imagem da última carta com foto
+        BigDecimal estimatedValue // preenchido pelo CollectionValueService (não vem da consulta)
+) {
+
+    /** Usado pela consulta agrupada de CollectionFolderRepository. */
+    public FolderSummary(Long id, String name, Instant createdAt, Long cardCount,
+                         Instant lastUpdated, String coverImagePath) {
+        this(id, name, createdAt, cardCount, lastUpdated, coverImagePath, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.exemplo.auth.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record PriceStatsView(
+        String pokemonName,
+        BigDecimal lowestAsk,
+        int activeCount,
+        BigDecimal lastSalePrice,
+        Instant lastSaleAt,
+        BigDecimal medianSale7d,
+        int sales7d,
+        BigDecimal medianSale30d,
+        int sales30d,
+        Instant updatedAt
+) {}
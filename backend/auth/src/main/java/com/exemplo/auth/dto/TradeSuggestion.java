@@ -0,0 +1,17 @@
+package com.exemplo.auth.dto;
+
+import java.util.List;
+
+/**
+ * Troca sugerida com um amigo: repetidas minhas que faltam a ele e repetidas
+ * dele que faltam a mim. score = quantas cartas dá para trocar uma-a-uma.
+ */
+public record TradeSuggestion(
+        Long friendId,
+        String friendUsername,
+        int score,
+        int youGiveCount,
+        int youGetCount,
+        List<String> youGive,
+        List<String> youGet
+) {}
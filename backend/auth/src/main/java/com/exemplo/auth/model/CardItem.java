@@ -5,9 +5,14 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name="card_items")
+@Table(name="card_items", indexes = {
+        @Index(name="ix_card_items_user_folder", columnList="user_id, folder_id"),
+        @Index(name="ix_card_items_user_pokemon", columnList="user_id, pokemon_name")
+})
 public class CardItem {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_items_seq")
+    @SequenceGenerator(name = "card_items_seq", sequenceName = "card_items_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable=false)
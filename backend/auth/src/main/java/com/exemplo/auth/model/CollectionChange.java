@@ -0,0 +1,61 @@
+package com.exemplo.auth.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Entrada do log de mudanças da coleção (sincronização incremental).
+ * Todas as entradas gravadas numa mesma operação compartilham a versão.
+ */
+@Entity
+@Table(name = "collection_changes", indexes = {
+        @Index(name = "ix_collection_changes_user_version", columnList = "user_id, version")
+})
+public class CollectionChange {
+
+    public enum Kind { CARD, FOLDER }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "collection_changes_seq")
+    @SequenceGenerator(name = "collection_changes_seq", sequenceName = "collection_changes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column(nullable = false)
+    private Instant at;
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+
+    public Instant getAt() { return at; }
+    public void setAt(Instant at) { this.at = at; }
+}
@@ -8,7 +8,9 @@ import java.time.OffsetDateTime;
 @Table(name = "collection_folders",
        uniqueConstraints = @UniqueConstraint(name="uk_folder_user_name", columnNames={"userId","name"}))
 public class CollectionFolder {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "collection_folders_seq")
+    @SequenceGenerator(name = "collection_folders_seq", sequenceName = "collection_folders_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -20,16 +22,22 @@ public class CollectionFolder {
     @Column(nullable = false)
     private Instant createdAt;
 
+    // idioma das cartas da pasta para o OCR ("por"/"eng"); null = detectar por foto
+    @Column(length = 8)
+    private String ocrLang;
+
     // getters/setters
     public Long getId() { return id; }
     public Long getUserId() { return userId; }
     public String getName() { return name; }
     public Instant getCreatedAt() { return createdAt; }
+    public String getOcrLang() { return ocrLang; }
 
     public void setId(Long id) { this.id = id; }
     public void setUserId(Long userId) { this.userId = userId; }
     public void setName(String name) { this.name = name; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public void setOcrLang(String ocrLang) { this.ocrLang = ocrLang; }
 }
 
 
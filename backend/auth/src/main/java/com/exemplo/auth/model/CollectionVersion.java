@@ -0,0 +1,22 @@
+package com.exemplo.auth.model;
+
+import jakarta.persistence.*;
+
+/** Versão atual da coleção de cada usuário; só cresce. */
+@Entity
+@Table(name = "collection_versions")
+public class CollectionVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private long version;
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
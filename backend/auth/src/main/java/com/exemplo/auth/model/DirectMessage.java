@@ -8,7 +8,9 @@ import java.time.Instant;
         @Index(name="ix_dm_pair_time", columnList="sender_id, receiver_id, created_at")
 })
 public class DirectMessage {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "direct_messages_seq")
+    @SequenceGenerator(name = "direct_messages_seq", sequenceName = "direct_messages_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="sender_id", nullable=false)
@@ -0,0 +1,29 @@
+package com.exemplo.auth.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/** Arquivo candidato a remoção do disco (fila processada pelo FileReclaimService). */
+@Entity
+@Table(name = "file_reclaim_queue")
+public class FileReclaimTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_reclaim_queue_seq")
+    @SequenceGenerator(name = "file_reclaim_queue_seq", sequenceName = "file_reclaim_queue_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 255)
+    private String imagePath; // como gravado na entidade de origem (/files/users/...)
+
+    @Column(nullable = false)
+    private Instant enqueuedAt;
+
+    public Long getId() { return id; }
+
+    public String getImagePath() { return imagePath; }
+    public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+
+    public Instant getEnqueuedAt() { return enqueuedAt; }
+    public void setEnqueuedAt(Instant enqueuedAt) { this.enqueuedAt = enqueuedAt; }
+}
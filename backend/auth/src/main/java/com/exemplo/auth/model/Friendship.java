@@ -24,7 +24,8 @@ public class Friendship {
     public enum Status { PENDING, ACCEPTED, DECLINED, BLOCKED }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "friendships_seq")
+    @SequenceGenerator(name = "friendships_seq", sequenceName = "friendships_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "requester_id", nullable = false)
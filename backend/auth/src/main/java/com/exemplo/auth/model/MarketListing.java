@@ -11,7 +11,8 @@ public class MarketListing {
     public enum Status { ACTIVE, SOLD, CANCELED }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "market_listings_seq")
+    @SequenceGenerator(name = "market_listings_seq", sequenceName = "market_listings_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -29,6 +30,9 @@ public class MarketListing {
     @Column(length = 255)
     private String imagePath; // URL tipo /files/users/{id}/market/xxx.png
 
+    @Column
+    private Long cardItemId; // carta da coleção de origem (anúncio em lote); null no scan
+
     @Column(nullable = false, precision = 12, scale = 2)
     private BigDecimal price;
 
@@ -67,6 +71,9 @@ public class MarketListing {
     public String getImagePath() { return imagePath; }
     public void setImagePath(String imagePath) { this.imagePath = imagePath; }
 
+    public Long getCardItemId() { return cardItemId; }
+    public void setCardItemId(Long cardItemId) { this.cardItemId = cardItemId; }
+
     public BigDecimal getPrice() { return price; }
     public void setPrice(BigDecimal price) { this.price = price; }
 
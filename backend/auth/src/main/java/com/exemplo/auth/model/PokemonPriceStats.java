@@ -0,0 +1,83 @@
+package com.exemplo.auth.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Checkpoint das estatísticas de preço por Pokémon mantidas em memória
+ * pelo MarketStatsService. Uma linha por nome normalizado.
+ */
+@Entity
+@Table(name = "pokemon_price_stats")
+public class PokemonPriceStats {
+
+    @Id
+    @Column(length = 120)
+    private String pokemonKey; // nome em lower-case, sem espaços nas pontas
+
+    @Column(nullable = false, length = 120)
+    private String pokemonName;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal lowestAsk;
+
+    @Column(nullable = false)
+    private int activeCount;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal lastSalePrice;
+
+    @Column
+    private Instant lastSaleAt;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal medianSale7d;
+
+    @Column(nullable = false)
+    private int sales7d;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal medianSale30d;
+
+    @Column(nullable = false)
+    private int sales30d;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    /* getters/setters */
+
+    public String getPokemonKey() { return pokemonKey; }
+    public void setPokemonKey(String pokemonKey) { this.pokemonKey = pokemonKey; }
+
+    public String getPokemonName() { return pokemonName; }
+    public void setPokemonName(String pokemonName) { this.pokemonName = pokemonName; }
+
+    public BigDecimal getLowestAsk() { return lowestAsk; }
+    public void setLowestAsk(BigDecimal lowestAsk) { this.lowestAsk = lowestAsk; }
+
+    public int getActiveCount() { return activeCount; }
+    public void setActiveCount(int activeCount) { this.activeCount = activeCount; }
+
+    public BigDecimal getLastSalePrice() { return lastSalePrice; }
+    public void setLastSalePrice(BigDecimal lastSalePrice) { this.lastSalePrice = lastSalePrice; }
+
+    public Instant getLastSaleAt() { return lastSaleAt; }
+    public void setLastSaleAt(Instant lastSaleAt) { this.lastSaleAt = lastSaleAt; }
+
+    public BigDecimal getMedianSale7d() { return medianSale7d; }
+    public void setMedianSale7d(BigDecimal medianSale7d) { this.medianSale7d = medianSale7d; }
+
+    public int getSales7d() { return sales7d; }
+    public void setSales7d(int sales7d) { this.sales7d = sales7d; }
+
+    public BigDecimal getMedianSale30d() { return medianSale30d; }
+    public void setMedianSale30d(BigDecimal medianSale30d) { this.medianSale30d = medianSale30d; }
+
+    public int getSales30d() { return sales30d; }
+    public void setSales30d(int sales30d) { this.sales30d = sales30d; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,56 @@
+package com.exemplo.auth.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** "Me avise quando um {pokemonName} for anunciado por até {maxPrice}". */
+@Entity
+@Table(name = "price_alerts", indexes = {
+        @Index(name = "ix_price_alerts_user", columnList = "user_id"),
+        @Index(name = "ix_price_alerts_key", columnList = "pokemon_key")
+})
+public class PriceAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_alerts_seq")
+    @SequenceGenerator(name = "price_alerts_seq", sequenceName = "price_alerts_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 120)
+    private String pokemonName;
+
+    @Column(name = "pokemon_key", nullable = false, length = 120)
+    private String pokemonKey; // lower-case, usado no índice de alertas
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal maxPrice; // null = qualquer preço
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getPokemonName() { return pokemonName; }
+    public void setPokemonName(String pokemonName) { this.pokemonName = pokemonName; }
+
+    public String getPokemonKey() { return pokemonKey; }
+    public void setPokemonKey(String pokemonKey) { this.pokemonKey = pokemonKey; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,57 @@
+package com.exemplo.auth.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Disparo de um alerta: anúncio que casou com a regra. */
+@Entity
+@Table(name = "price_alert_hits",
+       uniqueConstraints = @UniqueConstraint(name = "uk_alert_hit", columnNames = {"alert_id", "listing_id"}),
+       indexes = @Index(name = "ix_alert_hits_user_time", columnList = "user_id, created_at"))
+public class PriceAlertHit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_alert_hits_seq")
+    @SequenceGenerator(name = "price_alert_hits_seq", sequenceName = "price_alert_hits_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "alert_id", nullable = false)
+    private Long alertId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "listing_id", nullable = false)
+    private Long listingId;
+
+    @Column(nullable = false, length = 120)
+    private String pokemonName;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getAlertId() { return alertId; }
+    public void setAlertId(Long alertId) { this.alertId = alertId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getListingId() { return listingId; }
+    public void setListingId(Long listingId) { this.listingId = listingId; }
+
+    public String getPokemonName() { return pokemonName; }
+    public void setPokemonName(String pokemonName) { this.pokemonName = pokemonName; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -1,13 +1,73 @@
 // repository/CardItemRepository.java
 package com.exemplo.auth.repository;
+import com.exemplo.auth.dto.CardFileRef;
+import com.exemplo.auth.dto.CardRef;
 import com.exemplo.auth.model.CardItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CardItemRepository extends JpaRepository<CardItem, Long> {
     List<CardItem> findByFolderIdAndUserId(Long folderId, Long userId);
     long countByFolderIdAndUserId(Long folderId, Long userId);
-    void deleteByFolderIdAndUserId(Long folderId, Long userId);
+    List<CardItem> findByUserIdOrderByIdAsc(Long userId);
+    List<CardItem> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    /** DELETE único no banco (o derivado deleteBy... carregaria e apagaria linha a linha). */
+    @Modifying
+    @Query("delete from CardItem c where c.folderId = :folderId and c.userId = :userId")
+    int deleteByFolderIdAndUserId(Long folderId, Long userId);
+
     void deleteByIdAndUserId(Long id, Long userId);
     boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query("select c.imagePath from CardItem c where c.imagePath in :paths")
+    List<String> findReferencedImagePaths(Collection<String> paths);
+
+    /** Caminhos gravados fora da forma /files/... (absolutos, data\\..., URLs externas). */
+    @Query("select distinct c.imagePath from CardItem c where c.imagePath is not null and c.imagePath not like '/files/%'")
+    List<String> findNonPublicImagePaths();
+
+    /** Troca caminhos antigos pelo blob equivalente (migração para o BlobStore). */
+    @Modifying
+    @Query("update CardItem c set c.imagePath = :to where c.imagePath in :from")
+    int repointImagePath(Collection<String> from, String to);
+
+    @Query("select new com.exemplo.auth.dto.CardRef(c.id, c.folderId, c.pokemonName) from CardItem c where c.userId = :userId")
+    List<CardRef> findRefsByUserId(Long userId);
+
+    @Query("""
+        select new com.exemplo.auth.dto.CardFileRef(c.id, c.folderId, c.pokemonName, c.imagePath)
+          from CardItem c where c.folderId = :folderId and c.userId = :userId
+    """)
+    List<CardFileRef> findFileRefsByFolderIdAndUserId(Long folderId, Long userId);
+
+    /**
+     * Busca na coleção inteira: nomes canônicos (igualdade, usa o índice
+     * user_id+pokemon_name) ou trecho do nome da carta/Pokémon dentro das
+     * cartas do usuário (prefixo user_id do índice).
+     */
+    @Query("""
+        select c from CardItem c
+         where c.userId = :userId
+           and (c.pokemonName in :names
+                or lower(c.pokemonName) like :pattern escape '\\'
+                or lower(c.cardName) like :pattern escape '\\')
+    """)
+    Page<CardItem> searchByUser(Long userId, Collection<String> names, String pattern, Pageable pageable);
+
+    /** Cursor para exportação: precisa ser consumido dentro de uma transação e fechado. */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select c from CardItem c where c.userId = :userId order by c.folderId, c.id")
+    Stream<CardItem> streamByUserId(Long userId);
 }
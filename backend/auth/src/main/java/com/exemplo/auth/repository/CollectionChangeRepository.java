@@ -0,0 +1,21 @@
+package com.exemplo.auth.repository;
+
+import com.exemplo.auth.model.CollectionChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CollectionChangeRepository extends JpaRepository<CollectionChange, Long> {
+    List<CollectionChange> findByUserIdAndVersionGreaterThanOrderByVersionAsc(Long userId, long version);
+
+    /** Menor versão registrada depois de {@code since}; se não for since+1, o log tem buraco. */
+    @Query("select min(c.version) from CollectionChange c where c.userId = :userId and c.version > :since")
+    Long minVersionAfter(Long userId, long since);
+
+    @Modifying
+    @Query("delete from CollectionChange c where c.at < :cutoff")
+    int deleteOlderThan(Instant cutoff);
+}
@@ -1,7 +1,10 @@
 // repository/CollectionFolderRepository.java
 package com.exemplo.auth.repository;
+import com.exemplo.auth.dto.FolderSummary;
 import com.exemplo.auth.model.CollectionFolder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +13,20 @@ public interface CollectionFolderRepository extends JpaRepository<CollectionFold
     Optional<CollectionFolder> findByIdAndUserId(Long id, Long userId);
     boolean existsByUserIdAndName(Long userId, String name);
     Optional<CollectionFolder> findByUserIdAndName(Long userId, String name);
+    List<CollectionFolder> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    /** Todas as pastas do usuário com contagem, última atualização e capa — uma ida ao banco. */
+    @Query("""
+        select new com.exemplo.auth.dto.FolderSummary(
+                 f.id, f.name, f.createdAt, count(c.id), max(c.createdAt),
+                 (select c2.imagePath from CardItem c2
+                   where c2.id = (select max(c3.id) from CardItem c3
+                                   where c3.folderId = f.id and c3.imagePath is not null)))
+          from CollectionFolder f
+          left join CardItem c on c.folderId = f.id
+         where f.userId = :userId
+         group by f.id, f.name, f.createdAt
+         order by f.name
+    """)
+    List<FolderSummary> summarizeByUserId(Long userId);
 }
@@ -0,0 +1,22 @@
+package com.exemplo.auth.repository;
+
+import com.exemplo.auth.model.CollectionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CollectionVersionRepository extends JpaRepository<CollectionVersion, Long> {
+
+    @Modifying
+    @Query(value = "insert into collection_versions(user_id, version) values (:userId, 0) on conflict (user_id) do nothing",
+           nativeQuery = true)
+    void ensureRow(Long userId);
+
+    /** Incremento no banco: a trava da linha serializa as mudanças do mesmo usuário. */
+    @Modifying
+    @Query("update CollectionVersion v set v.version = v.version + 1 where v.userId = :userId")
+    int increment(Long userId);
+
+    @Query("select v.version from CollectionVersion v where v.userId = :userId")
+    Long currentVersion(Long userId);
+}
@@ -2,8 +2,11 @@ package com.exemplo.auth.repository;
 
 import com.exemplo.auth.model.DirectMessage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface DirectMessageRepository extends JpaRepository<DirectMessage, Long> {
@@ -12,5 +15,15 @@ public interface DirectMessageRepository extends JpaRepository<DirectMessage, Lo
 
     List<DirectMessage> findByCreatedAtAfterAndSenderIdAndReceiverIdOrCreatedAtAfterAndSenderIdAndReceiverIdOrderByCreatedAtAsc(
             Instant after1, Long s1, Long r1, Instant after2, Long s2, Long r2);
+
+    @Query("select d.imagePath from DirectMessage d where d.imagePath in :paths")
+    List<String> findReferencedImagePaths(Collection<String> paths);
+
+    @Query("select distinct d.imagePath from DirectMessage d where d.imagePath is not null and d.imagePath not like '/files/%'")
+    List<String> findNonPublicImagePaths();
+
+    @Modifying
+    @Query("update DirectMessage d set d.imagePath = :to where d.imagePath in :from")
+    int repointImagePath(Collection<String> from, String to);
 }
 
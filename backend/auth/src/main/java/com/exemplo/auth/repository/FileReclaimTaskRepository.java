@@ -0,0 +1,10 @@
+package com.exemplo.auth.repository;
+
+import com.exemplo.auth.model.FileReclaimTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface FileReclaimTaskRepository extends JpaRepository<FileReclaimTask, Long> {
+    List<FileReclaimTask> findTop200ByOrderByIdAsc();
+}
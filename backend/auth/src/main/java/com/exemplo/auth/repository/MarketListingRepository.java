@@ -3,8 +3,11 @@ package com.exemplo.auth.repository;
 import com.exemplo.auth.model.MarketListing;
 import com.exemplo.auth.model.MarketListing.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface MarketListingRepository extends JpaRepository<MarketListing, Long> {
@@ -13,6 +16,8 @@ public interface MarketListingRepository extends JpaRepository<MarketListing, Lo
 
     List<MarketListing> findBySellerIdAndStatusNot(Long sellerId, Status status);
 
+    List<MarketListing> findBySellerIdAndStatusAndSoldAtAfterOrderBySoldAtAsc(Long sellerId, Status status, Instant after);
+
     @Query("""
         select m from MarketListing m
          where m.status = 'ACTIVE'
@@ -21,5 +26,31 @@ public interface MarketListingRepository extends JpaRepository<MarketListing, Lo
          order by m.price asc, m.createdAt desc
     """)
     List<MarketListing> searchActiveByQuery(String q);
+
+    List<MarketListing> findByStatus(Status status);
+
+    @Query("select m.imagePath from MarketListing m where m.imagePath in :paths")
+    List<String> findReferencedImagePaths(Collection<String> paths);
+
+    @Query("select distinct m.imagePath from MarketListing m where m.imagePath is not null and m.imagePath not like '/files/%'")
+    List<String> findNonPublicImagePaths();
+
+    @Modifying
+    @Query("update MarketListing m set m.imagePath = :to where m.imagePath in :from")
+    int repointImagePath(Collection<String> from, String to);
+
+    List<MarketListing> findByCardItemIdInAndStatus(Collection<Long> cardItemIds, Status status);
+
+    List<MarketListing> findByStatusAndSoldAtAfterOrderBySoldAtAsc(Status status, Instant after);
+
+    /** Venda mais recente de cada Pokémon (usado no rebuild das estatísticas). */
+    @Query("""
+        select m from MarketListing m
+         where m.status = 'SOLD'
+           and m.soldAt = (select max(m2.soldAt) from MarketListing m2
+                            where m2.status = 'SOLD'
+                              and lower(m2.pokemonName) = lower(m.pokemonName))
+    """)
+    List<MarketListing> findLatestSalePerPokemon();
 }
 
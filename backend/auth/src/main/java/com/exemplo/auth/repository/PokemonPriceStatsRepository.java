@@ -0,0 +1,13 @@
+package com.exemplo.auth.repository;
+
+import com.exemplo.auth.model.PokemonPriceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface PokemonPriceStatsRepository extends JpaRepository<PokemonPriceStats, String> {
+
+    @Query("select s.pokemonKey from PokemonPriceStats s")
+    List<String> findAllKeys();
+}
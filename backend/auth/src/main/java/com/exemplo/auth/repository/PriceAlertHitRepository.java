@@ -0,0 +1,14 @@
+package com.exemplo.auth.repository;
+
+import com.exemplo.auth.model.PriceAlertHit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface PriceAlertHitRepository extends JpaRepository<PriceAlertHit, Long> {
+    List<PriceAlertHit> findByUserIdAndCreatedAtAfterOrderByCreatedAtAsc(Long userId, Instant after);
+    List<PriceAlertHit> findTop100ByUserIdOrderByCreatedAtDesc(Long userId);
+    List<PriceAlertHit> findByListingIdAndAlertIdIn(Long listingId, Collection<Long> alertIds);
+}
@@ -0,0 +1,13 @@
+package com.exemplo.auth.repository;
+
+import com.exemplo.auth.model.PriceAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
+    List<PriceAlert> findByUserIdOrderByIdDesc(Long userId);
+    Optional<PriceAlert> findByIdAndUserId(Long id, Long userId);
+    long countByUserId(Long userId);
+}
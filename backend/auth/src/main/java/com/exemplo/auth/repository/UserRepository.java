@@ -2,7 +2,11 @@ package com.exemplo.auth.repository;
 
 import com.exemplo.auth.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,4 +16,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailIgnoreCase(String email);
     boolean existsByEmailIgnoreCase(String email);
     boolean existsByUsernameIgnoreCase(String username);
+
+    @Query("select u.profileImagePath from User u where u.profileImagePath in :paths")
+    List<String> findReferencedImagePaths(Collection<String> paths);
+
+    @Query("select distinct u.profileImagePath from User u where u.profileImagePath is not null and u.profileImagePath not like '/files/%'")
+    List<String> findNonPublicImagePaths();
+
+    @Modifying
+    @Query("update User u set u.profileImagePath = :to where u.profileImagePath in :from")
+    int repointImagePath(Collection<String> from, String to);
 }
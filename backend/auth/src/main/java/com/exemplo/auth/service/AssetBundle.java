@@ -0,0 +1,287 @@
+package com.exemplo.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Empacotamento do frontend na subida da aplicação.
+ *
+ * Cada asset (css, js, imagens) é copiado para &lt;saída&gt;/assets com o hash
+ * do conteúdo no nome (app.js → app.3f2a1b9c0d.js) e servido em /assets/
+ * com cache de um ano. O HTML e o CSS têm as referências reescritas para os
+ * nomes com hash (o CSS antes de ser "hasheado", para o hash cobrir as
+ * imagens que ele usa). Os textos ganham .gz (e .br, se o executável
+ * "brotli" existir no PATH) ao lado, que o {@link FileServer} entrega com
+ * Content-Encoding. O mapa nome lógico → nome com hash vai para manifest.json.
+ *
+ * Se algo falhar, as páginas saem direto da pasta do frontend, sem cache.
+ */
+@Service
+public class AssetBundle {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetBundle.class);
+
+    public static final String ASSETS_PREFIX = "/assets/";
+
+    private static final Set<String> COMPRESSIBLE = Set.of("html", "css", "js", "svg", "json", "txt");
+    private static final Pattern HTML_REF = Pattern.compile("(\\b(?:href|src)\\s*=\\s*\")([^\"]+)(\")");
+    private static final Pattern CSS_REF = Pattern.compile("(url\\(\\s*['\"]?)([^'\")]+)(['\"]?\\s*\\))");
+
+    private final ObjectMapper json;
+
+    @Value("${app.assets.source:../../frontend}")
+    private String source;
+
+    @Value("${app.assets.output:build/assets}")
+    private String output;
+
+    /** nome lógico (relativo ao frontend, com '/') → nome com hash. */
+    private volatile Map<String, String> manifest = Map.of();
+    private volatile Set<String> hashed = Set.of();
+    private volatile boolean built;
+
+    public AssetBundle(ObjectMapper json) {
+        this.json = json;
+    }
+
+    /* ===================== leitura ===================== */
+
+    /** Arquivo de /assets/{name}, se for um asset conhecido. */
+    public Optional<Path> asset(String name) {
+        if (!built || !hashed.contains(name)) return Optional.empty();
+        return Optional.of(outDir().resolve("assets").resolve(name));
+    }
+
+    /** Página HTML (reescrita se o bundle existe; original caso contrário). */
+    public Optional<Path> page(String name) {
+        if (!name.endsWith(".html") || name.contains("/") || name.contains("\\")) return Optional.empty();
+        Path p = (built ? outDir().resolve("pages") : sourceDir()).resolve(name);
+        return Files.isRegularFile(p) ? Optional.of(p) : Optional.empty();
+    }
+
+    public Map<String, String> manifest() {
+        return manifest;
+    }
+
+    /* ===================== build ===================== */
+
+    @PostConstruct
+    public void build() {
+        Path src = sourceDir();
+        if (!Files.isDirectory(src)) {
+            log.warn("[assets] {} não existe; páginas sem bundle", src);
+            return;
+        }
+        try {
+            long t0 = System.nanoTime();
+            Path out = outDir();
+            deleteTree(out);
+            Path assetsOut = Files.createDirectories(out.resolve("assets"));
+            Path pagesOut = Files.createDirectories(out.resolve("pages"));
+            boolean brotli = brotliAvailable();
+
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(src)) {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(p -> !src.relativize(p).toString().startsWith("."))
+                        .sorted(Comparator.comparing(p -> order(ext(p))))
+                        .toList();
+            }
+
+            // binários primeiro, depois CSS (que aponta para imagens), JS e por fim HTML
+            Map<String, String> names = new TreeMap<>();
+            List<Path> pages = new ArrayList<>();
+            for (Path f : files) {
+                String logical = src.relativize(f).toString().replace('\\', '/');
+                String ext = ext(f);
+                if (ext.equals("html")) {
+                    pages.add(f);
+                    continue;
+                }
+                byte[] bytes = Files.readAllBytes(f);
+                if (ext.equals("css")) bytes = rewrite(CSS_REF, bytes, logical, names);
+
+                String name = hashedName(logical, bytes);
+                Path target = assetsOut.resolve(name);
+                Files.createDirectories(target.getParent());
+                Files.write(target, bytes);
+                compress(target, ext, brotli);
+                names.put(logical, name);
+            }
+
+            for (Path f : pages) {
+                String logical = src.relativize(f).toString().replace('\\', '/');
+                Path target = pagesOut.resolve(f.getFileName().toString());
+                Files.write(target, rewrite(HTML_REF, Files.readAllBytes(f), logical, names));
+                compress(target, "html", brotli);
+            }
+
+            Files.write(out.resolve("manifest.json"), json.writerWithDefaultPrettyPrinter().writeValueAsBytes(names));
+            manifest = Map.copyOf(names);
+            hashed = Set.copyOf(names.values());
+            built = true;
+            log.info("[assets] {} assets e {} páginas em {} ms{}", names.size(), pages.size(),
+                    (System.nanoTime() - t0) / 1_000_000, brotli ? " (gzip + brotli)" : " (gzip)");
+        } catch (IOException | RuntimeException e) {
+            built = false;
+            log.error("[assets] falha ao gerar o bundle; servindo o frontend original: {}", e.getMessage());
+        }
+    }
+
+    /** Troca referências a assets conhecidos por /assets/&lt;nome com hash&gt;. */
+    private static byte[] rewrite(Pattern refs, byte[] content, String from, Map<String, String> names) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        Matcher m = refs.matcher(text);
+        StringBuilder sb = new StringBuilder(text.length());
+        while (m.find()) {
+            String target = resolveRef(from, m.group(2));
+            String name = target == null ? null : names.get(target);
+            String replacement = name == null ? m.group() : m.group(1) + ASSETS_PREFIX + name + m.group(3);
+            m.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        m.appendTail(sb);
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Caminho lógico de uma referência (relativa ao arquivo ou absoluta), ou null se externa. */
+    private static String resolveRef(String from, String ref) {
+        String r = ref.trim();
+        if (r.isEmpty() || r.contains("://") || r.startsWith("//") || r.startsWith("data:") || r.startsWith("#")) {
+            return null;
+        }
+        int cut = indexOfAny(r, '?', '#');
+        if (cut >= 0) r = r.substring(0, cut);
+        if (r.startsWith("/")) return Paths.get(r.substring(1)).normalize().toString().replace('\\', '/');
+        Path base = Paths.get(from).getParent();
+        Path resolved = (base == null ? Paths.get(r) : base.resolve(r)).normalize();
+        return resolved.toString().replace('\\', '/');
+    }
+
+    private static String hashedName(String logical, byte[] bytes) {
+        String hash = HexFormat.of().formatHex(sha256(bytes)).substring(0, 10);
+        int dot = logical.lastIndexOf('.');
+        int slash = logical.lastIndexOf('/');
+        if (dot <= slash + 1) return logical + "." + hash;
+        return logical.substring(0, dot) + "." + hash + logical.substring(dot);
+    }
+
+    /* ===================== compressão ===================== */
+
+    private static void compress(Path file, String ext, boolean brotli) throws IOException {
+        if (!COMPRESSIBLE.contains(ext)) return; // PNG/JPG/WebP já são comprimidos
+        long size = Files.size(file);
+
+        Path gz = file.resolveSibling(file.getFileName() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 8192) {
+            { def.setLevel(Deflater.BEST_COMPRESSION); }
+        }) {
+            Files.copy(file, out);
+        }
+        if (Files.size(gz) >= size) Files.delete(gz);
+
+        if (brotli) {
+            Path br = file.resolveSibling(file.getFileName() + ".br");
+            if (run("brotli", "-f", "-q", "11", "-o", br.toString(), file.toString())
+                    && Files.exists(br) && Files.size(br) >= size) {
+                Files.delete(br);
+            }
+        }
+    }
+
+    private static boolean brotliAvailable() {
+        return run("brotli", "--version");
+    }
+
+    private static boolean run(String... cmd) {
+        try {
+            Process p = new ProcessBuilder(cmd).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            if (!p.waitFor(30, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+                return false;
+            }
+            return p.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /* ===================== helpers ===================== */
+
+    private Path sourceDir() {
+        return Paths.get(source).toAbsolutePath().normalize();
+    }
+
+    private Path outDir() {
+        return Paths.get(output).toAbsolutePath().normalize();
+    }
+
+    private static String ext(Path p) {
+        String n = p.getFileName().toString();
+        int i = n.lastIndexOf('.');
+        return i < 0 ? "" : n.substring(i + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static int order(String ext) {
+        return switch (ext) {
+            case "css" -> 1;
+            case "js" -> 2;
+            case "html" -> 3;
+            default -> 0;
+        };
+    }
+
+    private static int indexOfAny(String s, char a, char b) {
+        int i = s.indexOf(a);
+        int j = s.indexOf(b);
+        if (i < 0) return j;
+        if (j < 0) return i;
+        return Math.min(i, j);
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
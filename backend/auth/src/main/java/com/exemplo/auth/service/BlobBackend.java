@@ -0,0 +1,41 @@
+package com.exemplo.auth.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Onde os blobs do {@link BlobStore} ficam guardados.
+ *
+ * A chave é sempre "ab/cd/&lt;sha256&gt;.ext" (o mesmo caminho relativo a
+ * data/blobs), então a URL gravada nas tabelas não muda ao trocar de backend.
+ * Como o conteúdo define a chave, gravar de novo uma chave existente não
+ * precisa fazer nada.
+ *
+ * Implementações: {@link LocalBlobBackend} (disco) e {@link S3BlobBackend}
+ * (S3 ou compatível, com cópia local como cache). Escolha em
+ * app.storage.backend, ver config/StorageConfig.
+ */
+public interface BlobBackend {
+
+    /** Publica o arquivo completo sob a chave; o arquivo é consumido (movido ou apagado). */
+    void store(String key, Path file) throws IOException;
+
+    /** Publica uma cópia; o arquivo continua com o chamador. */
+    void storeCopy(String key, Path file) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Arquivo local com o conteúdo da chave (OCR, miniaturas e envio por
+     * sendfile leem do disco), trazido do backend se preciso. Vazio se a
+     * chave não existe.
+     */
+    Optional<Path> localFile(String key) throws IOException;
+
+    /** true se algo foi removido. */
+    boolean delete(String key) throws IOException;
+
+    /** true quando o disco local já é o armazenamento definitivo. */
+    boolean isLocal();
+}
@@ -0,0 +1,156 @@
+package com.exemplo.auth.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Armazenamento de imagens endereçado por conteúdo.
+ *
+ * Cada arquivo vira /files/blobs/ab/cd/abcd….ext, onde abcd… é o SHA-256
+ * dos bytes; uploads idênticos (mesma carta enviada de novo, anúncio e
+ * coleção com a mesma foto) apontam para o mesmo blob. A escrita vai para um
+ * temporário em data/blobs/tmp e só é publicada no {@link BlobBackend}
+ * (disco ou S3) depois de completa, então ninguém enxerga arquivo pela metade.
+ *
+ * Um blob pode ser referenciado por várias linhas; quem apaga é o
+ * {@link FileReclaimService}, que só remove quando nenhuma tabela aponta mais
+ * para o caminho (a contagem de referências é a própria consulta).
+ */
+@Service
+public class BlobStore {
+
+    static final String BLOB_DIR = "blobs";
+    private static final String BLOB_PREFIX = StoragePaths.PUBLIC_PREFIX + BLOB_DIR + "/";
+
+    private final Path tmpDir = blobRoot().resolve("tmp");
+
+    private final BlobBackend backend;
+    private final ApplicationEventPublisher events;
+
+    public BlobStore(BlobBackend backend, ApplicationEventPublisher events) {
+        this.backend = backend;
+        this.events = events;
+    }
+
+    /** data/blobs: o armazenamento no backend local, o cache no S3. */
+    public static Path blobRoot() {
+        return StoragePaths.dataRoot().resolve(BLOB_DIR);
+    }
+
+    /** Grava o conteúdo do stream e devolve a URL pública (/files/blobs/...). */
+    public String put(InputStream in, String ext) throws IOException {
+        Files.createDirectories(tmpDir);
+        Path tmp = tmpDir.resolve(UUID.randomUUID() + ".part");
+        MessageDigest sha = sha256();
+        try {
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), sha)) {
+                in.transferTo(out);
+            }
+            String key = keyFor(HexFormat.of().formatHex(sha.digest()), ext);
+            backend.store(key, tmp);
+            String url = BLOB_PREFIX + key;
+            events.publishEvent(new ImageStoredEvent(url));
+            return url;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Grava uma cópia do arquivo (o original continua com o chamador). */
+    public String put(Path source, String ext) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return put(in, ext);
+        }
+    }
+
+    /**
+     * Traz um arquivo já existente em data/ para o store sem copiar bytes
+     * quando possível (hard link no backend local). Usado na migração; o
+     * original pode ser apagado depois que as referências forem trocadas.
+     */
+    public String adopt(Path existing, String ext) throws IOException {
+        MessageDigest sha = sha256();
+        try (InputStream in = Files.newInputStream(existing);
+             OutputStream sink = new DigestOutputStream(OutputStream.nullOutputStream(), sha)) {
+            in.transferTo(sink);
+        }
+        String key = keyFor(HexFormat.of().formatHex(sha.digest()), ext);
+        backend.storeCopy(key, existing);
+        return BLOB_PREFIX + key;
+    }
+
+    /**
+     * Arquivo local de um imagePath: blob vem do backend (baixado para o
+     * cache se preciso); caminho antigo de data/ é lido direto.
+     */
+    public Optional<Path> fileFor(String imagePath) throws IOException {
+        Optional<String> key = keyOf(imagePath);
+        if (key.isPresent()) return backend.localFile(key.get());
+        return StoragePaths.toFile(imagePath).filter(Files::isRegularFile);
+    }
+
+    /** true se o imagePath é um blob presente no backend. */
+    public boolean exists(String imagePath) throws IOException {
+        Optional<String> key = keyOf(imagePath);
+        return key.isPresent() && backend.exists(key.get());
+    }
+
+    /** Apaga o blob (ou o arquivo antigo de data/); true se algo foi removido. */
+    public boolean delete(String imagePath) throws IOException {
+        Optional<String> key = keyOf(imagePath);
+        if (key.isPresent()) return backend.delete(key.get());
+        Path file = StoragePaths.toFile(imagePath).orElse(null);
+        return file != null && Files.deleteIfExists(file);
+    }
+
+    public BlobBackend backend() {
+        return backend;
+    }
+
+    public static boolean isBlobUrl(String imagePath) {
+        return imagePath != null && imagePath.startsWith(BLOB_PREFIX);
+    }
+
+    /** Chave no backend (ab/cd/hash.ext) de qualquer forma gravada do caminho de um blob. */
+    static Optional<String> keyOf(String imagePath) {
+        return StoragePaths.relative(imagePath)
+                .filter(rel -> rel.startsWith(BLOB_DIR + "/") && !rel.startsWith(BLOB_DIR + "/tmp/"))
+                .map(rel -> rel.substring(BLOB_DIR.length() + 1));
+    }
+
+    /** Extensão normalizada a partir de um nome de arquivo (".png" se não houver). */
+    public static String extOf(String filename) {
+        if (filename == null) return ".png";
+        int i = filename.lastIndexOf('.');
+        if (i < 0 || i == filename.length() - 1) return ".png";
+        String ext = filename.substring(i + 1).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        if (ext.isEmpty() || ext.length() > 5) return ".png";
+        return "." + (ext.equals("jpeg") ? "jpg" : ext);
+    }
+
+    private static String keyFor(String hash, String ext) {
+        String e = ext == null || ext.isBlank() ? ".png" : (ext.startsWith(".") ? ext : "." + ext);
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + e;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.exemplo.auth.service;
+
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_core.Point2f;
+import org.bytedeco.opencv.opencv_core.RotatedRect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Localiza a carta na foto e a "desentorta" para um retângulo canônico
+ * ({@value #CARD_W}x{@value #CARD_H}, proporção 63x88 mm), de modo que a
+ * faixa do nome fique sempre no mesmo lugar, com fundo e perspectiva fora.
+ *
+ * Detecção numa cópia de {@value #DETECT_WIDTH} px: Canny + dilatação, maior
+ * contorno externo aproximado por um quadrilátero convexo que ocupe boa
+ * parte da foto e tenha proporção de carta (aceita retrato ou paisagem).
+ * Sem quadrilátero, tenta o retângulo mínimo do maior contorno. Os cantos
+ * voltam para a escala original antes do warp, para não perder resolução.
+ */
+final class CardDetector {
+
+    static final int CARD_W = 630;
+    static final int CARD_H = 880;
+
+    private static final int DETECT_WIDTH = 500;
+    private static final double MIN_AREA_FRAC = 0.20;
+    private static final double CARD_RATIO = 63.0 / 88.0;
+    private static final double RATIO_TOLERANCE = 0.25;
+
+    private CardDetector() {}
+
+    /** Carta retificada em BGR (o chamador libera), ou null se não houver carta clara na foto. */
+    static Mat warp(Mat bgr) {
+        float[][] corners = findCorners(bgr);
+        if (corners == null) return null;
+
+        Mat src = new Mat(4, 1, opencv_core.CV_32FC2);
+        Mat dst = new Mat(4, 1, opencv_core.CV_32FC2);
+        Mat transform = null;
+        try {
+            float[][] target = {{0, 0}, {CARD_W - 1, 0}, {CARD_W - 1, CARD_H - 1}, {0, CARD_H - 1}};
+            try (FloatIndexer s = src.createIndexer(); FloatIndexer d = dst.createIndexer()) {
+                for (int i = 0; i < 4; i++) {
+                    s.put(i, 0, 0, corners[i][0]);
+                    s.put(i, 0, 1, corners[i][1]);
+                    d.put(i, 0, 0, target[i][0]);
+                    d.put(i, 0, 1, target[i][1]);
+                }
+            }
+            transform = opencv_imgproc.getPerspectiveTransform(src, dst);
+            Mat card = new Mat();
+            opencv_imgproc.warpPerspective(bgr, card, transform, new Size(CARD_W, CARD_H),
+                    opencv_imgproc.INTER_LINEAR, opencv_core.BORDER_REPLICATE, new Scalar());
+            return card;
+        } finally {
+            src.release();
+            dst.release();
+            if (transform != null) transform.release();
+        }
+    }
+
+    /** Cantos TL, TR, BR, BL em coordenadas da imagem original, com a carta em pé. */
+    static float[][] findCorners(Mat bgr) {
+        double scale = bgr.cols() > DETECT_WIDTH ? DETECT_WIDTH / (double) bgr.cols() : 1.0;
+        Mat small = new Mat();
+        Mat gray = new Mat();
+        Mat edges = new Mat();
+        Mat kernel = opencv_imgproc.getStructuringElement(opencv_imgproc.MORPH_RECT, new Size(3, 3));
+        MatVector contours = new MatVector();
+        Mat hierarchy = new Mat();
+        try {
+            opencv_imgproc.resize(bgr, small, new Size((int) Math.round(bgr.cols() * scale),
+                    (int) Math.round(bgr.rows() * scale)), 0, 0, opencv_imgproc.INTER_AREA);
+            opencv_imgproc.cvtColor(small, gray, opencv_imgproc.COLOR_BGR2GRAY);
+            opencv_imgproc.GaussianBlur(gray, gray, new Size(5, 5), 0);
+            opencv_imgproc.Canny(gray, edges, 50, 150);
+            opencv_imgproc.dilate(edges, edges, kernel);
+            opencv_imgproc.findContours(edges, contours, hierarchy,
+                    opencv_imgproc.RETR_EXTERNAL, opencv_imgproc.CHAIN_APPROX_SIMPLE);
+
+            double imageArea = (double) small.cols() * small.rows();
+            List<Mat> byArea = new ArrayList<>();
+            for (long i = 0; i < contours.size(); i++) byArea.add(contours.get(i));
+            byArea.sort(Comparator.comparingDouble((Mat c) -> opencv_imgproc.contourArea(c)).reversed());
+
+            for (Mat c : byArea.subList(0, Math.min(5, byArea.size()))) {
+                if (opencv_imgproc.contourArea(c) < imageArea * MIN_AREA_FRAC) break;
+                float[][] quad = quadrilateral(c);
+                if (quad == null) quad = minAreaRect(c);
+                if (quad == null) continue;
+                float[][] ordered = uprightOrder(quad);
+                if (ordered == null) continue;
+                for (float[] p : ordered) {
+                    p[0] /= (float) scale;
+                    p[1] /= (float) scale;
+                }
+                return ordered;
+            }
+            return null;
+        } finally {
+            small.release();
+            gray.release();
+            edges.release();
+            kernel.release();
+            hierarchy.release();
+            contours.close();
+        }
+    }
+
+    private static float[][] quadrilateral(Mat contour) {
+        Mat approx = new Mat();
+        try {
+            double perimeter = opencv_imgproc.arcLength(contour, true);
+            opencv_imgproc.approxPolyDP(contour, approx, 0.02 * perimeter, true);
+            if (approx.rows() != 4 || !opencv_imgproc.isContourConvex(approx)) return null;
+            float[][] out = new float[4][2];
+            try (IntIndexer idx = approx.createIndexer()) {
+                for (int i = 0; i < 4; i++) {
+                    out[i][0] = idx.get(i, 0, 0);
+                    out[i][1] = idx.get(i, 0, 1);
+                }
+            }
+            return out;
+        } finally {
+            approx.release();
+        }
+    }
+
+    /** Contorno com cantos arredondados ou um lado ocluído: aceita o retângulo envolvente se quase cheio. */
+    private static float[][] minAreaRect(Mat contour) {
+        RotatedRect r = opencv_imgproc.minAreaRect(contour);
+        double rectArea = (double) r.size().width() * r.size().height();
+        if (rectArea <= 0 || opencv_imgproc.contourArea(contour) < rectArea * 0.85) return null;
+        Point2f pts = new Point2f(4);
+        try {
+            r.points(pts);
+            float[][] out = new float[4][2];
+            for (int i = 0; i < 4; i++) {
+                Point2f p = pts.position(i);
+                out[i][0] = p.x();
+                out[i][1] = p.y();
+            }
+            return out;
+        } finally {
+            pts.position(0).close();
+        }
+    }
+
+    /**
+     * Ordena TL, TR, BR, BL (soma e diferença das coordenadas) e gira um
+     * quarto de volta se a carta estiver deitada. Null se a proporção não
+     * for de carta.
+     */
+    private static float[][] uprightOrder(float[][] q) {
+        float[] tl = q[0], tr = q[0], br = q[0], bl = q[0];
+        for (float[] p : q) {
+            if (p[0] + p[1] < tl[0] + tl[1]) tl = p;
+            if (p[0] + p[1] > br[0] + br[1]) br = p;
+            if (p[1] - p[0] < tr[1] - tr[0]) tr = p;
+            if (p[1] - p[0] > bl[1] - bl[0]) bl = p;
+        }
+        if (tl == tr || tl == br || tl == bl || tr == br || tr == bl || br == bl) return null;
+
+        double width = (dist(tl, tr) + dist(bl, br)) / 2;
+        double height = (dist(tl, bl) + dist(tr, br)) / 2;
+        if (width <= 0 || height <= 0) return null;
+        boolean landscape = width > height;
+        double ratio = landscape ? height / width : width / height;
+        if (Math.abs(ratio - CARD_RATIO) > RATIO_TOLERANCE) return null;
+
+        // deitada: o lado esquerdo da foto vira o topo da carta (giro anti-horário)
+        return landscape
+                ? new float[][]{bl.clone(), tl.clone(), tr.clone(), br.clone()}
+                : new float[][]{tl.clone(), tr.clone(), br.clone(), bl.clone()};
+    }
+
+    private static double dist(float[] a, float[] b) {
+        return Math.hypot(a[0] - b[0], a[1] - b[1]);
+    }
+}
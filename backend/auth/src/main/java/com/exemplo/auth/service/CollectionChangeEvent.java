@@ -0,0 +1,44 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.dto.CardRef;
+import com.exemplo.auth.model.CardItem;
+
+import java.util.List;
+
+/**
+ * Publicado pelo {@link CollectionService} quando cartas de um usuário mudam.
+ * {@code upserted} traz cartas novas ou com pokemonName alterado (mesmo id);
+ * {@code removed} as apagadas. {@code upsertedFolderId} vem em pasta criada
+ * ou renomeada e {@code deletedFolderId} quando a pasta inteira foi removida.
+ *
+ * Os consumidores guardam o estado por id de carta, então aplicar o mesmo
+ * evento duas vezes não altera o resultado.
+ */
+public record CollectionChangeEvent(
+        Long userId,
+        List<CardRef> upserted,
+        List<CardRef> removed,
+        Long upsertedFolderId,
+        Long deletedFolderId
+) {
+
+    public static CollectionChangeEvent upserted(Long userId, List<CardItem> cards) {
+        return new CollectionChangeEvent(userId, cards.stream().map(CollectionChangeEvent::ref).toList(), List.of(), null, null);
+    }
+
+    public static CollectionChangeEvent removed(Long userId, List<CardRef> cards) {
+        return new CollectionChangeEvent(userId, List.of(), cards, null, null);
+    }
+
+    public static CollectionChangeEvent folderDeleted(Long userId, Long folderId, List<CardRef> cards) {
+        return new CollectionChangeEvent(userId, List.of(), cards, null, folderId);
+    }
+
+    public static CollectionChangeEvent folderUpserted(Long userId, Long folderId) {
+        return new CollectionChangeEvent(userId, List.of(), List.of(), folderId, null);
+    }
+
+    public static CardRef ref(CardItem c) {
+        return new CardRef(c.getId(), c.getFolderId(), c.getPokemonName());
+    }
+}
@@ -1,20 +1,34 @@
 package com.exemplo.auth.service;
 
+import com.exemplo.auth.dto.CardFileRef;
+import com.exemplo.auth.dto.CardRef;
+import com.exemplo.auth.dto.CardSearchHit;
+import com.exemplo.auth.dto.FolderSummary;
 import com.exemplo.auth.model.CardItem;
 import com.exemplo.auth.model.CollectionFolder;
 import com.exemplo.auth.repository.CardItemRepository;
 import com.exemplo.auth.repository.CollectionFolderRepository;
+import com.exemplo.auth.service.ImageUploadService.StoredImage;
+import com.exemplo.auth.service.OcrService.Latency;
+import com.exemplo.auth.service.OcrService.OcrOptions;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 
 @Service
@@ -24,19 +38,32 @@ public class CollectionService {
     private final CardItemRepository itemRepo;
     private final PokemonDictionary dict; // dicionário existente
     private final OcrService ocr;         // serviço de OCR via Tesseract CLI
+    private final ImageQualityService quality;
+    private final FileReclaimService reclaim;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
 
     public CollectionService(CollectionFolderRepository folderRepo,
                              CardItemRepository itemRepo,
                              PokemonDictionary dict,
-                             OcrService ocr) {
+                             OcrService ocr,
+                             ImageQualityService quality,
+                             FileReclaimService reclaim,
+                             ApplicationEventPublisher events,
+                             PlatformTransactionManager txManager) {
         this.folderRepo = folderRepo;
         this.itemRepo = itemRepo;
         this.dict = dict;
         this.ocr = ocr;
+        this.quality = quality;
+        this.reclaim = reclaim;
+        this.events = events;
+        this.tx = new TransactionTemplate(txManager);
     }
 
     /* ==================== Pastas ==================== */
 
+    @Transactional
     public CollectionFolder createFolder(Long userId, String name) {
         String trimmed = name == null ? "" : name.trim();
         if (trimmed.isEmpty()) {
@@ -52,7 +79,9 @@ public class CollectionService {
         f.setUserId(userId);
         f.setName(trimmed);
         f.setCreatedAt(Instant.now());
-        return folderRepo.save(f);
+        CollectionFolder saved = folderRepo.save(f);
+        events.publishEvent(CollectionChangeEvent.folderUpserted(userId, saved.getId()));
+        return saved;
     }
 
 
@@ -60,26 +89,81 @@ public class CollectionService {
         return folderRepo.findByUserId(userId);
     }
 
+    public List<FolderSummary> folderSummaries(Long userId) {
+        return folderRepo.summarizeByUserId(userId);
+    }
+
+    /* ==================== Busca ==================== */
+
+    /**
+     * Busca por Pokémon ou nome de carta em todas as pastas do usuário.
+     * O texto é expandido para os nomes do dicionário parecidos com ele
+     * (tolerando erros de digitação) e também casado como trecho do nome.
+     */
+    public Page<CardSearchHit> search(Long userId, String query, int page, int size) {
+        String q = query == null ? "" : query.trim();
+        if (q.length() < 2) throw new IllegalArgumentException("query must have at least 2 characters");
+
+        Set<String> names = new LinkedHashSet<>(dict.similarNames(q, 10));
+        names.add(q); // nunca vazio (IN ())
+        String pattern = "%" + q.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        PageRequest pr = PageRequest.of(page, size,
+                Sort.by(Sort.Order.asc("pokemonName"), Sort.Order.desc("createdAt")));
+        Page<CardItem> found = itemRepo.searchByUser(userId, names, pattern, pr);
+
+        // contexto de pasta da página atual numa consulta só
+        Map<Long, String> folderNames = folderRepo.findAllById(
+                        found.getContent().stream().map(CardItem::getFolderId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(CollectionFolder::getId, CollectionFolder::getName));
+
+        return found.map(c -> new CardSearchHit(c.getId(), c.getFolderId(), folderNames.get(c.getFolderId()),
+                c.getCardName(), c.getPokemonName(), c.getSource(), c.getImagePath(), c.getCreatedAt()));
+    }
+
     @Transactional
     public CollectionFolder renameFolder(Long userId, Long folderId, String newName) {
         CollectionFolder f = folderRepo.findByIdAndUserId(folderId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("folder not found"));
         f.setName(newName);
-        return folderRepo.save(f);
+        CollectionFolder saved = folderRepo.save(f);
+        events.publishEvent(CollectionChangeEvent.folderUpserted(userId, saved.getId()));
+        return saved;
     }
 
+    /** Idioma das cartas da pasta para o OCR ("por"/"eng"); null volta a detectar por foto. */
     @Transactional
-    public void deleteFolder(Long userId, Long folderId) {
-        List<CardItem> items = itemRepo.findByFolderIdAndUserId(folderId, userId);
-        itemRepo.deleteAll(items);
+    public CollectionFolder setFolderOcrLanguage(Long userId, Long folderId, String language) {
+        CollectionFolder f = folderRepo.findByIdAndUserId(folderId, userId)
+                .orElseThrow(() -> new IllegalArgumentException("folder not found"));
+        f.setOcrLang(language);
+        CollectionFolder saved = folderRepo.save(f);
+        events.publishEvent(CollectionChangeEvent.folderUpserted(userId, saved.getId()));
+        return saved;
+    }
 
+    @Transactional
+    public void deleteFolder(Long userId, Long folderId) {
         CollectionFolder f = folderRepo.findByIdAndUserId(folderId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("folder not found"));
+
+        // ids + caminhos das imagens numa projeção só, sem carregar as entidades
+        List<CardFileRef> rows = itemRepo.findFileRefsByFolderIdAndUserId(folderId, userId);
+        List<CardRef> removed = rows.stream().map(CardFileRef::ref).toList();
+        List<String> images = rows.stream().map(CardFileRef::imagePath).filter(Objects::nonNull).toList();
+        itemRepo.deleteByFolderIdAndUserId(folderId, userId); // um único DELETE
         folderRepo.delete(f);
+        events.publishEvent(CollectionChangeEvent.folderDeleted(userId, folderId, removed));
+
+        // arquivos vão para a fila; o FileReclaimService confere referências antes de apagar
+        reclaim.enqueue(images);
     }
 
     /* ==================== Cartas ==================== */
 
+    @Transactional
     public CardItem addManual(Long userId, Long folderId, String cardName) {
         CollectionFolder f = folderRepo.findByIdAndUserId(folderId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("folder not found"));
@@ -91,20 +175,32 @@ public class CollectionService {
         item.setPokemonName(dict.bestMatch(cardName).orElse(cardName));
         item.setSource("manual");
         item.setCreatedAt(Instant.now());
-        return itemRepo.save(item);
+        return published(itemRepo.save(item));
     }
 
     /**
-     * Usa OCR para extrair o nome da carta a partir da imagem e salva o item.
+     * Usa OCR para extrair o nome da carta a partir da imagem (já no store) e salva o item.
+     * O idioma vem do pedido, da pasta ou do nome do arquivo, nessa ordem; sem
+     * nenhum, o OcrService detecta numa passada rápida.
+     * Só a gravação roda em transação, para não segurar conexão durante o OCR.
      */
-    public CardItem scanAndAdd(Long userId, Long folderId, File tempImage, Path storageBase) throws Exception {
+    public CardItem scanAndAdd(Long userId, Long folderId, StoredImage image,
+                               String language, Latency latency) throws Exception {
         var f = folderRepo.findByIdAndUserId(folderId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("folder not found"));
 
+        // 0) foto sem chance (tremida, escura, estourada) volta antes de gastar OCR
+        quality.requireUsable(image.file());
+        File imageFile = image.file().toFile();
+        String hint = language != null ? language
+                : f.getOcrLang() != null ? f.getOcrLang()
+                : OcrService.languageFromFileName(image.originalName());
+        OcrOptions opts = ocr.options(imageFile, hint, latency);
+
         // 1) OCR focado no título
         String candidate = null;
         try {
-            String ocrName = ocr.extractCardName(tempImage);
+            String ocrName = ocr.extractCardName(imageFile, opts);
             if (ocrName != null) {
                 ocrName = ocrName.trim();
                 if (!ocrName.isBlank()) candidate = ocrName;
@@ -116,7 +212,7 @@ public class CollectionService {
         // 2) Fallback: OCR completo + heurística
         if (candidate == null || candidate.isBlank()) {
             try {
-                String raw = ocr.extractText(tempImage);
+                String raw = ocr.extractText(imageFile, opts);
                 if (raw != null) {
                     String g = guessCardName(raw);
                     if (g != null && !g.isBlank()) candidate = g.trim();
@@ -125,8 +221,8 @@ public class CollectionService {
         }
 
         // 3) Fallback extra: tentar deduzir pelo nome do arquivo
-        if ((candidate == null || candidate.isBlank()) && tempImage.getName() != null) {
-            String fname = tempImage.getName()
+        if ((candidate == null || candidate.isBlank()) && image.originalName() != null) {
+            String fname = image.originalName()
                     .replace('_', ' ')
                     .replace('-', ' ')
                     .replaceAll("(?i)\\.(png|jpe?g|webp|bmp)$", " ")
@@ -165,61 +261,39 @@ public class CollectionService {
             }
         }
 
-        // 5) Salva a imagem no storage do usuário, garantindo nome único
-        Files.createDirectories(storageBase);
-        String baseName = tempImage.getName();
-        String ext = baseName.contains(".") ? baseName.substring(baseName.lastIndexOf('.')) : ".png";
-        String safeName = "card_" + System.currentTimeMillis() + "_" + Math.abs(baseName.hashCode()) + ext;
-        Path target = storageBase.resolve(safeName);
-        Files.move(tempImage.toPath(), target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-
-        // *** IMPORTANTE: gera URL pública a partir do caminho físico ***
-        String publicUrl = toPublicImageUrl(target);
-
-        // 6) Persiste
+        // 5) Persiste (a imagem já está no store por conteúdo)
         CardItem item = new CardItem();
         item.setFolderId(f.getId());
         item.setUserId(userId);
         item.setCardName((candidate == null || candidate.isBlank()) ? normalized : candidate);
         item.setPokemonName(normalized);
         item.setSource("ocr");
-        item.setImagePath(publicUrl);  // <--- agora é URL /files/...
+        item.setImagePath(image.url());  // URL /files/blobs/...
         item.setCreatedAt(Instant.now());
 
-        return itemRepo.save(item);
+        // save + entrada no log de sync na mesma transação
+        return tx.execute(s -> published(itemRepo.save(item)));
     }
 
     /**
-     * Adiciona manualmente com imagem opcional (se tempImage != null).
+     * Adiciona manualmente com imagem opcional (se image != null).
      */
-    public CardItem addWithOptionalImage(Long userId, Long folderId, String cardName, File tempImage, Path storageBase) throws Exception {
+    @Transactional
+    public CardItem addWithOptionalImage(Long userId, Long folderId, String cardName, StoredImage image) {
         CollectionFolder f = folderRepo.findByIdAndUserId(folderId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("folder not found"));
 
-        String imagePath = null;
-        if (tempImage != null) {
-            Files.createDirectories(storageBase);
-
-            String baseName = tempImage.getName();
-            String ext = baseName.contains(".") ? baseName.substring(baseName.lastIndexOf('.')) : ".png";
-            String safeName = "card_" + System.currentTimeMillis() + "_" + Math.abs(baseName.hashCode()) + ext;
-
-            Path target = storageBase.resolve(safeName);
-            Files.move(tempImage.toPath(), target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-
-            // URL pública
-            imagePath = toPublicImageUrl(target);
-        }
+        String imagePath = image != null ? image.url() : null;
 
         CardItem item = new CardItem();
         item.setFolderId(f.getId());
         item.setUserId(userId);
         item.setCardName(cardName);
         item.setPokemonName(dict.bestMatch(cardName).orElse(cardName));
-        item.setSource(tempImage != null ? "manual+image" : "manual");
+        item.setSource(image != null ? "manual+image" : "manual");
         item.setImagePath(imagePath); // pode ser null se não tiver imagem
         item.setCreatedAt(Instant.now());
-        return itemRepo.save(item);
+        return published(itemRepo.save(item));
     }
 
     @Transactional
@@ -230,6 +304,10 @@ public class CollectionService {
             throw new IllegalArgumentException("card not found");
         }
         itemRepo.deleteById(cardId);
+        events.publishEvent(CollectionChangeEvent.removed(userId, List.of(CollectionChangeEvent.ref(it))));
+
+        // mesma fila do deleteFolder: o arquivo só sai se ninguém mais o referenciar
+        if (it.getImagePath() != null) reclaim.enqueue(List.of(it.getImagePath()));
     }
 
    
@@ -247,29 +325,16 @@ public CardItem renameCard(Long userId, Long cardId, String newName) {
     // Edição manual: usa EXATAMENTE o que o usuário digitou
     it.setPokemonName(newName.trim());
 
-    return itemRepo.save(it);
+    return published(itemRepo.save(it));
 }
 
 
     /* ==================== Helpers ==================== */
 
-    // Converte caminho físico tipo:
-    //   .../backend/auth/data/users/1/images/card_123.png
-    // em URL pública:
-    //   /files/users/1/images/card_123.png
-    private String toPublicImageUrl(Path target) {
-        Path dataRoot = Paths.get("data").toAbsolutePath().normalize();
-        Path absoluteTarget = target.toAbsolutePath().normalize();
-
-        try {
-            Path relative = dataRoot.relativize(absoluteTarget);
-            String rel = relative.toString().replace(File.separatorChar, '/');
-            return "/files/" + rel;
-        } catch (IllegalArgumentException e) {
-            // fallback se não estiver dentro de "data"
-            String abs = absoluteTarget.toString().replace(File.separatorChar, '/');
-            return "/files/" + abs;
-        }
+    /** Avisa os índices da coleção (estatísticas, valor, trocas) sobre a carta gravada. */
+    private CardItem published(CardItem saved) {
+        events.publishEvent(CollectionChangeEvent.upserted(saved.getUserId(), List.of(saved)));
+        return saved;
     }
 
     // Fallback baseado em OCR "bruto"
@@ -0,0 +1,227 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.dto.CardRef;
+import com.exemplo.auth.dto.CompletionStats;
+import com.exemplo.auth.repository.CardItemRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cobertura da Pokédex por usuário: quantos nomes distintos do dicionário ele
+ * tem, quais faltam e quantas repetidas há em cada pasta.
+ *
+ * O estado de cada usuário é carregado do banco uma vez (projeção enxuta) e
+ * depois mantido pelos {@link CollectionChangeEvent}; a leitura devolve um
+ * snapshot pronto. O conjunto de nomes possuídos é um RoaringBitmap sobre os
+ * ids do {@link PokemonDictionary}, reaproveitado pelo valor e pelas trocas.
+ * Um job periódico recalcula os usuários em memória e corrige divergências.
+ */
+@Service
+public class CollectionStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(CollectionStatsService.class);
+
+    /** Usuários sem acesso há mais que isso saem da memória (recarregam sob demanda). */
+    private static final Duration IDLE = Duration.ofHours(2);
+
+    private final CardItemRepository cards;
+    private final PokemonDictionary dict;
+
+    private final Map<Long, UserState> states = new ConcurrentHashMap<>();
+
+    public CollectionStatsService(CardItemRepository cards, PokemonDictionary dict) {
+        this.cards = cards;
+        this.dict = dict;
+    }
+
+    /* ===================== leitura ===================== */
+
+    public CompletionStats stats(Long userId) {
+        return state(userId).snapshot;
+    }
+
+    /** Nomes do dicionário que o usuário ainda não tem, em ordem do dicionário. */
+    public List<String> missing(Long userId, int page, int size) {
+        RoaringBitmap missing = missingIds(userId);
+        List<String> out = new ArrayList<>(size);
+        int skip = page * size;
+        for (int id : missing) {
+            if (skip-- > 0) continue;
+            out.add(dict.nameOf(id));
+            if (out.size() == size) break;
+        }
+        return out;
+    }
+
+    /** Cópia dos ids possuídos (nomes distintos). */
+    public RoaringBitmap ownedIds(Long userId) {
+        UserState s = state(userId);
+        synchronized (s) {
+            return s.owned.clone();
+        }
+    }
+
+    /** Cópia dos ids com mais de uma cópia na coleção. */
+    public RoaringBitmap duplicateIds(Long userId) {
+        UserState s = state(userId);
+        synchronized (s) {
+            return s.duplicates.clone();
+        }
+    }
+
+    public RoaringBitmap missingIds(Long userId) {
+        RoaringBitmap owned = ownedIds(userId);
+        return RoaringBitmap.flip(owned, 0L, (long) dict.size());
+    }
+
+    /* ===================== manutenção incremental ===================== */
+
+    // fallbackExecution: um publicador fora de transação ainda atualiza (os do
+    // CollectionService rodam todos em transação); primeiro da fila para que as trocas (TradeMatchService) recalculem com os bitmaps novos
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCollectionChange(CollectionChangeEvent e) {
+        // computeIfPresent espera um load em andamento do mesmo usuário; se não há estado,
+        // o próximo load já lê o banco com a mudança
+        states.computeIfPresent(e.userId(), (userId, s) -> {
+            s.version++; // dentro do lock do mapa: o verify só troca o estado se isto não mudou
+            synchronized (s) {
+                for (CardRef r : e.removed()) s.remove(r.id());
+                for (CardRef r : e.upserted()) s.put(r, dict.idOf(r.pokemonName()));
+                if (e.deletedFolderId() != null) s.byFolder.remove(e.deletedFolderId());
+                s.refreshSnapshot(dict.size());
+            }
+            return s;
+        });
+    }
+
+    /** Recalcula do banco os usuários em memória; corrige e registra divergências. */
+    @Scheduled(fixedDelayString = "${app.collection.stats.verify-ms:600000}",
+               initialDelayString = "${app.collection.stats.verify-ms:600000}")
+    public void verify() {
+        Instant idleCutoff = Instant.now().minus(IDLE);
+        int fixed = 0;
+        for (Map.Entry<Long, UserState> entry : states.entrySet()) {
+            Long userId = entry.getKey();
+            UserState current = entry.getValue();
+            if (current.lastAccess.isBefore(idleCutoff)) {
+                states.remove(userId, current);
+                continue;
+            }
+
+            // o load roda sem lock; um evento que chegue no meio já foi aplicado em
+            // current e se perderia com a troca, então só troca se a versão não mudou
+            long seen = current.version;
+            UserState fresh = load(userId);
+            boolean same;
+            synchronized (current) {
+                same = current.placements.equals(fresh.placements);
+            }
+            if (!same) {
+                fresh.lastAccess = current.lastAccess;
+                boolean[] replaced = {false};
+                states.computeIfPresent(userId, (id, s) -> {
+                    if (s != current || s.version != seen) return s; // mudou: fica para a próxima rodada
+                    replaced[0] = true;
+                    return fresh;
+                });
+                if (replaced[0]) fixed++;
+            }
+        }
+        if (fixed > 0) log.warn("Estatísticas de coleção corrigidas pela verificação: {} usuário(s)", fixed);
+    }
+
+    /* ===================== estado ===================== */
+
+    private UserState state(Long userId) {
+        UserState s = states.computeIfAbsent(userId, this::load);
+        s.lastAccess = Instant.now();
+        return s;
+    }
+
+    private UserState load(Long userId) {
+        UserState s = new UserState();
+        for (CardRef r : cards.findRefsByUserId(userId)) s.put(r, dict.idOf(r.pokemonName()));
+        s.refreshSnapshot(dict.size());
+        return s;
+    }
+
+    /** Onde cada carta está e qual id do dicionário ela conta (-1 = fora do dicionário). */
+    private record Placement(Long folderId, int dictId) {}
+
+    private static final class UserState {
+        final Map<Long, Placement> placements = new HashMap<>();
+        final Map<Integer, Integer> counts = new HashMap<>();
+        final Map<Long, Map<Integer, Integer>> byFolder = new HashMap<>();
+        final RoaringBitmap owned = new RoaringBitmap();
+        final RoaringBitmap duplicates = new RoaringBitmap();
+        int unmatched;
+
+        volatile CompletionStats snapshot;
+        volatile Instant lastAccess = Instant.now();
+        /** Eventos aplicados; só muda dentro do computeIfPresent de {@code states}. */
+        volatile long version;
+
+        void put(CardRef r, int dictId) {
+            remove(r.id()); // rename = sai o nome antigo, entra o novo
+            placements.put(r.id(), new Placement(r.folderId(), dictId));
+            if (dictId < 0) {
+                unmatched++;
+                return;
+            }
+            int total = counts.merge(dictId, 1, Integer::sum);
+            owned.add(dictId);
+            if (total > 1) duplicates.add(dictId);
+            byFolder.computeIfAbsent(r.folderId(), f -> new HashMap<>()).merge(dictId, 1, Integer::sum);
+        }
+
+        void remove(Long cardId) {
+            Placement p = placements.remove(cardId);
+            if (p == null) return;
+            if (p.dictId() < 0) {
+                unmatched--;
+                return;
+            }
+            int total = counts.merge(p.dictId(), -1, Integer::sum);
+            if (total <= 0) {
+                counts.remove(p.dictId());
+                owned.remove(p.dictId());
+            }
+            if (total <= 1) duplicates.remove(p.dictId());
+
+            Map<Integer, Integer> folder = byFolder.get(p.folderId());
+            if (folder != null && folder.merge(p.dictId(), -1, Integer::sum) <= 0) {
+                folder.remove(p.dictId());
+                if (folder.isEmpty()) byFolder.remove(p.folderId());
+            }
+        }
+
+        void refreshSnapshot(int dictionarySize) {
+            Map<Long, Integer> dupByFolder = new HashMap<>();
+            byFolder.forEach((folderId, c) -> {
+                int extra = 0;
+                for (int n : c.values()) extra += n - 1;
+                if (extra > 0) dupByFolder.put(folderId, extra);
+            });
+            int distinct = owned.getCardinality();
+            double pct = dictionarySize == 0 ? 0.0 : Math.round(distinct * 10000.0 / dictionarySize) / 100.0;
+            snapshot = new CompletionStats(distinct, dictionarySize, pct,
+                    placements.size(), unmatched, duplicates.getCardinality(), Map.copyOf(dupByFolder));
+        }
+    }
+}
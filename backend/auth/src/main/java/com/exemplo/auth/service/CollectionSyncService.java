@@ -0,0 +1,143 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.dto.CardRef;
+import com.exemplo.auth.dto.CollectionDelta;
+import com.exemplo.auth.model.CollectionChange;
+import com.exemplo.auth.model.CollectionChange.Kind;
+import com.exemplo.auth.repository.CardItemRepository;
+import com.exemplo.auth.repository.CollectionChangeRepository;
+import com.exemplo.auth.repository.CollectionFolderRepository;
+import com.exemplo.auth.repository.CollectionVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sincronização incremental da coleção ("o que mudou desde a versão N").
+ *
+ * Cada {@link CollectionChangeEvent} incrementa a versão do usuário e grava
+ * uma linha por carta/pasta afetada no log, na mesma transação da mudança
+ * (listener síncrono). O sync lê só o log depois de N, colapsa por entidade
+ * e carrega as linhas ainda existentes. Se o log não cobre N+1 em diante
+ * (cliente novo ou log já podado), devolve a coleção inteira.
+ */
+@Service
+public class CollectionSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(CollectionSyncService.class);
+
+    private final CollectionChangeRepository changes;
+    private final CollectionVersionRepository versions;
+    private final CollectionFolderRepository folders;
+    private final CardItemRepository cards;
+
+    @Value("${app.collection.sync.retention-days:30}")
+    private int retentionDays;
+
+    public CollectionSyncService(CollectionChangeRepository changes,
+                                 CollectionVersionRepository versions,
+                                 CollectionFolderRepository folders,
+                                 CardItemRepository cards) {
+        this.changes = changes;
+        this.versions = versions;
+        this.folders = folders;
+        this.cards = cards;
+    }
+
+    /* ===================== escrita (mesma transação da mudança) ===================== */
+
+    @EventListener
+    @Transactional
+    public void onCollectionChange(CollectionChangeEvent e) {
+        versions.ensureRow(e.userId());
+        versions.increment(e.userId());
+        long version = versions.currentVersion(e.userId());
+        Instant now = Instant.now();
+
+        List<CollectionChange> entries = new ArrayList<>();
+        for (CardRef r : e.upserted()) entries.add(entry(e.userId(), version, Kind.CARD, r.id(), false, now));
+        for (CardRef r : e.removed()) entries.add(entry(e.userId(), version, Kind.CARD, r.id(), true, now));
+        if (e.upsertedFolderId() != null) {
+            entries.add(entry(e.userId(), version, Kind.FOLDER, e.upsertedFolderId(), false, now));
+        }
+        if (e.deletedFolderId() != null) {
+            entries.add(entry(e.userId(), version, Kind.FOLDER, e.deletedFolderId(), true, now));
+        }
+        changes.saveAll(entries);
+    }
+
+    /* ===================== leitura ===================== */
+
+    @Transactional(readOnly = true)
+    public CollectionDelta since(Long userId, long since) {
+        Long current = versions.currentVersion(userId);
+        long version = current == null ? 0 : current;
+
+        if (since > 0 && since == version) {
+            return new CollectionDelta(version, false, List.of(), List.of(), List.of(), List.of());
+        }
+
+        Long first = since <= 0 || since > version ? null : changes.minVersionAfter(userId, since);
+        if (first == null || first != since + 1) {
+            return new CollectionDelta(version, true,
+                    folders.findByUserId(userId), cards.findByUserIdOrderByIdAsc(userId), List.of(), List.of());
+        }
+
+        // a última operação de cada entidade vence
+        Map<Long, Boolean> folderDeleted = new LinkedHashMap<>();
+        Map<Long, Boolean> cardDeleted = new LinkedHashMap<>();
+        long upTo = since;
+        for (CollectionChange c : changes.findByUserIdAndVersionGreaterThanOrderByVersionAsc(userId, since)) {
+            Map<Long, Boolean> target = c.getKind() == Kind.FOLDER ? folderDeleted : cardDeleted;
+            target.remove(c.getEntityId());
+            target.put(c.getEntityId(), c.isDeleted());
+            upTo = Math.max(upTo, c.getVersion());
+        }
+
+        List<Long> upFolders = keys(folderDeleted, false);
+        List<Long> upCards = keys(cardDeleted, false);
+        return new CollectionDelta(upTo, false,
+                upFolders.isEmpty() ? List.of() : folders.findByUserIdAndIdIn(userId, upFolders),
+                upCards.isEmpty() ? List.of() : cards.findByUserIdAndIdIn(userId, upCards),
+                keys(folderDeleted, true),
+                keys(cardDeleted, true));
+    }
+
+    /** Poda o log; clientes mais antigos que isso recebem a coleção inteira. */
+    @Scheduled(cron = "${app.collection.sync.prune-cron:0 0 4 * * *}")
+    @Transactional
+    public void prune() {
+        int removed = changes.deleteOlderThan(Instant.now().minus(Duration.ofDays(retentionDays)));
+        if (removed > 0) log.info("Log de sync da coleção: {} entradas podadas", removed);
+    }
+
+    /* ===================== helpers ===================== */
+
+    private static CollectionChange entry(Long userId, long version, Kind kind, Long entityId, boolean deleted, Instant at) {
+        CollectionChange c = new CollectionChange();
+        c.setUserId(userId);
+        c.setVersion(version);
+        c.setKind(kind);
+        c.setEntityId(entityId);
+        c.setDeleted(deleted);
+        c.setAt(at);
+        return c;
+    }
+
+    private static List<Long> keys(Map<Long, Boolean> deletedById, boolean deleted) {
+        List<Long> out = new ArrayList<>();
+        deletedById.forEach((id, d) -> { if (d == deleted) out.add(id); });
+        return out;
+    }
+}
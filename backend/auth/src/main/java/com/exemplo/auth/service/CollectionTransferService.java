@@ -0,0 +1,340 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.CardItem;
+import com.exemplo.auth.model.CollectionFolder;
+import com.exemplo.auth.repository.CardItemRepository;
+import com.exemplo.auth.repository.CollectionFolderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportação/importação da coleção inteira em streaming.
+ *
+ * A exportação lê as cartas por cursor (Stream + fetch size) e escreve linha
+ * a linha na resposta, desanexando cada entidade do contexto JPA — a memória
+ * não cresce com o tamanho da coleção. A importação lê o corpo linha a linha
+ * e grava em lotes.
+ */
+@Service
+public class CollectionTransferService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final int IMPORT_BATCH = 500;
+    private static final String CSV_HEADER = "folder,cardName,pokemonName,source,imagePath,createdAt";
+
+    private final CollectionFolderRepository folderRepo;
+    private final CardItemRepository itemRepo;
+    private final PokemonDictionary dict;
+    private final ObjectMapper json;
+    private final ApplicationEventPublisher events;
+    private final BlobStore blobs;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public CollectionTransferService(CollectionFolderRepository folderRepo,
+                                     CardItemRepository itemRepo,
+                                     PokemonDictionary dict,
+                                     ObjectMapper json,
+                                     ApplicationEventPublisher events,
+                                     BlobStore blobs) {
+        this.folderRepo = folderRepo;
+        this.itemRepo = itemRepo;
+        this.dict = dict;
+        this.json = json;
+        this.events = events;
+        this.blobs = blobs;
+    }
+
+    /* ==================== exportação ==================== */
+
+    /** Escreve pastas e cartas no formato pedido. Roda dentro da thread do StreamingResponseBody. */
+    @Transactional(readOnly = true)
+    public void export(Long userId, Format format, OutputStream out) throws IOException {
+        writeCards(userId, format, out, null);
+        out.flush();
+    }
+
+    /**
+     * ZIP com cards.ndjson + as imagens referenciadas (images/...).
+     * Imagens já são comprimidas (png/jpg), então entram sem deflate e
+     * são copiadas direto do arquivo para o stream.
+     */
+    @Transactional(readOnly = true)
+    public void exportZip(Long userId, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+
+        Set<String> images = new LinkedHashSet<>();
+        zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(new ZipEntry("cards.ndjson"));
+        writeCards(userId, Format.NDJSON, zip, images);
+        zip.closeEntry();
+
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        for (String rel : images) {
+            Path file = blobs.fileFor(StoragePaths.PUBLIC_PREFIX + rel).orElse(null);
+            if (file == null) continue;
+            zip.putNextEntry(new ZipEntry("images/" + rel));
+            Files.copy(file, zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeCards(Long userId, Format format, OutputStream out, Set<String> imagesOut) throws IOException {
+        Map<Long, String> folderNames = new HashMap<>();
+        List<CollectionFolder> folders = folderRepo.findByUserId(userId);
+
+        if (format == Format.CSV) {
+            out.write((CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        for (CollectionFolder f : folders) {
+            folderNames.put(f.getId(), f.getName());
+            if (format == Format.NDJSON) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("type", "folder");
+                line.put("name", f.getName());
+                line.put("createdAt", f.getCreatedAt());
+                writeJsonLine(out, line);
+            }
+        }
+
+        try (Stream<CardItem> cards = itemRepo.streamByUserId(userId)) {
+            var it = cards.iterator();
+            while (it.hasNext()) {
+                CardItem c = it.next();
+                String folder = folderNames.get(c.getFolderId());
+                String image = StoragePaths.relative(c.getImagePath())
+                        .map(rel -> StoragePaths.PUBLIC_PREFIX + rel)
+                        .orElse(null);
+                if (imagesOut != null && image != null) {
+                    imagesOut.add(image.substring(StoragePaths.PUBLIC_PREFIX.length()));
+                }
+
+                if (format == Format.NDJSON) {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("type", "card");
+                    line.put("folder", folder);
+                    line.put("cardName", c.getCardName());
+                    line.put("pokemonName", c.getPokemonName());
+                    line.put("source", c.getSource());
+                    line.put("imagePath", image);
+                    line.put("createdAt", c.getCreatedAt());
+                    writeJsonLine(out, line);
+                } else {
+                    String row = String.join(",",
+                            csv(folder), csv(c.getCardName()), csv(c.getPokemonName()),
+                            csv(c.getSource()), csv(image),
+                            csv(c.getCreatedAt() == null ? null : c.getCreatedAt().toString()));
+                    out.write((row + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                em.detach(c); // mantém o contexto de persistência vazio durante o cursor
+            }
+        }
+    }
+
+    private void writeJsonLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(json.writeValueAsBytes(line));
+        out.write('\n');
+    }
+
+    private static String csv(String v) {
+        if (v == null) return "";
+        String s = v.replace("\r", " ").replace("\n", " ");
+        if (s.contains(",") || s.contains("\"")) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+
+    /* ==================== importação ==================== */
+
+    /**
+     * Importa NDJSON (linhas "folder"/"card") ou CSV no formato da exportação.
+     * Pastas são casadas por nome (criadas se faltarem); cartas vão em lotes.
+     * imagePath só é mantido se for um blob que existe no store (o nome é o
+     * hash do conteúdo, então só quem tinha a imagem chega nele) ou um
+     * arquivo antigo do próprio usuário.
+     */
+    @Transactional
+    public Map<String, Integer> importCards(Long userId, Format format, InputStream body) throws IOException {
+        Map<String, Long> folderIds = new HashMap<>();
+        for (CollectionFolder f : folderRepo.findByUserId(userId)) folderIds.put(f.getName(), f.getId());
+        int foldersCreated = 0;
+        int cardsImported = 0;
+        int skipped = 0;
+
+        List<CardItem> batch = new ArrayList<>(IMPORT_BATCH);
+        BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Path ownDir = StoragePaths.dataRoot().resolve("users").resolve(String.valueOf(userId));
+        Map<String, Boolean> blobExists = new HashMap<>(); // a mesma foto se repete entre cartas
+
+        String lineText;
+        boolean first = true;
+        while ((lineText = in.readLine()) != null) {
+            if (lineText.isBlank()) continue;
+            if (first && format == Format.CSV && lineText.startsWith("folder,")) { first = false; continue; }
+            first = false;
+
+            Map<String, String> row = format == Format.NDJSON ? parseJsonLine(lineText) : parseCsvLine(lineText);
+            if (row == null) { skipped++; continue; }
+
+            String type = row.getOrDefault("type", "card");
+            String folderName = trimToNull("folder".equals(type) ? row.get("name") : row.get("folder"));
+            if (folderName == null) { skipped++; continue; }
+
+            Long folderId = folderIds.get(folderName);
+            if (folderId == null) {
+                CollectionFolder f = new CollectionFolder();
+                f.setUserId(userId);
+                f.setName(folderName);
+                f.setCreatedAt(Instant.now());
+                folderId = folderRepo.save(f).getId();
+                folderIds.put(folderName, folderId);
+                events.publishEvent(CollectionChangeEvent.folderUpserted(userId, folderId));
+                foldersCreated++;
+            }
+            if ("folder".equals(type)) continue;
+
+            String cardName = trimToNull(row.get("cardName"));
+            if (cardName == null) { skipped++; continue; }
+            String pokemonName = trimToNull(row.get("pokemonName"));
+            String imagePath = trimToNull(row.get("imagePath"));
+
+            CardItem item = new CardItem();
+            item.setFolderId(folderId);
+            item.setUserId(userId);
+            item.setCardName(cardName);
+            item.setPokemonName(pokemonName != null ? pokemonName : dict.bestMatch(cardName).orElse(cardName));
+            item.setSource("import");
+            item.setImagePath(importedImage(imagePath, ownDir, blobExists));
+            item.setCreatedAt(parseInstant(row.get("createdAt")));
+            batch.add(item);
+
+            if (batch.size() >= IMPORT_BATCH) {
+                cardsImported += flush(userId, batch);
+            }
+        }
+        cardsImported += flush(userId, batch);
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put("foldersCreated", foldersCreated);
+        result.put("cardsImported", cardsImported);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    /**
+     * URL normalizada a gravar, ou null. O caminho é resolvido antes de
+     * qualquer comparação: "users/7/../8/..." não pode passar por arquivo do
+     * usuário 7 (a carta apontaria para o arquivo de outro, que o reclaim
+     * apagaria quando ela fosse removida).
+     */
+    private String importedImage(String imagePath, Path ownDir, Map<String, Boolean> blobExists)
+            throws IOException {
+        imagePath = StoragePaths.publicUrl(imagePath); // null se tiver ".." ou sair de data/
+        if (imagePath == null) return null;
+        if (BlobStore.isBlobUrl(imagePath)) {
+            Boolean ok = blobExists.get(imagePath);
+            if (ok == null) {
+                ok = blobs.exists(imagePath);
+                blobExists.put(imagePath, ok);
+            }
+            return ok ? imagePath : null;
+        }
+        return StoragePaths.toFile(imagePath).filter(f -> f.startsWith(ownDir)).isPresent() ? imagePath : null;
+    }
+
+    private int flush(Long userId, List<CardItem> batch) {
+        if (batch.isEmpty()) return 0;
+        int n = batch.size();
+        itemRepo.saveAll(batch);
+        events.publishEvent(CollectionChangeEvent.upserted(userId, List.copyOf(batch)));
+        em.flush();
+        em.clear();
+        batch.clear();
+        return n;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> parseJsonLine(String line) {
+        try {
+            Map<String, Object> raw = json.readValue(line, Map.class);
+            Map<String, String> out = new HashMap<>();
+            raw.forEach((k, v) -> out.put(k, v == null ? null : v.toString()));
+            return out;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> parseCsvLine(String line) {
+        String[] cols = CSV_HEADER.split(",");
+        List<String> values = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                else if (ch == '"') quoted = false;
+                else cur.append(ch);
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                values.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(ch);
+            }
+        }
+        values.add(cur.toString());
+        if (values.size() != cols.length) return null;
+
+        Map<String, String> out = new HashMap<>();
+        for (int i = 0; i < cols.length; i++) out.put(cols[i], values.get(i));
+        out.put("type", "card");
+        return out;
+    }
+
+    private static Instant parseInstant(String s) {
+        try {
+            return s == null || s.isBlank() ? Instant.now() : Instant.parse(s.trim());
+        } catch (RuntimeException e) {
+            return Instant.now();
+        }
+    }
+
+    private static String trimToNull(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+}
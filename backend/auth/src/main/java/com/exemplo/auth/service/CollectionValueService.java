@@ -0,0 +1,263 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.dto.CardRef;
+import com.exemplo.auth.dto.CollectionValue;
+import com.exemplo.auth.repository.CardItemRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Valor estimado das coleções, pelo preço de referência do mercado
+ * ({@link MarketStatsService#referencePrice}).
+ *
+ * Por usuário guarda quantas cartas de cada Pokémon há em cada pasta e os
+ * totais já somados. Adicionar/remover carta soma/subtrai um preço; quando o
+ * preço de um Pokémon muda (venda, janela, rebuild), só os usuários que têm
+ * esse Pokémon são ajustados pela diferença. Nenhuma leitura agrega nada.
+ *
+ * Mudanças de preço pegam o write lock; mudanças de carta, o read lock (cada
+ * usuário ainda sincroniza no próprio estado), então uma carta nunca é somada
+ * com um preço e descontada com outro.
+ *
+ * Usuário sem leitura há {@link #IDLE} sai da memória (e dos holders); o
+ * preço de um Pokémon que ninguém em memória tem sai junto.
+ */
+@Service
+public class CollectionValueService {
+
+    private static final Duration IDLE = Duration.ofHours(2);
+
+    private final CardItemRepository cards;
+    private final MarketStatsService market;
+
+    private final Map<Long, UserValue> states = new ConcurrentHashMap<>();
+    /** pokemonKey → usuários em memória que têm ao menos uma carta dele. */
+    private final Map<String, Set<Long>> holders = new ConcurrentHashMap<>();
+    /** pokemonKey → preço de referência em uso (vazio = sem vendas). */
+    private final Map<String, Optional<BigDecimal>> prices = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock priceLock = new ReentrantReadWriteLock();
+
+    public CollectionValueService(CardItemRepository cards, MarketStatsService market) {
+        this.cards = cards;
+        this.market = market;
+    }
+
+    /* ===================== leitura ===================== */
+
+    public CollectionValue valueOf(Long userId) {
+        UserValue v = state(userId);
+        synchronized (v) {
+            return new CollectionValue(v.total, v.priced, v.unpriced, Map.copyOf(v.folderTotals));
+        }
+    }
+
+    /** Valor de uma pasta (zero se vazia ou sem preços). */
+    public BigDecimal folderValue(Long userId, Long folderId) {
+        UserValue v = state(userId);
+        synchronized (v) {
+            return v.folderTotals.getOrDefault(folderId, BigDecimal.ZERO);
+        }
+    }
+
+    /* ===================== cartas ===================== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCollectionChange(CollectionChangeEvent e) {
+        priceLock.readLock().lock();
+        try {
+            states.computeIfPresent(e.userId(), (userId, v) -> {
+                synchronized (v) {
+                    for (CardRef r : e.removed()) remove(userId, v, r.id());
+                    for (CardRef r : e.upserted()) put(userId, v, r);
+                }
+                return v;
+            });
+        } finally {
+            priceLock.readLock().unlock();
+        }
+    }
+
+    /* ===================== preços ===================== */
+
+    @EventListener
+    public void onReferencePrice(ReferencePriceEvent e) {
+        priceLock.writeLock().lock();
+        try {
+            Set<String> keys = e.all() ? Set.copyOf(prices.keySet()) : e.keys();
+            for (String key : keys) {
+                Optional<BigDecimal> before = prices.get(key);
+                if (before == null) continue; // ninguém em memória usa esse preço
+
+                Optional<BigDecimal> after = market.referencePrice(key);
+                if (after.equals(before)) continue;
+                prices.put(key, after);
+
+                for (Long userId : holders.getOrDefault(key, Set.of())) {
+                    UserValue v = states.get(userId);
+                    if (v == null) continue;
+                    synchronized (v) {
+                        v.reprice(key, before.orElse(null), after.orElse(null));
+                    }
+                }
+            }
+        } finally {
+            priceLock.writeLock().unlock();
+        }
+    }
+
+    /* ===================== estado ===================== */
+
+    /** Tira da memória quem não é lido há {@link #IDLE}, com os holders e preços que só ele usava. */
+    @Scheduled(fixedDelayString = "${app.collection.value.evict-ms:600000}",
+               initialDelayString = "${app.collection.value.evict-ms:600000}")
+    public void evictIdle() {
+        Instant idleCutoff = Instant.now().minus(IDLE);
+        // write lock: nenhum put/reprice no meio; holders e prices mudam juntos
+        priceLock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, UserValue> entry : states.entrySet()) {
+                Long userId = entry.getKey();
+                UserValue v = entry.getValue();
+                if (!v.lastAccess.isBefore(idleCutoff) || !states.remove(userId, v)) continue;
+                synchronized (v) {
+                    for (String key : v.countsByKey.keySet()) {
+                        holders.computeIfPresent(key, (k, users) -> {
+                            users.remove(userId);
+                            return users.isEmpty() ? null : users;
+                        });
+                    }
+                }
+            }
+            prices.keySet().removeIf(key -> !holders.containsKey(key));
+        } finally {
+            priceLock.writeLock().unlock();
+        }
+    }
+
+    private UserValue state(Long userId) {
+        UserValue existing = states.get(userId);
+        if (existing != null) {
+            existing.lastAccess = Instant.now();
+            return existing;
+        }
+
+        priceLock.readLock().lock();
+        try {
+            UserValue v = states.computeIfAbsent(userId, id -> {
+                UserValue loaded = new UserValue();
+                for (CardRef r : cards.findRefsByUserId(id)) put(id, loaded, r);
+                return loaded;
+            });
+            v.lastAccess = Instant.now();
+            return v;
+        } finally {
+            priceLock.readLock().unlock();
+        }
+    }
+
+    private void put(Long userId, UserValue v, CardRef r) {
+        remove(userId, v, r.id()); // rename: sai o Pokémon antigo
+        String key = MarketStatsService.key(r.pokemonName());
+        BigDecimal price = price(key);
+        v.add(r.id(), r.folderId(), key, price);
+        holders.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+
+    private void remove(Long userId, UserValue v, Long cardId) {
+        String key = v.remove(cardId, this::price);
+        if (key != null && !v.countsByKey.containsKey(key)) {
+            holders.computeIfPresent(key, (k, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    private BigDecimal price(String key) {
+        return prices.computeIfAbsent(key, market::referencePrice).orElse(null);
+    }
+
+    private record Placement(Long folderId, String key) {}
+
+    private static final class UserValue {
+        final Map<Long, Placement> placements = new HashMap<>();
+        final Map<String, Map<Long, Integer>> countsByKey = new HashMap<>();
+        final Map<Long, BigDecimal> folderTotals = new HashMap<>();
+        final Map<Long, Integer> folderCards = new HashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        int priced;
+        int unpriced;
+        volatile Instant lastAccess = Instant.now();
+
+        void add(Long cardId, Long folderId, String key, BigDecimal price) {
+            placements.put(cardId, new Placement(folderId, key));
+            countsByKey.computeIfAbsent(key, k -> new HashMap<>()).merge(folderId, 1, Integer::sum);
+            folderTotals.putIfAbsent(folderId, BigDecimal.ZERO);
+            folderCards.merge(folderId, 1, Integer::sum);
+            if (price == null) {
+                unpriced++;
+            } else {
+                priced++;
+                addTo(folderId, price);
+            }
+        }
+
+        /** Remove a carta e devolve a chave do Pokémon dela (ou null se não existia). */
+        String remove(Long cardId, Function<String, BigDecimal> priceOf) {
+            Placement p = placements.remove(cardId);
+            if (p == null) return null;
+
+            Map<Long, Integer> byFolder = countsByKey.get(p.key());
+            if (byFolder != null && byFolder.merge(p.folderId(), -1, Integer::sum) <= 0) {
+                byFolder.remove(p.folderId());
+                if (byFolder.isEmpty()) countsByKey.remove(p.key());
+            }
+
+            BigDecimal price = priceOf.apply(p.key());
+            if (price == null) {
+                unpriced--;
+            } else {
+                priced--;
+                addTo(p.folderId(), price.negate());
+            }
+            if (folderCards.merge(p.folderId(), -1, Integer::sum) <= 0) {
+                folderCards.remove(p.folderId());
+                folderTotals.remove(p.folderId());
+            }
+            return p.key();
+        }
+
+        void reprice(String key, BigDecimal before, BigDecimal after) {
+            Map<Long, Integer> byFolder = countsByKey.get(key);
+            if (byFolder == null) return;
+            byFolder.forEach((folderId, n) -> {
+                BigDecimal count = BigDecimal.valueOf(n);
+                if (before != null) addTo(folderId, before.negate().multiply(count));
+                if (after != null) addTo(folderId, after.multiply(count));
+                if (before == null && after != null) { unpriced -= n; priced += n; }
+                if (before != null && after == null) { priced -= n; unpriced += n; }
+            });
+        }
+
+        private void addTo(Long folderId, BigDecimal delta) {
+            folderTotals.merge(folderId, delta, BigDecimal::add);
+            total = total.add(delta);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.FileReclaimTask;
+import com.exemplo.auth.repository.CardItemRepository;
+import com.exemplo.auth.repository.DirectMessageRepository;
+import com.exemplo.auth.repository.FileReclaimTaskRepository;
+import com.exemplo.auth.repository.MarketListingRepository;
+import com.exemplo.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recuperação de arquivos de imagem em segundo plano.
+ *
+ * Quem apaga linhas (ex.: deleteFolder) só enfileira os imagePath na mesma
+ * transação; o job abaixo consome a fila em lotes, confere se o arquivo
+ * ainda é referenciado por alguma tabela (cartas, anúncios, mensagens,
+ * avatares) e só então remove do {@link BlobStore} (disco ou bucket).
+ */
+@Service
+public class FileReclaimService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileReclaimService.class);
+
+    private static final Duration REUSE_WINDOW = Duration.ofMinutes(10);
+
+    private final FileReclaimTaskRepository queue;
+    private final CardItemRepository cards;
+    private final MarketListingRepository listings;
+    private final DirectMessageRepository messages;
+    private final UserRepository users;
+    private final BlobStore blobs;
+
+    public FileReclaimService(FileReclaimTaskRepository queue,
+                              CardItemRepository cards,
+                              MarketListingRepository listings,
+                              DirectMessageRepository messages,
+                              UserRepository users,
+                              BlobStore blobs) {
+        this.queue = queue;
+        this.cards = cards;
+        this.listings = listings;
+        this.messages = messages;
+        this.users = users;
+        this.blobs = blobs;
+    }
+
+    /** Enfileira na transação corrente: se ela fizer rollback, a fila também volta. */
+    public void enqueue(Collection<String> imagePaths) {
+        if (imagePaths == null || imagePaths.isEmpty()) return;
+        Instant now = Instant.now();
+        List<FileReclaimTask> tasks = new ArrayList<>();
+        for (String p : new LinkedHashSet<>(imagePaths)) {
+            if (p == null || p.isBlank()) continue;
+            FileReclaimTask t = new FileReclaimTask();
+            t.setImagePath(p);
+            t.setEnqueuedAt(now);
+            tasks.add(t);
+        }
+        queue.saveAll(tasks);
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.reclaim-ms:60000}")
+    public void drain() {
+        List<FileReclaimTask> batch = queue.findTop200ByOrderByIdAsc();
+        if (batch.isEmpty()) return;
+
+        Set<String> candidates = new HashSet<>();
+        for (FileReclaimTask t : batch) candidates.addAll(StoragePaths.aliases(t.getImagePath()));
+
+        Set<String> referenced = referencedAmong(candidates);
+
+        int removed = 0;
+        for (FileReclaimTask t : batch) {
+            Set<String> aliases = StoragePaths.aliases(t.getImagePath());
+            if (aliases.stream().anyMatch(referenced::contains)) continue; // ainda em uso
+
+            Path file = StoragePaths.toFile(t.getImagePath()).orElse(null);
+            if (file == null || recentlyReused(file)) continue;
+            try {
+                if (blobs.delete(t.getImagePath())) removed++;
+                for (Path derived : ImageDerivativeService.derivativesOf(file)) Files.deleteIfExists(derived);
+            } catch (IOException e) {
+                log.warn("Não foi possível apagar {}: {}", file, e.getMessage());
+            }
+        }
+        queue.deleteAllInBatch(batch);
+
+        if (removed > 0) log.info("Arquivos recuperados: {} de {} na fila", removed, batch.size());
+    }
+
+    /**
+     * Blob que um upload acabou de reaproveitar (mtime renovado pelo
+     * BlobStore): a linha nova pode ainda não ter chegado ao banco. Fica para
+     * o {@link OrphanSweepService}, que só apaga depois da carência.
+     */
+    private static boolean recentlyReused(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isAfter(Instant.now().minus(REUSE_WINDOW));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Quais destes caminhos ainda aparecem em alguma tabela (uma consulta IN por tabela). */
+    public Set<String> referencedAmong(Collection<String> paths) {
+        Set<String> referenced = new HashSet<>();
+        if (paths.isEmpty()) return referenced;
+        referenced.addAll(cards.findReferencedImagePaths(paths));
+        referenced.addAll(listings.findReferencedImagePaths(paths));
+        referenced.addAll(messages.findReferencedImagePaths(paths));
+        referenced.addAll(users.findReferencedImagePaths(paths));
+        return referenced;
+    }
+}
@@ -0,0 +1,238 @@
+package com.exemplo.auth.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+
+/**
+ * Envio de arquivos de data/ com cache HTTP e ranges.
+ *
+ * - immutable (blobs e derivados de blobs): Cache-Control de um ano, o
+ *   navegador nem revalida; a URL muda quando o conteúdo muda.
+ * - demais: ETag forte (mtime + tamanho) e Last-Modified, com 304 para
+ *   If-None-Match / If-Modified-Since.
+ * - Range de um intervalo (206/416, If-Range); múltiplos intervalos recebem o
+ *   arquivo inteiro, o que a RFC permite.
+ * - variantes .br/.gz ao lado do arquivo são usadas se o cliente aceitar.
+ * - corpo por sendfile do Tomcat quando disponível; senão FileChannel.transferTo.
+ */
+@Component
+public class FileServer {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    /** Abaixo disso o sendfile não compensa a troca de contexto. */
+    private static final long SENDFILE_MIN = 48 * 1024;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public void serve(Path file, boolean immutable, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attrs.isRegularFile()) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+        res.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE : REVALIDATE);
+        res.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        res.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        res.setContentType(contentType(file));
+
+        // variante pré-comprimida (só sem Range; a ETag muda junto)
+        Path body = file;
+        String range = req.getHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            Encoded enc = precompressed(file, req.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (enc != null) {
+                body = enc.file();
+                length = Files.size(body);
+                etag = etag.substring(0, etag.length() - 1) + "-" + enc.coding() + "\"";
+                res.setHeader(HttpHeaders.CONTENT_ENCODING, enc.coding());
+            }
+            if (hasSibling(file)) res.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        res.setHeader(HttpHeaders.ETAG, etag);
+
+        if (notModified(req, etag, lastModified)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long count = length;
+        if (range != null && ifRangeMatches(req, etag, lastModified)) {
+            long[] r = parseRange(range, length);
+            if (r == null) {
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                res.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r.length == 2) {
+                start = r[0];
+                count = r[1] - r[0] + 1;
+                res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + r[0] + "-" + r[1] + "/" + length);
+            }
+        }
+
+        res.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(req.getMethod()) || count == 0) return;
+        send(body, start, count, req, res);
+    }
+
+    /* ===================== corpo ===================== */
+
+    private static void send(Path file, long start, long count, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        if (count >= SENDFILE_MIN && Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            // o conector copia do page cache para o socket depois que o handler retorna
+            req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long pos = start;
+            long end = start + count;
+            while (pos < end) {
+                long n = in.transferTo(pos, end - pos, out);
+                if (n <= 0) break;
+                pos += n;
+            }
+        }
+    }
+
+    /* ===================== cabeçalhos ===================== */
+
+    private static boolean notModified(HttpServletRequest req, String etag, long lastModified) {
+        String inm = req.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (inm != null) return etagListMatches(inm, etag);
+        long ims = dateHeader(req, HttpHeaders.IF_MODIFIED_SINCE);
+        return ims >= 0 && lastModified / 1000 <= ims / 1000;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest req, String etag, long lastModified) {
+        String ifRange = req.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"")) return ifRange.equals(etag);
+        long date = dateHeader(req, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static boolean etagListMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest req, String name) {
+        try {
+            return req.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * {início, fim} inclusivos; array vazio = ignorar o Range (servir tudo);
+     * null = intervalo não satisfazível.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String a = spec.substring(0, dash).trim();
+            String b = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (a.isEmpty()) {                       // bytes=-N (últimos N)
+                long suffix = Long.parseLong(b);
+                if (suffix <= 0) return null;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(a);
+                end = b.isEmpty() ? length - 1 : Math.min(Long.parseLong(b), length - 1);
+            }
+            if (start >= length || start > end) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    /* ===================== tipos e variantes ===================== */
+
+    private record Encoded(Path file, String coding) {}
+
+    private static Encoded precompressed(Path file, String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+        String accept = acceptEncoding.toLowerCase(Locale.ROOT);
+        if (accepts(accept, "br")) {
+            Path br = file.resolveSibling(file.getFileName() + ".br");
+            if (Files.isRegularFile(br)) return new Encoded(br, "br");
+        }
+        if (accepts(accept, "gzip")) {
+            Path gz = file.resolveSibling(file.getFileName() + ".gz");
+            if (Files.isRegularFile(gz)) return new Encoded(gz, "gzip");
+        }
+        return null;
+    }
+
+    private static boolean accepts(String acceptEncoding, String coding) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] p = part.trim().split(";");
+            if (!p[0].trim().equals(coding)) continue;
+            return p.length < 2 || !p[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    private static boolean hasSibling(Path file) {
+        return Files.exists(file.resolveSibling(file.getFileName() + ".br"))
+                || Files.exists(file.resolveSibling(file.getFileName() + ".gz"));
+    }
+
+    public static String contentType(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".webp")) return "image/webp";
+        return MediaTypeFactory.getMediaType(name)
+                .map(t -> isText(t) ? t + ";charset=UTF-8" : t.toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    private static boolean isText(MediaType t) {
+        return t.getType().equals("text") || t.getSubtype().equals("javascript") || t.getSubtype().equals("json");
+    }
+}
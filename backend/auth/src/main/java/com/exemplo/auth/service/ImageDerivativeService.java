@@ -0,0 +1,258 @@
+package com.exemplo.auth.service;
+
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Miniaturas WebP das imagens guardadas em data/ (cartas, anúncios, mensagens,
+ * avatares).
+ *
+ * Para cada tamanho, o derivado de data/&lt;rel&gt; fica em
+ * data/derived/&lt;largura&gt;/&lt;rel&gt;.webp e é servido em
+ * /files/derived/&lt;largura&gt;/&lt;rel&gt;.webp. Depois de cada upload
+ * ({@link ImageStoredEvent}) todos os tamanhos são gerados de uma vez no
+ * "imageExecutor" (decodifica uma vez, reduz em cascata). Se a fila estiver
+ * cheia ou o arquivo for antigo, o derivado é gerado no primeiro pedido.
+ *
+ * O derivado é refeito quando o original é mais novo (avatar sobrescrito).
+ * Derivados ficam sempre no disco local, mesmo com blobs no S3: são
+ * refeitos a partir do original se sumirem.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    static final String DERIVED_DIR = "derived";
+    private static final int WEBP_QUALITY = 80;
+    /** Espera máxima do pedido pela geração; depois disso o controller manda o original. */
+    private static final long WAIT_MS = 2_000;
+
+    /** Larguras geradas: grade de cartas/anúncios e visualização ampliada. */
+    public enum Variant {
+        THUMB(240), MEDIUM(800);
+
+        public final int width;
+
+        Variant(int width) { this.width = width; }
+
+        public static Optional<Variant> ofWidth(int width) {
+            return Arrays.stream(values()).filter(v -> v.width == width).findFirst();
+        }
+    }
+
+    private final Executor executor;
+    private final BlobStore blobs;
+    private final Path derivedRoot = StoragePaths.dataRoot().resolve(DERIVED_DIR);
+    private final Path tmpDir = derivedRoot.resolve("tmp");
+
+    /** Um único trabalho por original, mesmo com vários pedidos simultâneos. */
+    private final Map<Path, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageDerivativeService(@Qualifier("imageExecutor") Executor executor, BlobStore blobs) {
+        this.executor = executor;
+        this.blobs = blobs;
+    }
+
+    /* ===================== URLs ===================== */
+
+    /** URL do derivado; o próprio imagePath se não for um arquivo de data/. */
+    public static String urlFor(String imagePath, Variant variant) {
+        Optional<String> rel = StoragePaths.relative(imagePath);
+        if (rel.isEmpty() || rel.get().startsWith(DERIVED_DIR + "/")) return imagePath;
+        return StoragePaths.PUBLIC_PREFIX + DERIVED_DIR + "/" + variant.width + "/" + rel.get() + ".webp";
+    }
+
+    /** Arquivos derivados de um original (existindo ou não), para apagar junto. */
+    public static List<Path> derivativesOf(Path source) {
+        Path root = StoragePaths.dataRoot();
+        Path abs = source.toAbsolutePath().normalize();
+        if (!abs.startsWith(root)) return List.of();
+        Path rel = root.relativize(abs);
+        List<Path> out = new ArrayList<>();
+        for (Variant v : Variant.values()) out.add(derivedPath(v, rel));
+        return out;
+    }
+
+    private static Path derivedPath(Variant v, Path rel) {
+        return StoragePaths.dataRoot().resolve(DERIVED_DIR).resolve(String.valueOf(v.width))
+                .resolve(rel.toString() + ".webp");
+    }
+
+    /* ===================== geração ===================== */
+
+    @EventListener
+    public void onImageStored(ImageStoredEvent e) {
+        Optional<Path> source = StoragePaths.toFile(e.url());
+        if (source.isEmpty()) return;
+        try {
+            schedule(source.get());
+        } catch (TaskRejectedException full) {
+            // fila cheia: fica para o primeiro pedido
+        }
+    }
+
+    /**
+     * Caminho do derivado, gerando agora se faltar ou estiver velho.
+     * Vazio se o original não existe, não é imagem, não há vaga no pool ou a
+     * geração passou de {@link #WAIT_MS} (ela continua e serve o próximo pedido).
+     */
+    public Optional<Path> derivative(Variant variant, String rel) {
+        if (rel.startsWith(DERIVED_DIR + "/")) return Optional.empty();
+        Path source;
+        try {
+            source = blobs.fileFor(StoragePaths.PUBLIC_PREFIX + rel).orElse(null);
+        } catch (IOException e) {
+            log.warn("Original de {} indisponível: {}", rel, e.getMessage());
+            return Optional.empty();
+        }
+        if (source == null) return Optional.empty();
+
+        Path target = derivedPath(variant, StoragePaths.dataRoot().relativize(source));
+        if (fresh(target, source)) return Optional.of(target);
+
+        try {
+            // copy(): o timeout é só deste pedido, não do trabalho compartilhado em inFlight
+            schedule(source).copy().orTimeout(WAIT_MS, TimeUnit.MILLISECONDS).join();
+        } catch (TaskRejectedException | CompletionException e) {
+            return Optional.empty();
+        }
+        return Files.exists(target) ? Optional.of(target) : Optional.empty();
+    }
+
+    private CompletableFuture<Void> schedule(Path source) {
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(source, mine);
+        if (running != null) return running;
+        try {
+            executor.execute(() -> {
+                try {
+                    generateAll(source);
+                    mine.complete(null);
+                } catch (RuntimeException | IOException e) {
+                    log.warn("Miniaturas de {} falharam: {}", source, e.getMessage());
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(source, mine);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(source, mine);
+            throw e;
+        }
+        return mine;
+    }
+
+    /** Decodifica uma vez e gera do maior para o menor, reduzindo a partir do anterior. */
+    private void generateAll(Path source) throws IOException {
+        Path rel = StoragePaths.dataRoot().relativize(source);
+        Variant[] bySize = Variant.values().clone();
+        Arrays.sort(bySize, (a, b) -> Integer.compare(b.width, a.width));
+
+        boolean allFresh = true;
+        for (Variant v : bySize) allFresh &= fresh(derivedPath(v, rel), source);
+        if (allFresh) return;
+
+        Mat current = opencv_imgcodecs.imread(source.toString(), readFlag(source, bySize[0].width));
+        if (current == null || current.empty()) throw new IOException("imagem ilegível");
+
+        Files.createDirectories(tmpDir);
+        List<Mat> owned = new ArrayList<>(List.of(current));
+        try (IntPointer params = new IntPointer(opencv_imgcodecs.IMWRITE_WEBP_QUALITY, WEBP_QUALITY)) {
+            for (Variant v : bySize) {
+                if (current.cols() > v.width) {
+                    int h = (int) Math.round(current.rows() * (v.width / (double) current.cols()));
+                    Mat smaller = new Mat();
+                    opencv_imgproc.resize(current, smaller, new Size(v.width, Math.max(1, h)),
+                            0, 0, opencv_imgproc.INTER_AREA);
+                    owned.add(smaller);
+                    current = smaller;
+                }
+                write(current, derivedPath(v, rel), params);
+            }
+        } finally {
+            owned.forEach(Mat::release);
+        }
+    }
+
+    private void write(Mat img, Path target, IntPointer params) throws IOException {
+        Path tmp = tmpDir.resolve(UUID.randomUUID() + ".webp");
+        try {
+            if (!opencv_imgcodecs.imwrite(tmp.toString(), img, params)) {
+                throw new IOException("falha ao codificar WebP");
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static boolean fresh(Path target, Path source) {
+        try {
+            return Files.exists(target)
+                    && !Files.getLastModifiedTime(source).toInstant()
+                            .isAfter(Files.getLastModifiedTime(target).toInstant());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * JPEG grande decodifica em 1/2, 1/4 ou 1/8 direto no decoder, desde que
+     * ainda fique maior que a maior miniatura. A largura vem do cabeçalho.
+     */
+    private static int readFlag(Path source, int largestWidth) {
+        int width = headerWidth(source);
+        if (width >= largestWidth * 8) return opencv_imgcodecs.IMREAD_REDUCED_COLOR_8;
+        if (width >= largestWidth * 4) return opencv_imgcodecs.IMREAD_REDUCED_COLOR_4;
+        if (width >= largestWidth * 2) return opencv_imgcodecs.IMREAD_REDUCED_COLOR_2;
+        return opencv_imgcodecs.IMREAD_COLOR;
+    }
+
+    static int headerWidth(Path source) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) return -1;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return -1;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return reader.getWidth(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
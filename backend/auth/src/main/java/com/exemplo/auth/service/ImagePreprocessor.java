@@ -21,15 +21,82 @@ public class ImagePreprocessor {
     private static final double TITLE_HEIGHT_FRAC = 0.13; // altura da faixa (13% da altura)
     private static final int MIN_BAND_HEIGHT = 40;   // altura mínima em px
 
+    // Faixa do nome na carta retificada (CardDetector): sem a borda, sem o PS à direita
+    private static final double CARD_TITLE_TOP_FRAC = 0.025;
+    private static final double CARD_TITLE_HEIGHT_FRAC = 0.085;
+    private static final double CARD_TITLE_LEFT_FRAC = 0.04;
+    private static final double CARD_TITLE_WIDTH_FRAC = 0.68;
+
+    // Metade de baixo da carta retificada: ataques, fraqueza/resistência/recuo
+    private static final double CARD_TEXT_TOP_FRAC = 0.50;
+    private static final double CARD_TEXT_HEIGHT_FRAC = 0.45;
+
     /**
      * Lê a imagem, normaliza, recorta a faixa superior onde costuma ficar o título da carta,
-     * faz binarização e salva um PNG temporário pronto para OCR.
+     * faz binarização e salva um PNG temporário pronto para OCR (em data/tmp;
+     * o chamador apaga depois de usar).
+     *
+     * Se a carta for encontrada na foto ({@link CardDetector}), ela é
+     * retificada antes e a faixa vem da posição exata do nome; senão, das
+     * frações fixas acima.
      */
     public static File cropTitleBandForOcr(File input) {
-        Mat src = opencv_imgcodecs.imread(input.getAbsolutePath(), opencv_imgcodecs.IMREAD_COLOR);
-        if (src == null || src.empty()) {
+        return cropTitleBand(input, false);
+    }
+
+    /** Como {@link #cropTitleBandForOcr}, mas null se a carta não for encontrada na foto. */
+    public static File cropDetectedTitleBand(File input) {
+        return cropTitleBand(input, true);
+    }
+
+    /**
+     * Caixa de texto da carta (metade de baixo, em cinza) para a detecção de
+     * idioma do OCR; null se a carta não for encontrada na foto. O chamador
+     * apaga o arquivo.
+     */
+    public static File cropDetectedTextBox(File input) {
+        Mat photo = opencv_imgcodecs.imread(input.getAbsolutePath(), opencv_imgcodecs.IMREAD_COLOR);
+        if (photo == null || photo.empty()) {
+            throw new IllegalArgumentException("Imagem vazia ou inválida: " + input);
+        }
+        Mat card = CardDetector.warp(photo);
+        photo.release();
+        if (card == null) return null;
+
+        Mat gray = new Mat();
+        try {
+            int y = (int) Math.round(card.rows() * CARD_TEXT_TOP_FRAC);
+            int h = (int) Math.round(card.rows() * CARD_TEXT_HEIGHT_FRAC);
+            Mat box = new Mat(card, new Rect(0, y, card.cols(), Math.min(h, card.rows() - y)));
+            opencv_imgproc.cvtColor(box, gray, opencv_imgproc.COLOR_BGR2GRAY);
+            box.release();
+
+            File out;
+            try {
+                out = StoragePaths.newScratchFile("text_", ".png");
+            } catch (IOException e) {
+                throw new RuntimeException("Falha ao criar arquivo temporário", e);
+            }
+            opencv_imgcodecs.imwrite(out.getAbsolutePath(), gray);
+            return out;
+        } finally {
+            card.release();
+            gray.release();
+        }
+    }
+
+    private static File cropTitleBand(File input, boolean requireCard) {
+        Mat photo = opencv_imgcodecs.imread(input.getAbsolutePath(), opencv_imgcodecs.IMREAD_COLOR);
+        if (photo == null || photo.empty()) {
             throw new IllegalArgumentException("Imagem vazia ou inválida: " + input);
         }
+        Mat card = CardDetector.warp(photo);
+        if (card == null && requireCard) {
+            photo.release();
+            return null;
+        }
+        Mat src = card != null ? card : photo;
+        if (card != null) photo.release();
 
         Mat resized = new Mat();
         Mat band = new Mat();
@@ -55,8 +122,10 @@ public class ImagePreprocessor {
             opencv_imgproc.resize(src, resized, new Size(newW, newH));
 
             // 2) Recorte da “faixa do título”
-            int yOffset = (int) Math.round(newH * TITLE_TOP_FRAC);
-            int bandH   = (int) Math.round(newH * TITLE_HEIGHT_FRAC);
+            int yOffset = (int) Math.round(newH * (card != null ? CARD_TITLE_TOP_FRAC : TITLE_TOP_FRAC));
+            int bandH   = (int) Math.round(newH * (card != null ? CARD_TITLE_HEIGHT_FRAC : TITLE_HEIGHT_FRAC));
+            int xOffset = card != null ? (int) Math.round(newW * CARD_TITLE_LEFT_FRAC) : 0;
+            int bandW   = card != null ? (int) Math.round(newW * CARD_TITLE_WIDTH_FRAC) : newW;
 
             if (bandH < MIN_BAND_HEIGHT) bandH = MIN_BAND_HEIGHT;
             if (yOffset + bandH > newH) {
@@ -69,7 +138,7 @@ public class ImagePreprocessor {
                 if (bandH > newH) bandH = newH;
             }
 
-            Rect roi = new Rect(0, yOffset, newW, bandH);
+            Rect roi = new Rect(xOffset, yOffset, bandW, bandH);
             band = new Mat(resized, roi).clone();
 
             // 3) Cinza
@@ -100,7 +169,7 @@ public class ImagePreprocessor {
             // 8) Salva em arquivo temporário
             File out;
             try {
-                out = File.createTempFile("title_", ".png");
+                out = StoragePaths.newScratchFile("title_", ".png");
             } catch (IOException e) {
                 throw new RuntimeException("Falha ao criar arquivo temporário", e);
             }
@@ -0,0 +1,151 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.service.ImageUploadService.StoredImage;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.global.opencv_imgproc;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Triagem barata antes do OCR: foto tremida, escura ou estourada não passa
+ * pelo Tesseract (que nessas fotos roda todos os fallbacks e ainda devolve
+ * "Unknown").
+ *
+ * A imagem é lida já reduzida e em cinza pelo decoder e normalizada para
+ * {@value #ANALYSIS_WIDTH} px de largura, então os limites valem para
+ * qualquer resolução:
+ * - nitidez: variância do Laplaciano (bordas fracas = desfoque);
+ * - exposição: brilho médio e fração de pixels quase pretos/brancos.
+ * Leva poucos milissegundos, contra segundos de OCR.
+ */
+@Service
+public class ImageQualityService {
+
+    static final int ANALYSIS_WIDTH = 640;
+    private static final int DARK_LEVEL = 16;
+    private static final int BRIGHT_LEVEL = 240;
+
+    @Value("${app.ocr.quality.min-sharpness:60}")
+    private double minSharpness;
+
+    @Value("${app.ocr.quality.min-brightness:35}")
+    private double minBrightness;
+
+    @Value("${app.ocr.quality.max-brightness:225}")
+    private double maxBrightness;
+
+    @Value("${app.ocr.quality.max-clipped:0.5}")
+    private double maxClipped;
+
+    /** Medidas de uma foto; {@code problem} é null se ela serve para OCR. */
+    public record Quality(double sharpness, double brightness, double darkFraction, double brightFraction,
+                          String problem) {
+        public boolean usable() {
+            return problem == null;
+        }
+    }
+
+    public Quality assess(Path file) {
+        Mat gray = opencv_imgcodecs.imread(file.toString(), readFlag(file));
+        if (gray == null || gray.empty()) {
+            return new Quality(0, 0, 0, 0, "Não foi possível ler a imagem.");
+        }
+        Mat small = new Mat();
+        Mat lap = new Mat();
+        Mat mean = new Mat();
+        Mat std = new Mat();
+        Mat mask = new Mat();
+        try {
+            Mat img = gray;
+            if (gray.cols() > ANALYSIS_WIDTH) {
+                int h = (int) Math.round(gray.rows() * (ANALYSIS_WIDTH / (double) gray.cols()));
+                opencv_imgproc.resize(gray, small, new Size(ANALYSIS_WIDTH, Math.max(1, h)),
+                        0, 0, opencv_imgproc.INTER_AREA);
+                img = small;
+            }
+            double pixels = (double) img.rows() * img.cols();
+
+            opencv_imgproc.Laplacian(img, lap, opencv_core.CV_64F);
+            opencv_core.meanStdDev(lap, mean, std);
+            double sd;
+            try (DoubleIndexer idx = std.createIndexer()) {
+                sd = idx.get(0);
+            }
+            double sharpness = sd * sd;
+
+            double brightness = opencv_core.mean(img).get(0);
+            opencv_imgproc.threshold(img, mask, DARK_LEVEL - 1, 255, opencv_imgproc.THRESH_BINARY_INV);
+            double dark = opencv_core.countNonZero(mask) / pixels;
+            opencv_imgproc.threshold(img, mask, BRIGHT_LEVEL, 255, opencv_imgproc.THRESH_BINARY);
+            double bright = opencv_core.countNonZero(mask) / pixels;
+
+            return new Quality(sharpness, brightness, dark, bright, problem(sharpness, brightness, dark, bright));
+        } finally {
+            gray.release();
+            small.release();
+            lap.release();
+            mean.release();
+            std.release();
+            mask.release();
+        }
+    }
+
+    /** Recusa a foto antes do OCR, com a mensagem para o usuário. */
+    public void requireUsable(Path file) {
+        Quality q = assess(file);
+        if (!q.usable()) throw new IllegalArgumentException(q.problem());
+    }
+
+    /**
+     * Quadro mais nítido entre os que passam na exposição. Se nenhum passa,
+     * recusa com o motivo do melhor deles.
+     */
+    public StoredImage sharpest(List<StoredImage> frames) {
+        if (frames.isEmpty()) throw new IllegalArgumentException("Envie ao menos uma imagem.");
+        StoredImage best = null;
+        Quality bestQ = null;
+        Quality bestRejected = null;
+        for (StoredImage f : frames) {
+            Quality q = assess(f.file());
+            if (q.usable()) {
+                if (bestQ == null || q.sharpness() > bestQ.sharpness()) {
+                    best = f;
+                    bestQ = q;
+                }
+            } else if (bestRejected == null || q.sharpness() > bestRejected.sharpness()) {
+                bestRejected = q;
+            }
+        }
+        if (best == null) throw new IllegalArgumentException(bestRejected.problem());
+        return best;
+    }
+
+    private String problem(double sharpness, double brightness, double dark, double bright) {
+        if (brightness < minBrightness || dark > maxClipped) {
+            return "Foto escura demais: use mais luz e tente de novo.";
+        }
+        if (brightness > maxBrightness || bright > maxClipped) {
+            return "Foto clara demais ou com reflexo: incline a carta e tente de novo.";
+        }
+        if (sharpness < minSharpness) {
+            return "Foto desfocada: segure firme, aproxime e tente de novo.";
+        }
+        return null;
+    }
+
+    /** Decodifica em 1/2, 1/4 ou 1/8 quando a foto é bem maior que a largura de análise. */
+    private static int readFlag(Path file) {
+        int width = ImageDerivativeService.headerWidth(file);
+        if (width >= ANALYSIS_WIDTH * 8) return opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_8;
+        if (width >= ANALYSIS_WIDTH * 4) return opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_4;
+        if (width >= ANALYSIS_WIDTH * 2) return opencv_imgcodecs.IMREAD_REDUCED_GRAYSCALE_2;
+        return opencv_imgcodecs.IMREAD_GRAYSCALE;
+    }
+}
@@ -0,0 +1,7 @@
+package com.exemplo.auth.service;
+
+/**
+ * Uma imagem foi gravada em data/ e pode ganhar miniaturas.
+ * {@code url} é a URL pública (/files/...).
+ */
+public record ImageStoredEvent(String url) {}
@@ -0,0 +1,188 @@
+package com.exemplo.auth.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upload de imagem lendo o corpo do request uma única vez.
+ *
+ * O multipart é lido em fluxo ({@link MultipartStream}); a parte do arquivo
+ * vai direto para o {@link BlobStore}, que calcula o SHA-256 enquanto grava.
+ * No caminho:
+ * - Content-Length acima do limite é recusado antes de ler qualquer byte;
+ * - os primeiros bytes definem o tipo (PNG, JPEG, GIF, WebP, BMP), o resto é
+ *   recusado sem ser gravado;
+ * - o limite de tamanho é contado durante a leitura.
+ * O OCR lê o próprio blob; não há cópia temporária.
+ *
+ * Campos de texto podem vir antes ou depois do arquivo. Se a requisição
+ * falhar depois do upload, {@link #consume} devolve o blob ao
+ * {@link FileReclaimService}.
+ */
+@Service
+public class ImageUploadService {
+
+    private static final int MAX_FIELD_BYTES = 8 * 1024;
+    private static final int SNIFF_BYTES = 12;
+
+    private final BlobStore blobs;
+    private final FileReclaimService reclaim;
+
+    @Value("${app.upload.max-bytes:10485760}")
+    private long maxBytes;
+
+    public ImageUploadService(BlobStore blobs, FileReclaimService reclaim) {
+        this.blobs = blobs;
+        this.reclaim = reclaim;
+    }
+
+    /** Imagem já gravada no store. */
+    public record StoredImage(String url, Path file, String originalName, long size) {}
+
+    /** Campos de texto do formulário e a imagem (null se não veio). */
+    public record Upload(Map<String, String> fields, StoredImage image) {
+        public String field(String name) {
+            return fields.get(name);
+        }
+    }
+
+    /** Campos e várias imagens do mesmo campo, na ordem enviada (rajada de quadros). */
+    public record Burst(Map<String, String> fields, List<StoredImage> images) {
+        public String field(String name) {
+            return fields.get(name);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Step<T> {
+        T apply(StoredImage image) throws Exception;
+    }
+
+    /* ===================== leitura ===================== */
+
+    public Upload receive(HttpServletRequest request, String fileField, boolean required) throws IOException {
+        Burst b = receiveBurst(request, fileField, 1);
+        if (required && b.images().isEmpty()) throw new IllegalArgumentException("Imagem obrigatória.");
+        return new Upload(b.fields(), b.images().isEmpty() ? null : b.images().get(0));
+    }
+
+    /** Até {@code maxImages} arquivos do campo; os excedentes são descartados sem gravar. */
+    public Burst receiveBurst(HttpServletRequest request, String fileField, int maxImages) throws IOException {
+        String boundary = MultipartStream.boundaryOf(request.getContentType())
+                .orElseThrow(() -> new IllegalArgumentException("envie multipart/form-data"));
+        long declared = request.getContentLengthLong();
+        if (declared > maxBytes * maxImages + MAX_FIELD_BYTES * 4L) throw tooLarge();
+
+        Map<String, String> fields = new HashMap<>();
+        List<StoredImage> images = new ArrayList<>();
+        MultipartStream multipart = new MultipartStream(request.getInputStream(), boundary);
+        try {
+            for (MultipartStream.Part part = multipart.next(); part != null; part = multipart.next()) {
+                if (part.name() == null) continue;
+                if (!part.isFile()) {
+                    byte[] value = part.body().readNBytes(MAX_FIELD_BYTES + 1);
+                    if (value.length > MAX_FIELD_BYTES) throw new IllegalArgumentException("campo '" + part.name() + "' grande demais");
+                    fields.put(part.name(), new String(value, StandardCharsets.UTF_8));
+                } else if (part.name().equals(fileField) && images.size() < maxImages && !part.filename().isEmpty()) {
+                    images.add(store(part));
+                }
+                // outros arquivos são descartados pelo next()
+            }
+        } catch (IOException | RuntimeException e) {
+            images.forEach(this::discard);
+            throw e;
+        }
+        return new Burst(Map.copyOf(fields), List.copyOf(images));
+    }
+
+    /** Roda o passo seguinte ao upload; se falhar, o blob volta para a fila de recuperação. */
+    public <T> T consume(StoredImage image, Step<T> step) throws Exception {
+        try {
+            return step.apply(image);
+        } catch (Exception e) {
+            if (image != null) discard(image);
+            throw e;
+        }
+    }
+
+    /** Blob que não chegou a ser referenciado (o reclaim só apaga se ninguém usar). */
+    public void discard(StoredImage image) {
+        reclaim.enqueue(List.of(image.url()));
+    }
+
+    /* ===================== gravação ===================== */
+
+    private StoredImage store(MultipartStream.Part part) throws IOException {
+        InputStream body = part.body();
+        byte[] head = body.readNBytes(SNIFF_BYTES);
+        String ext = sniff(head);
+        if (ext == null) {
+            throw new IllegalArgumentException("O arquivo não é uma imagem (png, jpg, gif, webp ou bmp).");
+        }
+
+        Counting counted = new Counting(new SequenceInputStream(new ByteArrayInputStream(head), body), maxBytes);
+        String url = blobs.put(counted, ext);
+        Path file = blobs.fileFor(url).orElseThrow(() -> new IOException("blob sumiu: " + url));
+        return new StoredImage(url, file, part.filename(), counted.count);
+    }
+
+    /** Extensão pelos "magic bytes"; null se não for um formato aceito. */
+    static String sniff(byte[] h) {
+        if (h.length >= 8 && (h[0] & 0xff) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G'
+                && h[4] == 0x0d && h[5] == 0x0a && h[6] == 0x1a && h[7] == 0x0a) return ".png";
+        if (h.length >= 3 && (h[0] & 0xff) == 0xff && (h[1] & 0xff) == 0xd8 && (h[2] & 0xff) == 0xff) return ".jpg";
+        if (h.length >= 6 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8'
+                && (h[4] == '7' || h[4] == '9') && h[5] == 'a') return ".gif";
+        if (h.length >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P') return ".webp";
+        if (h.length >= 2 && h[0] == 'B' && h[1] == 'M') return ".bmp";
+        return null;
+    }
+
+    private IllegalArgumentException tooLarge() {
+        return new IllegalArgumentException("Imagem maior que " + (maxBytes / (1024 * 1024)) + " MB.");
+    }
+
+    /** Conta os bytes lidos e interrompe ao passar do limite (o BlobStore apaga o temporário). */
+    private final class Counting extends FilterInputStream {
+        private final long limit;
+        long count;
+
+        Counting(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) advance(1);
+            return c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) advance(n);
+            return n;
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (count > limit) throw tooLarge();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.exemplo.auth.service;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Blobs em disco, em data/blobs/ab/cd/&lt;sha256&gt;.ext: dois níveis de 256
+ * pastas, então nenhum diretório cresce sem limite (65536 folhas). O arquivo
+ * só aparece no lugar final por rename atômico.
+ */
+public class LocalBlobBackend implements BlobBackend {
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public LocalBlobBackend(Path root) {
+        this.root = root;
+        this.tmpDir = root.resolve("tmp");
+    }
+
+    @Override
+    public void store(String key, Path file) throws IOException {
+        Path target = pathOf(key);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(file); // já temos esses bytes
+            touch(target);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException race) {
+            Files.deleteIfExists(file); // outro upload igual chegou antes
+        }
+    }
+
+    /** Hard link quando possível (mesmo sistema de arquivos); senão cópia. */
+    @Override
+    public void storeCopy(String key, Path file) throws IOException {
+        Path target = pathOf(key);
+        if (Files.exists(target)) {
+            touch(target);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, file);
+        } catch (FileAlreadyExistsException race) {
+            // outro arquivo igual já virou blob
+        } catch (IOException | UnsupportedOperationException noLink) {
+            Files.createDirectories(tmpDir);
+            Path tmp = tmpDir.resolve(UUID.randomUUID() + ".part");
+            try {
+                Files.copy(file, tmp);
+                store(key, tmp);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(pathOf(key));
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        Path p = pathOf(key);
+        return Files.isRegularFile(p) ? Optional.of(p) : Optional.empty();
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(pathOf(key));
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    /**
+     * Blob reaproveitado por um upload novo: o mtime volta a valer "agora",
+     * para a carência do {@link OrphanSweepService} proteger a linha que
+     * ainda vai ser gravada.
+     */
+    static void touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (NoSuchFileException gone) {
+            // apagado no meio do caminho; o próximo upload igual grava de novo
+        }
+    }
+
+    private Path pathOf(String key) {
+        Path p = root.resolve(key).normalize();
+        if (!p.startsWith(root) || p.startsWith(tmpDir)) throw new IllegalArgumentException("chave inválida: " + key);
+        return p;
+    }
+}
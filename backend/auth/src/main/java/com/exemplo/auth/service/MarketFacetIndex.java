@@ -0,0 +1,326 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.MarketListing;
+import com.exemplo.auth.model.MarketListing.Status;
+import com.exemplo.auth.repository.MarketListingRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória dos anúncios ACTIVE para navegação por facetas
+ * (Pokémon, faixa de preço, vendedor, recência).
+ *
+ * Cada valor de faceta guarda um RoaringBitmap com os ids dos anúncios;
+ * filtros viram AND/OR de bitmaps e as contagens saem de andCardinality,
+ * sem tocar no banco. O índice é mantido pelos MarketListingEvent e
+ * reconstruído a partir de market_listings na subida da aplicação.
+ *
+ * Idioma/coleção ainda não existem no catálogo; quando existirem, basta
+ * mais um mapa valor → bitmap como os abaixo.
+ */
+@Service
+public class MarketFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketFacetIndex.class);
+
+    public static final String FACET_POKEMON = "pokemon";
+    public static final String FACET_PRICE = "priceBand";
+    public static final String FACET_SELLER = "seller";
+    public static final String FACET_RECENCY = "recency";
+
+    private static final BigDecimal[] BAND_LIMITS = {
+            BigDecimal.valueOf(10), BigDecimal.valueOf(50), BigDecimal.valueOf(100), BigDecimal.valueOf(500)
+    };
+    private static final String[] BAND_LABELS = {"0-10", "10-50", "50-100", "100-500", "500+"};
+    private static final int[] RECENCY_DAYS = {1, 7, 30};
+    private static final int SELLER_FACET_LIMIT = 20;
+
+    private final MarketListingRepository listings;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byPokemon = new HashMap<>();
+    private final Map<String, String> pokemonLabels = new HashMap<>(); // chave → nome exibido
+    private final Map<String, RoaringBitmap> byCardName = new HashMap<>();
+    private final Map<String, RoaringBitmap> byBand = new HashMap<>();
+    private final Map<Long, RoaringBitmap> bySeller = new HashMap<>();
+    private final TreeMap<Long, RoaringBitmap> byDay = new TreeMap<>(); // epoch day (UTC) de criação
+    private final Map<Integer, Doc> docs = new HashMap<>();
+
+    public MarketFacetIndex(MarketListingRepository listings) {
+        this.listings = listings;
+    }
+
+    /** Filtros da busca; coleções vazias/nulos = sem filtro naquela faceta. */
+    public record Query(String text,
+                        Collection<String> pokemon,
+                        Collection<String> priceBands,
+                        Long sellerId,
+                        Integer maxAgeDays) {}
+
+    /** Ids da página (ordenados por preço) + total + contagem por valor de cada faceta. */
+    public record Result(int total, List<Long> pageIds, Map<String, Map<String, Integer>> facets) {}
+
+    private record Doc(String pokemonKey, String cardKey, String band, Long sellerId,
+                       long day, BigDecimal price, Instant createdAt) {}
+
+    /* ===================== busca ===================== */
+
+    public Result search(Query q, int page, int size) {
+        lock.readLock().lock();
+        try {
+            long today = epochDay(Instant.now());
+
+            RoaringBitmap fText = textFilter(q.text());
+            RoaringBitmap fPokemon = isEmpty(q.pokemon()) ? null
+                    : orOf(byPokemon, q.pokemon().stream().map(MarketFacetIndex::key).toList());
+            RoaringBitmap fBand = isEmpty(q.priceBands()) ? null : orOf(byBand, q.priceBands());
+            RoaringBitmap fSeller = q.sellerId() == null ? null
+                    : bySeller.getOrDefault(q.sellerId(), new RoaringBitmap());
+            RoaringBitmap fRecency = q.maxAgeDays() == null ? null : createdSince(today, q.maxAgeDays());
+
+            RoaringBitmap matching = and(fText, fPokemon, fBand, fSeller, fRecency);
+
+            // facetas "disjuntivas": cada uma é contada com os filtros das outras
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+
+            RoaringBitmap basePokemon = and(fText, fBand, fSeller, fRecency);
+            Map<String, Integer> pokemonCounts = counts(basePokemon, byPokemon, Integer.MAX_VALUE);
+            Map<String, Integer> pokemonView = new LinkedHashMap<>();
+            pokemonCounts.forEach((k, c) -> pokemonView.put(pokemonLabels.getOrDefault(k, k), c));
+            facets.put(FACET_POKEMON, pokemonView);
+
+            RoaringBitmap baseBand = and(fText, fPokemon, fSeller, fRecency);
+            Map<String, Integer> bandCounts = new LinkedHashMap<>();
+            for (String label : BAND_LABELS) {
+                RoaringBitmap b = byBand.get(label);
+                bandCounts.put(label, b == null ? 0 : RoaringBitmap.andCardinality(baseBand, b));
+            }
+            facets.put(FACET_PRICE, bandCounts);
+
+            RoaringBitmap baseSeller = and(fText, fPokemon, fBand, fRecency);
+            Map<String, Integer> sellerCounts = new LinkedHashMap<>();
+            counts(baseSeller, bySeller, SELLER_FACET_LIMIT)
+                    .forEach((id, c) -> sellerCounts.put(String.valueOf(id), c));
+            facets.put(FACET_SELLER, sellerCounts);
+
+            RoaringBitmap baseRecency = and(fText, fPokemon, fBand, fSeller);
+            Map<String, Integer> recencyCounts = new LinkedHashMap<>();
+            for (int days : RECENCY_DAYS) {
+                recencyCounts.put(days + "d", RoaringBitmap.andCardinality(baseRecency, createdSince(today, days)));
+            }
+            facets.put(FACET_RECENCY, recencyCounts);
+
+            // página ordenada como a busca textual: preço asc, mais recentes primeiro
+            List<Integer> ids = new ArrayList<>(matching.getCardinality());
+            for (int id : matching.toArray()) ids.add(id);
+            ids.sort(Comparator.<Integer, BigDecimal>comparing(id -> docs.get(id).price())
+                    .thenComparing(id -> docs.get(id).createdAt(), Comparator.reverseOrder()));
+
+            int from = Math.min(Math.max(page, 0) * size, ids.size());
+            int to = Math.min(from + size, ids.size());
+            List<Long> pageIds = ids.subList(from, to).stream().map(Integer::longValue).toList();
+
+            return new Result(ids.size(), pageIds, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ===================== manutenção incremental ===================== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingEvent(MarketListingEvent e) {
+        lock.writeLock().lock();
+        try {
+            apply(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Lote inteiro sob uma única aquisição do lock. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingBatch(MarketListingBatchEvent batch) {
+        lock.writeLock().lock();
+        try {
+            batch.events().forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(MarketListingEvent e) {
+        int id = toIntId(e.listingId());
+        switch (e.type()) {
+            case CREATED -> add(id, e.pokemonName(), e.cardName(), e.price(), e.sellerId(), e.at());
+            case UPDATED -> {
+                Doc old = docs.get(id);
+                if (old == null) return;
+                remove(id);
+                add(id, e.pokemonName(), e.cardName(), e.price(), old.sellerId(), old.createdAt());
+            }
+            case SOLD, CANCELED -> remove(id);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // segura o lock de escrita durante a carga para não perder eventos no meio
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            byPokemon.clear();
+            pokemonLabels.clear();
+            byCardName.clear();
+            byBand.clear();
+            bySeller.clear();
+            byDay.clear();
+            docs.clear();
+
+            for (MarketListing m : listings.findByStatus(Status.ACTIVE)) {
+                add(toIntId(m.getId()), m.getPokemonName(), m.getCardName(), m.getPrice(),
+                        m.getSellerId(), m.getCreatedAt());
+            }
+            log.info("Índice de facetas do mercado: {} anúncios ativos", docs.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(int id, String pokemonName, String cardName, BigDecimal price, Long sellerId, Instant createdAt) {
+        Instant created = createdAt != null ? createdAt : Instant.now();
+        String pk = key(pokemonName);
+        Doc d = new Doc(pk, key(cardName), band(price), sellerId, epochDay(created), price, created);
+
+        all.add(id);
+        bitmap(byPokemon, d.pokemonKey()).add(id);
+        pokemonLabels.putIfAbsent(pk, pokemonName == null ? "" : pokemonName.trim());
+        if (!d.cardKey().isEmpty()) bitmap(byCardName, d.cardKey()).add(id);
+        bitmap(byBand, d.band()).add(id);
+        bitmap(bySeller, d.sellerId()).add(id);
+        bitmap(byDay, d.day()).add(id);
+        docs.put(id, d);
+    }
+
+    private void remove(int id) {
+        Doc d = docs.remove(id);
+        if (d == null) return;
+
+        all.remove(id);
+        unset(byPokemon, d.pokemonKey(), id);
+        if (!byPokemon.containsKey(d.pokemonKey())) pokemonLabels.remove(d.pokemonKey());
+        if (!d.cardKey().isEmpty()) unset(byCardName, d.cardKey(), id);
+        unset(byBand, d.band(), id);
+        unset(bySeller, d.sellerId(), id);
+        unset(byDay, d.day(), id);
+    }
+
+    /* ===================== helpers ===================== */
+
+    private RoaringBitmap textFilter(String text) {
+        if (text == null || text.isBlank()) return null;
+        String q = key(text);
+        RoaringBitmap r = new RoaringBitmap();
+        byPokemon.forEach((k, b) -> { if (k.contains(q)) r.or(b); });
+        byCardName.forEach((k, b) -> { if (k.contains(q)) r.or(b); });
+        return r;
+    }
+
+    private RoaringBitmap createdSince(long today, int days) {
+        RoaringBitmap r = new RoaringBitmap();
+        for (RoaringBitmap b : byDay.tailMap(today - Math.max(days, 1) + 1, true).values()) r.or(b);
+        return r;
+    }
+
+    /** AND de todos os filtros não nulos (partindo do conjunto ativo inteiro). */
+    private RoaringBitmap and(RoaringBitmap... filters) {
+        RoaringBitmap r = all.clone();
+        for (RoaringBitmap f : filters) {
+            if (f != null) r.and(f);
+        }
+        return r;
+    }
+
+    private static <K> RoaringBitmap orOf(Map<K, RoaringBitmap> index, Collection<K> keys) {
+        RoaringBitmap r = new RoaringBitmap();
+        for (K k : keys) {
+            RoaringBitmap b = index.get(k);
+            if (b != null) r.or(b);
+        }
+        return r;
+    }
+
+    /** Contagem por valor, ordenada da maior para a menor, ignorando zeros. */
+    private static <K> Map<K, Integer> counts(RoaringBitmap base, Map<K, RoaringBitmap> index, int limit) {
+        List<Map.Entry<K, Integer>> entries = new ArrayList<>();
+        index.forEach((k, b) -> {
+            int c = RoaringBitmap.andCardinality(base, b);
+            if (c > 0) entries.add(Map.entry(k, c));
+        });
+        entries.sort(Map.Entry.<K, Integer>comparingByValue().reversed());
+
+        Map<K, Integer> out = new LinkedHashMap<>();
+        for (Map.Entry<K, Integer> en : entries) {
+            if (out.size() >= limit) break;
+            out.put(en.getKey(), en.getValue());
+        }
+        return out;
+    }
+
+    private static <K> RoaringBitmap bitmap(Map<K, RoaringBitmap> index, K key) {
+        return index.computeIfAbsent(key, k -> new RoaringBitmap());
+    }
+
+    private static <K> void unset(Map<K, RoaringBitmap> index, K key, int id) {
+        RoaringBitmap b = index.get(key);
+        if (b == null) return;
+        b.remove(id);
+        if (b.isEmpty()) index.remove(key);
+    }
+
+    private static String band(BigDecimal price) {
+        if (price == null) return BAND_LABELS[0];
+        for (int i = 0; i < BAND_LIMITS.length; i++) {
+            if (price.compareTo(BAND_LIMITS[i]) < 0) return BAND_LABELS[i];
+        }
+        return BAND_LABELS[BAND_LABELS.length - 1];
+    }
+
+    private static long epochDay(Instant t) {
+        return t.atZone(ZoneOffset.UTC).toLocalDate().toEpochDay();
+    }
+
+    private static String key(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isEmpty(Collection<?> c) {
+        return c == null || c.isEmpty();
+    }
+
+    private static int toIntId(Long id) {
+        // RoaringBitmap trabalha com int; ids de anúncio cabem com folga
+        return Math.toIntExact(id);
+    }
+}
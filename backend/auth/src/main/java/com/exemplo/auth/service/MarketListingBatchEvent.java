@@ -0,0 +1,9 @@
+package com.exemplo.auth.service;
+
+import java.util.List;
+
+/**
+ * Vários {@link MarketListingEvent} gravados na mesma transação (criação em lote).
+ * Os índices aplicam o lote inteiro de uma vez, em vez de um evento por anúncio.
+ */
+public record MarketListingBatchEvent(List<MarketListingEvent> events) {}
@@ -0,0 +1,47 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.MarketListing;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Evento publicado pelo {@link MarketService} a cada mutação de anúncio.
+ * Os consumidores usam @TransactionalEventListener(AFTER_COMMIT), então só
+ * enxergam mudanças que de fato foram gravadas no banco.
+ */
+public record MarketListingEvent(
+        Type type,
+        Long listingId,
+        Long sellerId,
+        Long buyerId,
+        String pokemonName,
+        String cardName,
+        BigDecimal price,
+        String previousPokemonName, // só preenchido em UPDATED
+        BigDecimal previousPrice,   // só preenchido em UPDATED
+        Instant at
+) {
+
+    public enum Type { CREATED, UPDATED, SOLD, CANCELED }
+
+    public static MarketListingEvent created(MarketListing m) {
+        return new MarketListingEvent(Type.CREATED, m.getId(), m.getSellerId(), null,
+                m.getPokemonName(), m.getCardName(), m.getPrice(), null, null, m.getCreatedAt());
+    }
+
+    public static MarketListingEvent updated(MarketListing m, String previousPokemonName, BigDecimal previousPrice) {
+        return new MarketListingEvent(Type.UPDATED, m.getId(), m.getSellerId(), null,
+                m.getPokemonName(), m.getCardName(), m.getPrice(), previousPokemonName, previousPrice, Instant.now());
+    }
+
+    public static MarketListingEvent sold(MarketListing m) {
+        return new MarketListingEvent(Type.SOLD, m.getId(), m.getSellerId(), m.getBuyerId(),
+                m.getPokemonName(), m.getCardName(), m.getPrice(), null, null, m.getSoldAt());
+    }
+
+    public static MarketListingEvent canceled(MarketListing m) {
+        return new MarketListingEvent(Type.CANCELED, m.getId(), m.getSellerId(), null,
+                m.getPokemonName(), m.getCardName(), m.getPrice(), null, null, Instant.now());
+    }
+}
@@ -0,0 +1,44 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.MarketListing;
+import com.exemplo.auth.repository.UserRepository;
+import com.exemplo.auth.service.ImageDerivativeService.Variant;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Forma pública de um anúncio: a mesma em /notifications, no SSE "sold",
+ * no long-poll e nas listagens, sem expor a entidade.
+ */
+@Component
+public class MarketListingViews {
+
+    private final UserRepository users;
+
+    public MarketListingViews(UserRepository users) {
+        this.users = users;
+    }
+
+    public Map<String,Object> toView(MarketListing m) {
+        var map = new LinkedHashMap<String,Object>();
+        map.put("id", m.getId());
+        map.put("sellerId", m.getSellerId());
+
+        // pega email do vendedor
+        var sellerOpt = users.findById(m.getSellerId());
+        String sellerEmail = sellerOpt.map(u -> u.getEmail()).orElse(null);
+        map.put("sellerEmail", sellerEmail);
+
+        map.put("pokemonName", m.getPokemonName());
+        map.put("cardName", m.getCardName());
+        map.put("imagePath", m.getImagePath());
+        map.put("thumbUrl", m.getImagePath() == null ? null : ImageDerivativeService.urlFor(m.getImagePath(), Variant.THUMB));
+        map.put("price", m.getPrice());
+        map.put("status", m.getStatus());
+        map.put("createdAt", m.getCreatedAt());
+        map.put("soldAt", m.getSoldAt());
+        return map;
+    }
+}
@@ -2,51 +2,73 @@ package com.exemplo.auth.service;
 
 import com.exemplo.auth.model.MarketListing;
 import com.exemplo.auth.model.MarketListing.Status;
+import com.exemplo.auth.model.CardItem;
+import com.exemplo.auth.repository.CardItemRepository;
 import com.exemplo.auth.repository.MarketListingRepository;
 import com.exemplo.auth.repository.UserRepository;
+import com.exemplo.auth.service.ImageUploadService.StoredImage;
+import com.exemplo.auth.service.OcrService.Latency;
+import com.exemplo.auth.service.OcrService.OcrOptions;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MarketService {
 
     private final MarketListingRepository listings;
     private final UserRepository users;
+    private final CardItemRepository cards;
     private final OcrService ocr;
+    private final ImageQualityService quality;
     private final PokemonDictionary dict;
+    private final ApplicationEventPublisher events;
 
     public MarketService(MarketListingRepository listings,
                          UserRepository users,
+                         CardItemRepository cards,
                          OcrService ocr,
-                         PokemonDictionary dict) {
+                         ImageQualityService quality,
+                         PokemonDictionary dict,
+                         ApplicationEventPublisher events) {
         this.listings = listings;
         this.users = users;
+        this.cards = cards;
         this.ocr = ocr;
+        this.quality = quality;
         this.dict = dict;
+        this.events = events;
     }
 
     /* ===== criar anúncio a partir do scanner ===== */
 
     @Transactional
     public MarketListing createListingFromScan(Long sellerId,
-                                               File tempImage,
-                                               Path storageBase,
-                                               BigDecimal price) throws Exception {
+                                               StoredImage image,
+                                               BigDecimal price,
+                                               String language,
+                                               Latency latency) {
         if (price == null || price.signum() <= 0) {
             throw new IllegalArgumentException("Preço deve ser maior que zero.");
         }
 
+        quality.requireUsable(image.file());
+        File imageFile = image.file().toFile();
+        String hint = language != null ? language : OcrService.languageFromFileName(image.originalName());
+        OcrOptions opts = ocr.options(imageFile, hint, latency);
+
         // 1) OCR parecido com scanAndAdd
         String candidate = null;
         try {
-            String ocrName = ocr.extractCardName(tempImage);
+            String ocrName = ocr.extractCardName(imageFile, opts);
             if (ocrName != null && !ocrName.isBlank()) {
                 candidate = ocrName.trim();
             }
@@ -54,7 +76,7 @@ public class MarketService {
 
         if (candidate == null || candidate.isBlank()) {
             try {
-                String raw = ocr.extractText(tempImage);
+                String raw = ocr.extractText(imageFile, opts);
                 if (raw != null) {
                     candidate = raw.trim();
                 }
@@ -64,30 +86,85 @@ public class MarketService {
         String pokemonName = dict.bestMatchLoose(candidate != null ? candidate : "")
                 .orElse("Unknown");
 
-        // 2) salva imagem em data/users/{id}/market
-        Files.createDirectories(storageBase);
-        String baseName = tempImage.getName();
-        String ext = baseName.contains(".")
-                ? baseName.substring(baseName.lastIndexOf('.'))
-                : ".png";
-        String safeName = "market_" + System.currentTimeMillis()
-                + "_" + Math.abs(baseName.hashCode()) + ext;
-        Path target = storageBase.resolve(safeName);
-        Files.move(tempImage.toPath(), target);
-
-        String webPath = "/files/users/" + sellerId + "/market/" + safeName;
-
-        // 3) cria listing
+        // 2) cria listing (imagem já no store por conteúdo: mesma foto da coleção = mesmo arquivo)
         MarketListing m = new MarketListing();
         m.setSellerId(sellerId);
         m.setPokemonName(pokemonName);
         m.setCardName(candidate != null && !candidate.isBlank() ? candidate : pokemonName);
-        m.setImagePath(webPath);
+        m.setImagePath(image.url());
         m.setPrice(price);
         m.setStatus(Status.ACTIVE);
         m.setCreatedAt(Instant.now());
 
-        return listings.save(m);
+        MarketListing saved = listings.save(m);
+        events.publishEvent(MarketListingEvent.created(saved));
+        return saved;
+    }
+
+    /* ===== criar anúncios em lote a partir da coleção ===== */
+
+    private static final int MAX_BULK_LISTINGS = 100;
+
+    /**
+     * Cria um anúncio por carta da coleção, reaproveitando o pokemonName já
+     * reconhecido e apontando para a mesma imagem (sem OCR nem cópia de arquivo).
+     * Tudo é gravado num único saveAll e os índices recebem um só evento de lote.
+     *
+     * @param pricesByCardId cardItemId → preço, na ordem desejada
+     */
+    @Transactional
+    public List<MarketListing> createListingsFromCards(Long sellerId, Map<Long, BigDecimal> pricesByCardId) {
+        if (pricesByCardId == null || pricesByCardId.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos uma carta.");
+        }
+        if (pricesByCardId.size() > MAX_BULK_LISTINGS) {
+            throw new IllegalArgumentException("Máximo de " + MAX_BULK_LISTINGS + " cartas por vez.");
+        }
+        pricesByCardId.forEach((cardId, price) -> {
+            if (price == null || price.signum() <= 0) {
+                throw new IllegalArgumentException("Preço deve ser maior que zero (carta " + cardId + ").");
+            }
+        });
+
+        Map<Long, CardItem> owned = cards.findAllById(pricesByCardId.keySet()).stream()
+                .filter(c -> sellerId.equals(c.getUserId()))
+                .collect(Collectors.toMap(CardItem::getId, Function.identity()));
+        for (Long cardId : pricesByCardId.keySet()) {
+            if (!owned.containsKey(cardId)) {
+                throw new IllegalArgumentException("Carta não encontrada: " + cardId);
+            }
+        }
+
+        List<MarketListing> alreadyListed =
+                listings.findByCardItemIdInAndStatus(pricesByCardId.keySet(), Status.ACTIVE);
+        if (!alreadyListed.isEmpty()) {
+            throw new IllegalArgumentException("Carta já anunciada: " + alreadyListed.get(0).getCardItemId());
+        }
+
+        Instant now = Instant.now();
+        List<MarketListing> batch = new java.util.ArrayList<>(pricesByCardId.size());
+        pricesByCardId.forEach((cardId, price) -> {
+            CardItem c = owned.get(cardId);
+            String pokemonName = c.getPokemonName() != null && !c.getPokemonName().isBlank()
+                    ? c.getPokemonName()
+                    : c.getCardName();
+
+            MarketListing m = new MarketListing();
+            m.setSellerId(sellerId);
+            m.setCardItemId(cardId);
+            m.setPokemonName(pokemonName);
+            m.setCardName(c.getCardName());
+            m.setImagePath(StoragePaths.publicUrl(c.getImagePath()));
+            m.setPrice(price);
+            m.setStatus(Status.ACTIVE);
+            m.setCreatedAt(now);
+            batch.add(m);
+        });
+
+        List<MarketListing> saved = listings.saveAll(batch);
+        events.publishEvent(new MarketListingBatchEvent(
+                saved.stream().map(MarketListingEvent::created).toList()));
+        return saved;
     }
 
     /* ===== buscas / listagens ===== */
@@ -101,6 +178,18 @@ public class MarketService {
         return listings.searchActiveByQuery(q);
     }
 
+    /** Carrega os anúncios na mesma ordem dos ids (página vinda do índice de facetas). */
+    @Transactional(readOnly = true)
+    public List<MarketListing> activeByIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, MarketListing> byId = listings.findAllById(ids).stream()
+                .collect(Collectors.toMap(MarketListing::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(m -> m != null && m.getStatus() == Status.ACTIVE)
+                .toList();
+    }
+
     @Transactional(readOnly = true)
     public List<MarketListing> myActive(Long sellerId) {
         return listings.findBySellerIdAndStatus(sellerId, Status.ACTIVE);
@@ -126,6 +215,8 @@ public class MarketService {
             throw new IllegalArgumentException("Só é possível editar anúncios ativos.");
         }
 
+        String previousName = m.getPokemonName();
+        BigDecimal previousPrice = m.getPrice();
         boolean changed = false;
 
         if (newPokemonName != null) {
@@ -154,7 +245,9 @@ public class MarketService {
 
         if (!changed) return m; // nada pra atualizar
 
-        return listings.save(m);
+        MarketListing saved = listings.save(m);
+        events.publishEvent(MarketListingEvent.updated(saved, previousName, previousPrice));
+        return saved;
     }
 
 
@@ -178,7 +271,9 @@ public class MarketService {
         m.setBuyerId(buyerId);
         m.setStatus(Status.SOLD);
         m.setSoldAt(Instant.now());
-        return listings.save(m);
+        MarketListing saved = listings.save(m);
+        events.publishEvent(MarketListingEvent.sold(saved));
+        return saved;
     }
 
     @Transactional
@@ -193,6 +288,7 @@ public class MarketService {
         }
         m.setStatus(Status.CANCELED);
         listings.save(m);
+        events.publishEvent(MarketListingEvent.canceled(m));
     }
 }
 
@@ -0,0 +1,369 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.dto.PriceStatsView;
+import com.exemplo.auth.model.MarketListing;
+import com.exemplo.auth.model.MarketListing.Status;
+import com.exemplo.auth.model.PokemonPriceStats;
+import com.exemplo.auth.repository.MarketListingRepository;
+import com.exemplo.auth.repository.PokemonPriceStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estatísticas de preço por Pokémon (menor preço ativo, nº de anúncios,
+ * mediana/último preço de venda em janelas de 7 e 30 dias).
+ *
+ * Os agregados vivem em memória e são atualizados pelos eventos do
+ * MarketService; a consulta só lê um snapshot pronto (O(1)). Periodicamente
+ * os agregados alterados são gravados em pokemon_price_stats, e um job de
+ * rebuild recalcula tudo a partir de market_listings.
+ */
+@Service
+public class MarketStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketStatsService.class);
+
+    private static final Duration WINDOW_SHORT = Duration.ofDays(7);
+    private static final Duration WINDOW_LONG = Duration.ofDays(30);
+    private static final int MAX_SALES_KEPT = 512; // por Pokémon, dentro da janela longa
+
+    private final MarketListingRepository listings;
+    private final PokemonPriceStatsRepository summaries;
+    private final ApplicationEventPublisher events;
+
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    // eventos que chegam durante um rebuild são reaplicados depois da troca
+    private final Object rebuildLock = new Object();
+    private List<MarketListingEvent> pendingDuringRebuild; // != null enquanto reconstrói
+
+    public MarketStatsService(MarketListingRepository listings,
+                              PokemonPriceStatsRepository summaries,
+                              ApplicationEventPublisher events) {
+        this.listings = listings;
+        this.summaries = summaries;
+        this.events = events;
+    }
+
+    /** Chave usada nos agregados e no checkpoint. */
+    public static String key(String pokemonName) {
+        return pokemonName == null ? "" : pokemonName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /* ===================== consulta ===================== */
+
+    /** Snapshot atual; cai no checkpoint se o rebuild inicial ainda não terminou. */
+    public Optional<PriceStatsView> statsFor(String pokemonName) {
+        String k = key(pokemonName);
+        if (k.isEmpty()) return Optional.empty();
+
+        Aggregate a = aggregates.get(k);
+        if (a != null) return Optional.of(a.snapshot);
+
+        return summaries.findById(k).map(MarketStatsService::fromSummary);
+    }
+
+    /**
+     * Preço de referência para avaliar coleções: mediana de 7 dias, senão a de
+     * 30 dias, senão o último preço de venda. Vazio se nunca foi vendido.
+     */
+    public Optional<BigDecimal> referencePrice(String pokemonName) {
+        return statsFor(pokemonName).map(v -> v.medianSale7d() != null ? v.medianSale7d()
+                : v.medianSale30d() != null ? v.medianSale30d()
+                : v.lastSalePrice());
+    }
+
+    /* ===================== atualização incremental ===================== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingEvent(MarketListingEvent e) {
+        synchronized (rebuildLock) {
+            if (pendingDuringRebuild != null) pendingDuringRebuild.add(e);
+        }
+        apply(aggregates, e);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingBatch(MarketListingBatchEvent batch) {
+        batch.events().forEach(this::onListingEvent);
+    }
+
+    private void apply(Map<String, Aggregate> target, MarketListingEvent e) {
+        switch (e.type()) {
+            case CREATED -> aggregate(target, e.pokemonName()).addAsk(e.listingId(), e.price());
+            case UPDATED -> {
+                String oldName = e.previousPokemonName() != null ? e.previousPokemonName() : e.pokemonName();
+                if (!key(oldName).equals(key(e.pokemonName()))) {
+                    aggregate(target, oldName).removeAsk(e.listingId());
+                    markDirty(target, oldName);
+                }
+                aggregate(target, e.pokemonName()).addAsk(e.listingId(), e.price());
+            }
+            case SOLD -> {
+                Aggregate a = aggregate(target, e.pokemonName());
+                a.removeAsk(e.listingId());
+                a.recordSale(e.listingId(), e.price(), e.at() != null ? e.at() : Instant.now());
+                if (target == aggregates) events.publishEvent(new ReferencePriceEvent(Set.of(key(e.pokemonName()))));
+            }
+            case CANCELED -> aggregate(target, e.pokemonName()).removeAsk(e.listingId());
+        }
+        markDirty(target, e.pokemonName());
+    }
+
+    private Aggregate aggregate(Map<String, Aggregate> target, String pokemonName) {
+        return target.computeIfAbsent(key(pokemonName), k -> new Aggregate(pokemonName.trim()));
+    }
+
+    private void markDirty(Map<String, Aggregate> target, String pokemonName) {
+        if (target == aggregates) dirty.add(key(pokemonName));
+    }
+
+    /* ===================== checkpoint / rebuild ===================== */
+
+    /** Grava no banco apenas os agregados que mudaram desde o último checkpoint. */
+    @Scheduled(fixedDelayString = "${app.market.stats.checkpoint-ms:30000}")
+    public void checkpoint() {
+        if (dirty.isEmpty()) return;
+
+        List<String> keys = new ArrayList<>(dirty);
+        dirty.removeAll(keys);
+
+        List<PokemonPriceStats> rows = new ArrayList<>(keys.size());
+        for (String k : keys) {
+            Aggregate a = aggregates.get(k);
+            if (a != null) rows.add(toSummary(k, a.refresh()));
+        }
+        try {
+            summaries.saveAll(rows);
+        } catch (RuntimeException ex) {
+            dirty.addAll(keys); // tenta de novo no próximo ciclo
+            log.warn("Falha ao gravar checkpoint de estatísticas: {}", ex.getMessage());
+        }
+    }
+
+    /** As janelas andam com o tempo, então de hora em hora recalcula os snapshots. */
+    @Scheduled(fixedDelayString = "${app.market.stats.expire-ms:3600000}")
+    public void expireWindows() {
+        Set<String> changed = new HashSet<>();
+        aggregates.forEach((k, a) -> {
+            if (a.expire(Instant.now())) changed.add(k);
+        });
+        dirty.addAll(changed);
+        if (!changed.isEmpty()) events.publishEvent(new ReferencePriceEvent(changed));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${app.market.stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /** Recalcula todos os agregados a partir do histórico de market_listings. */
+    public synchronized int rebuild() {
+        synchronized (rebuildLock) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+
+        Map<String, Aggregate> fresh = new HashMap<>();
+        try {
+            for (MarketListing m : listings.findByStatus(Status.ACTIVE)) {
+                aggregate(fresh, m.getPokemonName()).addAsk(m.getId(), m.getPrice());
+            }
+            Instant since = Instant.now().minus(WINDOW_LONG);
+            for (MarketListing m : listings.findByStatusAndSoldAtAfterOrderBySoldAtAsc(Status.SOLD, since)) {
+                aggregate(fresh, m.getPokemonName()).recordSale(m.getId(), m.getPrice(), m.getSoldAt());
+            }
+            // último preço de venda mesmo fora da janela
+            for (MarketListing m : listings.findLatestSalePerPokemon()) {
+                Aggregate a = aggregate(fresh, m.getPokemonName());
+                a.recordLastSale(m.getPrice(), m.getSoldAt());
+            }
+        } catch (RuntimeException ex) {
+            synchronized (rebuildLock) {
+                pendingDuringRebuild = null;
+            }
+            throw ex;
+        }
+
+        List<MarketListingEvent> replay;
+        synchronized (rebuildLock) {
+            replay = pendingDuringRebuild;
+            pendingDuringRebuild = null;
+            // as operações do Aggregate são idempotentes por listingId,
+            // então reaplicar um evento já refletido na consulta não duplica nada
+            for (MarketListingEvent e : replay) apply(fresh, e);
+
+            fresh.values().forEach(Aggregate::refresh);
+            aggregates.keySet().retainAll(fresh.keySet());
+            aggregates.putAll(fresh);
+            dirty.addAll(fresh.keySet());
+        }
+
+        deleteStaleSummaries();
+        events.publishEvent(new ReferencePriceEvent(Set.of()));
+        log.info("Estatísticas de mercado reconstruídas: {} Pokémon", fresh.size());
+        return fresh.size();
+    }
+
+    /**
+     * Linhas de pokemon_price_stats sem agregado (Pokémon sem anúncio nem
+     * venda): sem isso o statsFor cairia nelas com um menor preço velho.
+     */
+    private void deleteStaleSummaries() {
+        try {
+            List<String> stale = new ArrayList<>(summaries.findAllKeys());
+            stale.removeAll(aggregates.keySet());
+            if (!stale.isEmpty()) summaries.deleteAllByIdInBatch(stale);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao apagar estatísticas sem anúncios: {}", ex.getMessage()); // próximo rebuild tenta de novo
+        }
+    }
+
+    /* ===================== conversões ===================== */
+
+    private static PokemonPriceStats toSummary(String k, PriceStatsView v) {
+        PokemonPriceStats s = new PokemonPriceStats();
+        s.setPokemonKey(k);
+        s.setPokemonName(v.pokemonName());
+        s.setLowestAsk(v.lowestAsk());
+        s.setActiveCount(v.activeCount());
+        s.setLastSalePrice(v.lastSalePrice());
+        s.setLastSaleAt(v.lastSaleAt());
+        s.setMedianSale7d(v.medianSale7d());
+        s.setSales7d(v.sales7d());
+        s.setMedianSale30d(v.medianSale30d());
+        s.setSales30d(v.sales30d());
+        s.setUpdatedAt(v.updatedAt());
+        return s;
+    }
+
+    private static PriceStatsView fromSummary(PokemonPriceStats s) {
+        return new PriceStatsView(s.getPokemonName(), s.getLowestAsk(), s.getActiveCount(),
+                s.getLastSalePrice(), s.getLastSaleAt(),
+                s.getMedianSale7d(), s.getSales7d(),
+                s.getMedianSale30d(), s.getSales30d(), s.getUpdatedAt());
+    }
+
+    /* ===================== agregado por Pokémon ===================== */
+
+    private record Sale(Long listingId, BigDecimal price, Instant at) {}
+
+    private static final class Aggregate {
+        private final String displayName;
+        private final Map<Long, BigDecimal> activeByListing = new HashMap<>();
+        private final TreeMap<BigDecimal, Integer> askCounts = new TreeMap<>();
+        private final ArrayDeque<Sale> sales = new ArrayDeque<>(); // ordem de venda
+        private BigDecimal lastSalePrice;
+        private Instant lastSaleAt;
+
+        volatile PriceStatsView snapshot;
+
+        Aggregate(String displayName) {
+            this.displayName = displayName;
+            this.snapshot = new PriceStatsView(displayName, null, 0, null, null, null, 0, null, 0, Instant.now());
+        }
+
+        synchronized void addAsk(Long listingId, BigDecimal price) {
+            if (price == null) return;
+            BigDecimal old = activeByListing.put(listingId, price);
+            if (old != null) decrement(old);
+            askCounts.merge(price, 1, Integer::sum);
+            refresh();
+        }
+
+        synchronized void removeAsk(Long listingId) {
+            BigDecimal old = activeByListing.remove(listingId);
+            if (old == null) return;
+            decrement(old);
+            refresh();
+        }
+
+        synchronized void recordSale(Long listingId, BigDecimal price, Instant at) {
+            if (price == null || at == null) return;
+            for (Sale s : sales) {
+                if (s.listingId().equals(listingId)) return; // já contabilizada
+            }
+            sales.addLast(new Sale(listingId, price, at));
+            while (sales.size() > MAX_SALES_KEPT) sales.removeFirst();
+            recordLastSale(price, at);
+            refresh();
+        }
+
+        synchronized void recordLastSale(BigDecimal price, Instant at) {
+            if (lastSaleAt == null || !at.isBefore(lastSaleAt)) {
+                lastSaleAt = at;
+                lastSalePrice = price;
+            }
+        }
+
+        /** Remove vendas fora da janela longa; true se algo mudou. */
+        synchronized boolean expire(Instant now) {
+            PriceStatsView before = snapshot;
+            Instant limit = now.minus(WINDOW_LONG);
+            while (!sales.isEmpty() && sales.peekFirst().at().isBefore(limit)) {
+                sales.removeFirst();
+            }
+            // a janela curta pode ter mudado mesmo sem expirar nada da longa
+            PriceStatsView after = refresh();
+            return after.sales7d() != before.sales7d() || after.sales30d() != before.sales30d();
+        }
+
+        synchronized PriceStatsView refresh() {
+            Instant now = Instant.now();
+            Instant shortLimit = now.minus(WINDOW_SHORT);
+            Instant longLimit = now.minus(WINDOW_LONG);
+
+            List<BigDecimal> last7 = new ArrayList<>();
+            List<BigDecimal> last30 = new ArrayList<>();
+            for (Sale s : sales) {
+                if (s.at().isBefore(longLimit)) continue;
+                last30.add(s.price());
+                if (!s.at().isBefore(shortLimit)) last7.add(s.price());
+            }
+
+            snapshot = new PriceStatsView(
+                    displayName,
+                    askCounts.isEmpty() ? null : askCounts.firstKey(),
+                    activeByListing.size(),
+                    lastSalePrice,
+                    lastSaleAt,
+                    median(last7), last7.size(),
+                    median(last30), last30.size(),
+                    now
+            );
+            return snapshot;
+        }
+
+        private void decrement(BigDecimal price) {
+            askCounts.computeIfPresent(price, (p, c) -> c > 1 ? c - 1 : null);
+        }
+
+        private static BigDecimal median(List<BigDecimal> values) {
+            if (values.isEmpty()) return null;
+            Collections.sort(values);
+            int n = values.size();
+            if (n % 2 == 1) return values.get(n / 2);
+            return values.get(n / 2 - 1).add(values.get(n / 2))
+                    .divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+        }
+    }
+}
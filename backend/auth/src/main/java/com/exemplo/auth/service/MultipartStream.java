@@ -0,0 +1,232 @@
+package com.exemplo.auth.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Leitor de multipart/form-data em fluxo: entrega uma parte por vez, com o
+ * corpo como InputStream lido direto do request, sem arquivo temporário.
+ *
+ * Cada parte precisa ser lida (ou é descartada) antes de pedir a próxima.
+ * O delimitador é procurado num buffer fixo de 64 KB; só os últimos
+ * |delimitador|-1 bytes ficam retidos entre leituras.
+ */
+final class MultipartStream {
+
+    private static final int BUFFER = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+    private static final Pattern DISPOSITION_PARAM =
+            Pattern.compile(";\\s*(name|filename)\\s*=\\s*\"((?:[^\"\\\\]|\\\\.)*)\"", Pattern.CASE_INSENSITIVE);
+
+    /** Uma parte: cabeçalhos já lidos, corpo em {@link #body()}. */
+    record Part(String name, String filename, String contentType, InputStream body) {
+        boolean isFile() {
+            return filename != null;
+        }
+    }
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buf = new byte[BUFFER];
+    private int head;
+    private int tail;
+    /** posição do próximo delimitador em buf, -1 = não está no buffer, -2 = ainda não procurado. */
+    private int found = -2;
+
+    private PartBody current;
+    private boolean finished;
+
+    MultipartStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // o primeiro delimitador não tem CRLF antes; fingimos que tem
+        buf[0] = '\r';
+        buf[1] = '\n';
+        tail = 2;
+    }
+
+    /** Boundary do Content-Type, se for multipart/form-data. */
+    static Optional<String> boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return Optional.empty();
+        }
+        for (String param : contentType.split(";")) {
+            String p = param.trim();
+            if (p.toLowerCase(Locale.ROOT).startsWith("boundary=")) {
+                String b = p.substring("boundary=".length()).trim();
+                if (b.startsWith("\"") && b.endsWith("\"") && b.length() > 1) b = b.substring(1, b.length() - 1);
+                return b.isEmpty() || b.length() > 70 ? Optional.empty() : Optional.of(b);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Próxima parte, ou null no fim do corpo. */
+    Part next() throws IOException {
+        if (finished) return null;
+        if (current == null) {
+            new PartBody().skip(); // preâmbulo até o primeiro delimitador
+        } else {
+            current.skip();
+        }
+
+        int a = readByte();
+        int b = readByte();
+        if (a == '-' && b == '-') {
+            finished = true;
+            return null;
+        }
+        while (!(a == '\r' && b == '\n')) { // espaço de "transport padding"
+            if (b < 0) throw new IOException("multipart truncado");
+            a = b;
+            b = readByte();
+        }
+
+        List<String> headers = new ArrayList<>();
+        int headerBytes = 0;
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) throw new IOException("cabeçalhos de parte grandes demais");
+            char first = line.charAt(0);
+            if ((first == ' ' || first == '\t') && !headers.isEmpty()) {
+                // continuação dobrada (obs-fold): vira um espaço na linha anterior
+                int last = headers.size() - 1;
+                headers.set(last, headers.get(last) + " " + line.trim());
+            } else {
+                headers.add(line);
+            }
+        }
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        for (String line : headers) {
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+            String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (key.equals("content-disposition")) {
+                Matcher m = DISPOSITION_PARAM.matcher(value);
+                while (m.find()) {
+                    String v = m.group(2).replace("\\\"", "\"");
+                    if (m.group(1).equalsIgnoreCase("name")) name = v;
+                    else filename = v;
+                }
+            } else if (key.equals("content-type")) {
+                contentType = value;
+            }
+        }
+
+        current = new PartBody();
+        return new Part(name, filename, contentType, current);
+    }
+
+    /* ===================== buffer ===================== */
+
+    private boolean fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buf, head, buf, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        found = -2;
+        if (tail == buf.length) return true;
+        int n = in.read(buf, tail, buf.length - tail);
+        if (n < 0) return false;
+        tail += n;
+        return true;
+    }
+
+    private int readByte() throws IOException {
+        if (head == tail && (!fill() || head == tail)) return -1;
+        return buf[head++] & 0xff;
+    }
+
+    private String readLine() throws IOException {
+        byte[] line = new byte[256];
+        int n = 0;
+        while (true) {
+            int c = readByte();
+            if (c < 0) throw new IOException("multipart truncado");
+            if (c == '\n' && n > 0 && line[n - 1] == '\r') {
+                return new String(line, 0, n - 1, StandardCharsets.UTF_8);
+            }
+            if (n == line.length) {
+                if (n >= MAX_HEADER_BYTES) throw new IOException("cabeçalho de parte grande demais");
+                line = Arrays.copyOf(line, n * 2);
+            }
+            line[n++] = (byte) c;
+        }
+    }
+
+    private int delimiterAt() {
+        if (found == -2 || (found >= 0 && found < head)) {
+            found = indexOf(head);
+        }
+        return found;
+    }
+
+    private int indexOf(int from) {
+        byte first = delimiter[0];
+        int last = tail - delimiter.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buf[i] != first) continue;
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buf[i + j] != delimiter[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /** Corpo de uma parte: termina (-1) ao encontrar o delimitador, que é consumido. */
+    private final class PartBody extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) return -1;
+            if (len == 0) return 0;
+            while (true) {
+                int at = delimiterAt();
+                if (at == head) {
+                    head += delimiter.length;
+                    found = -2;
+                    done = true;
+                    return -1;
+                }
+                int available = at >= 0 ? at - head : tail - head - (delimiter.length - 1);
+                if (available > 0) {
+                    int n = Math.min(len, available);
+                    System.arraycopy(buf, head, b, off, n);
+                    head += n;
+                    return n;
+                }
+                if (!fill()) throw new IOException("multipart truncado");
+            }
+        }
+
+        void skip() throws IOException {
+            byte[] sink = new byte[8192];
+            while (read(sink, 0, sink.length) >= 0) {
+                // descarta
+            }
+        }
+    }
+}
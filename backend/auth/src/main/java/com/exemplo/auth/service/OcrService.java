@@ -3,83 +3,215 @@ package com.exemplo.auth.service;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
 import javax.imageio.ImageIO;
 
 @Service
 public class OcrService {
 
+    /** Janela e desconto do limiar adaptativo, na escala já ampliada. */
+    private static final int ADAPTIVE_BLOCK = 31;
+    private static final int ADAPTIVE_C = 10;
+
+    /** Modelos da passada de detecção de idioma (a única que roda dois). */
+    private static final String DETECT_LANGS = "eng+por";
+    private static final int MIN_MARKERS = 2;
+
+    // palavras do corpo da carta que só aparecem em um dos idiomas (sem acento, minúsculas)
+    private static final Set<String> POR_MARKERS = Set.of(
+            "fraqueza", "resistencia", "recuo", "ataque", "dano", "basico", "estagio", "evolui",
+            "treinador", "energia", "habilidade", "coloque", "descarte", "compre", "seu", "sua",
+            "oponente", "turno", "carta", "cartas", "mao", "baralho", "de", "do", "da");
+    private static final Set<String> ENG_MARKERS = Set.of(
+            "weakness", "resistance", "retreat", "attack", "damage", "basic", "stage", "evolves",
+            "trainer", "energy", "ability", "put", "discard", "draw", "your", "opponent",
+            "opponents", "turn", "card", "cards", "hand", "deck", "the", "this", "of");
+
+    // idioma no nome do arquivo: ..._PT-BR_55.png, ..._PTBR_131.jpg, ..._en.jpg
+    private static final Pattern POR_FILE_TAG = Pattern.compile("(?i)(^|[^a-z])(pt[-_ ]?br|por)([^a-z]|$)");
+    private static final Pattern ENG_FILE_TAG = Pattern.compile("(?i)(^|[^a-z])(en|eng)([^a-z]|$)");
+
+    /**
+     * Quem espera a leitura: no scan interativo o usuário está olhando a
+     * tela e vale o tessdata_fast; em lote, o tessdata_best (mais lento,
+     * erra menos).
+     */
+    public enum Latency {
+        INTERACTIVE, BULK;
+
+        /** Campo "latency" do scan; vazio = interativo. */
+        public static Latency parse(String raw) {
+            if (raw == null || raw.isBlank()) return INTERACTIVE;
+            return switch (raw.trim().toLowerCase(Locale.ROOT)) {
+                case "interactive" -> INTERACTIVE;
+                case "bulk" -> BULK;
+                default -> throw new IllegalArgumentException("latency deve ser interactive ou bulk");
+            };
+        }
+    }
+
+    /** Modelo(s) do Tesseract e perfil de uma leitura, resolvidos por {@link #options}. */
+    public record OcrOptions(String language, Latency latency) {}
+
     private final String tesseractPath;
     private final String tessdataPath;
+    private final String tessdataFast;
+    private final String tessdataBest;
     private final String languages;
+    private final boolean adaptiveThreshold;
 
     public OcrService(
             @Value("${app.ocr.tesseractPath}") String tesseractPath,
             @Value("${app.ocr.datapath}") String tessdataPath,
-            @Value("${app.ocr.lang:eng+por}") String languages
+            @Value("${app.ocr.tessdata-fast:}") String tessdataFast,
+            @Value("${app.ocr.tessdata-best:}") String tessdataBest,
+            @Value("${app.ocr.lang:eng}") String languages,
+            @Value("${app.ocr.binarize:otsu}") String binarize
     ) {
         this.tesseractPath = tesseractPath;
         this.tessdataPath = tessdataPath;
+        this.tessdataFast = tessdataFast;
+        this.tessdataBest = tessdataBest;
         this.languages = languages;
+        this.adaptiveThreshold = "adaptive".equalsIgnoreCase(binarize);
     }
 
+    /* ---------------- idioma ---------------- */
+
+    /**
+     * Fixa o idioma das próximas passadas. Com {@code hint} (pedido, pasta
+     * ou nome do arquivo), usa só ele, se o modelo estiver instalado. Sem
+     * hint, o app.ocr.lang de um modelo só é usado direto; só quando ele
+     * junta vários ("eng+por") vale a passada rápida com {@value #DETECT_LANGS}
+     * na caixa de texto da carta, que conta palavras de cada idioma. Sem
+     * veredito (ou sem o modelo), fica o app.ocr.lang.
+     */
+    public OcrOptions options(File image, String hint, Latency latency) {
+        String lang;
+        if (hint != null) {
+            lang = hint;
+        } else if (languages.contains("+") && hasModels(DETECT_LANGS)) {
+            lang = detectLanguage(image);
+        } else {
+            lang = null;
+        }
+        return new OcrOptions(lang != null && hasModels(lang) ? lang : languages, latency);
+    }
+
+    /** "por"/"eng" pelo texto do corpo da carta, ou null se não der para dizer. */
+    public String detectLanguage(File image) {
+        File box = null;
+        try {
+            box = ImagePreprocessor.cropDetectedTextBox(image);
+            String text = runTesseract(box != null ? box : image, DETECT_LANGS, Latency.INTERACTIVE,
+                    List.of("--psm", "6"));
+            return languageOf(text);
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            if (box != null) box.delete();
+        }
+    }
+
+    static String languageOf(String text) {
+        if (text == null) return null;
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        int por = 0;
+        int eng = 0;
+        for (String w : plain.split("[^a-z]+")) {
+            if (POR_MARKERS.contains(w)) por++;
+            if (ENG_MARKERS.contains(w)) eng++;
+        }
+        if (por >= MIN_MARKERS && por > eng) return "por";
+        if (eng >= MIN_MARKERS && eng > por) return "eng";
+        return null;
+    }
+
+    /** Idioma marcado no nome do arquivo enviado (PT-BR, PTBR, EN), ou null. */
+    public static String languageFromFileName(String fileName) {
+        if (fileName == null) return null;
+        boolean por = POR_FILE_TAG.matcher(fileName).find();
+        boolean eng = ENG_FILE_TAG.matcher(fileName).find();
+        return por == eng ? null : por ? "por" : "eng";
+    }
+
+    /** Idioma informado pelo cliente ("pt-br", "por", "en", "eng"), null se vazio. */
+    public static String normalizeLanguage(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        return switch (raw.trim().toLowerCase(Locale.ROOT).replace('_', '-')) {
+            case "por", "pt", "pt-br", "ptbr" -> "por";
+            case "eng", "en", "en-us", "en-gb" -> "eng";
+            default -> throw new IllegalArgumentException("idioma não suportado: " + raw);
+        };
+    }
+
+    /* ---------------- leitura ---------------- */
+
     /** OCR bruto (sem crop) – ainda utilizamos em algumas situações. */
-    public String extractText(File image) {
-        return runTesseract(image, languages, null);
+    public String extractText(File image, OcrOptions opts) {
+        return runTesseract(image, opts.language(), opts.latency(), null);
     }
 
     /** Tenta extrair **apenas o nome da carta**. */
 // OcrService.extractCardName(...)
-public String extractCardName(File fullImage) {
+public String extractCardName(File fullImage, OcrOptions opts) {
     try {
-        BufferedImage src = ImageIO.read(fullImage);
-        if (src == null) return null;
-
-        int w = src.getWidth();
-        int h = src.getHeight();
-
-        // Faixa do nome: top 18% com margem lateral
-        int topH = Math.max(40, (int) (h * 0.18));
-        int x = (int) (w * 0.06);
-        int cw = Math.min((int) (w * 0.88), w - x);
-
-        BufferedImage roi = src.getSubimage(x, 0, cw, topH);
-        BufferedImage pre = preprocess(roi);
+        // Carta achada na foto: retificada e recortada na posição exata do nome.
+        // Senão (ou se não sair nada), faixa fixa do topo, que supõe a carta ocupando a foto.
+        File detected = detectedTitleBand(fullImage);
+        if (detected != null) {
+            String name = nameFromBand(detected, opts);
+            if (name != null) return name;
+        }
+        File fixed = fixedTitleBand(fullImage);
+        return fixed == null ? null : nameFromBand(fixed, opts);
+    } catch (Exception e) {
+        throw new RuntimeException("Falha no OCR (nome)", e);
+    }
+}
 
-        // Experimente 2 PSMs (linha única e poucas linhas) e escolha o "melhor" por comprimento/letras
-        List<String> candidates = new ArrayList<>();
-        candidates.add(runTesseract(writeTemp(pre), languages, List.of("--psm", "7",
+/** OCR da faixa do nome (o arquivo é apagado no fim). */
+private String nameFromBand(File band, OcrOptions opts) throws Exception {
+    // Experimente 2 PSMs (linha única e poucas linhas) e escolha o "melhor" por comprimento/letras
+    List<String> candidates = new ArrayList<>();
+    try {
+        candidates.add(runTesseract(band, opts.language(), opts.latency(), List.of("--psm", "7",
                 "-c", "tessedit_char_whitelist=ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz' -",
                 "-c", "preserve_interword_spaces=1")));
-        candidates.add(runTesseract(writeTemp(pre), languages, List.of("--psm", "6",
+        candidates.add(runTesseract(band, opts.language(), opts.latency(), List.of("--psm", "6",
                 "-c", "tessedit_char_whitelist=ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz' -",
                 "-c", "preserve_interword_spaces=1")));
+    } finally {
+        Files.deleteIfExists(band.toPath());
+    }
 
-        // Normaliza e ranqueia por "quantidade de letras" (heurística simples)
-        String best = null;
-        int bestScore = -1;
-        for (String raw : candidates) {
-            String cleaned = normalizeText(raw);
-            if (cleaned == null || cleaned.isBlank()) continue;
-            int letters = cleaned.replaceAll("[^A-Za-z]", "").length();
-            if (letters > bestScore) {
-                bestScore = letters;
-                best = cleaned;
-            }
+    // Normaliza e ranqueia por "quantidade de letras" (heurística simples)
+    String best = null;
+    int bestScore = -1;
+    for (String raw : candidates) {
+        String cleaned = normalizeText(raw);
+        if (cleaned == null || cleaned.isBlank()) continue;
+        int letters = cleaned.replaceAll("[^A-Za-z]", "").length();
+        if (letters > bestScore) {
+            bestScore = letters;
+            best = cleaned;
         }
-
-        if (best != null && best.length() >= 2) best = toTitleWord(best);
-        return best;
-    } catch (Exception e) {
-        throw new RuntimeException("Falha no OCR (nome)", e);
     }
+
+    if (best != null && best.length() >= 2) best = toTitleWord(best);
+    return best;
 }
 
 
@@ -99,27 +231,48 @@ private String normalizeCandidate(String s) {
 
     /* ---------------- helpers ---------------- */
 
-    private BufferedImage preprocess(BufferedImage img) {
-        // escala 2×
-        int nw = img.getWidth() * 2;
-        int nh = img.getHeight() * 2;
-        BufferedImage scaled = new BufferedImage(nw, nh, BufferedImage.TYPE_BYTE_GRAY);
-        Graphics2D g = scaled.createGraphics();
-        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g.drawImage(img, 0, 0, nw, nh, null);
-        g.dispose();
+    private File detectedTitleBand(File fullImage) {
+        try {
+            return ImagePreprocessor.cropDetectedTitleBand(fullImage);
+        } catch (IllegalArgumentException unreadable) {
+            return null; // OpenCV não leu; o ImageIO ainda pode ler
+        }
+    }
 
-        // binarização simples (threshold global)
-        BufferedImage bin = new BufferedImage(nw, nh, BufferedImage.TYPE_BYTE_BINARY);
-        Graphics g2 = bin.getGraphics();
-        g2.drawImage(scaled, 0, 0, null);
-        g2.dispose();
+    private File fixedTitleBand(File fullImage) throws Exception {
+        BufferedImage src = ImageIO.read(fullImage);
+        if (src == null) return null;
 
-        return bin;
+        int w = src.getWidth();
+        int h = src.getHeight();
+
+        // Faixa do nome: top 18% com margem lateral
+        int topH = Math.max(40, (int) (h * 0.18));
+        int x = (int) (w * 0.06);
+        int cw = Math.min((int) (w * 0.88), w - x);
+
+        BufferedImage roi = src.getSubimage(x, 0, cw, Math.min(topH, h));
+        return writeTemp(preprocess(roi));
+    }
+
+    /**
+     * Cinza, escala 2× e binarização direto nos pixels ({@link PixelKernels}),
+     * com nível de Otsu (ou média local, se app.ocr.binarize=adaptive) em vez
+     * do corte fixo que o TYPE_BYTE_BINARY fazia.
+     */
+    private BufferedImage preprocess(BufferedImage img) {
+        PixelKernels k = PixelKernels.DEFAULT;
+        int w = img.getWidth();
+        int h = img.getHeight();
+        byte[] scaled = k.upscale2x(k.grayscale(img), w, h);
+        byte[] bin = adaptiveThreshold
+                ? k.binarizeAdaptive(scaled, w * 2, h * 2, ADAPTIVE_BLOCK, ADAPTIVE_C)
+                : k.binarizeOtsu(scaled, w * 2, h * 2);
+        return PixelKernels.toImage(bin, w * 2, h * 2);
     }
 
     private File writeTemp(BufferedImage img) throws Exception {
-        File tmp = File.createTempFile("ocr_name_", ".png");
+        File tmp = StoragePaths.newScratchFile("ocr_name_", ".png");
         ImageIO.write(img, "png", tmp);
         return tmp;
     }
@@ -146,7 +299,37 @@ private String normalizeCandidate(String s) {
         return b.toString().trim();
     }
 
-    private String runTesseract(File image, String langs, List<String> extraArgs) {
+    /**
+     * Primeira pasta de traineddata com todos os modelos pedidos: a do
+     * perfil, a app.ocr.datapath e a do outro perfil, nessa ordem. Sem
+     * nenhuma, a datapath (o Tesseract acusa o modelo que faltar).
+     */
+    private String tessdataFor(String langs, Latency latency) {
+        List<String> dirs = latency == Latency.BULK
+                ? List.of(tessdataBest, tessdataPath, tessdataFast)
+                : List.of(tessdataFast, tessdataPath, tessdataBest);
+        for (String dir : dirs) {
+            if (hasModels(dir, langs)) return dir;
+        }
+        return tessdataPath;
+    }
+
+    /** Algum diretório configurado tem todos os modelos; sem datapath, confia no padrão do Tesseract. */
+    private boolean hasModels(String langs) {
+        if (tessdataPath == null || tessdataPath.isBlank()) return true;
+        return hasModels(tessdataPath, langs) || hasModels(tessdataFast, langs) || hasModels(tessdataBest, langs);
+    }
+
+    private static boolean hasModels(String dir, String langs) {
+        if (dir == null || dir.isBlank()) return false;
+        for (String l : langs.split("\\+")) {
+            if (!Files.isRegularFile(Path.of(dir, l + ".traineddata"))) return false;
+        }
+        return true;
+    }
+
+    private String runTesseract(File image, String langs, Latency latency, List<String> extraArgs) {
+    String tessdata = tessdataFor(langs, latency);
     try {
         List<String> cmd = new ArrayList<>();
         cmd.add(tesseractPath);
@@ -156,18 +339,18 @@ private String normalizeCandidate(String s) {
         cmd.add("--dpi"); cmd.add("300");
 
         // >>> garanta o caminho do tessdata
-        if (tessdataPath != null && !tessdataPath.isBlank()) {
+        if (tessdata != null && !tessdata.isBlank()) {
             cmd.add("--tessdata-dir");            // funciona bem no Windows
-            cmd.add(tessdataPath);
+            cmd.add(tessdata);
         }
 
         if (extraArgs != null) cmd.addAll(extraArgs);
 
         ProcessBuilder pb = new ProcessBuilder(cmd);
-        if (tessdataPath != null && !tessdataPath.isBlank()) {
+        if (tessdata != null && !tessdata.isBlank()) {
             // opcional, mas ajuda em algumas instalações
-            String prefix = tessdataPath.endsWith("\\") || tessdataPath.endsWith("/") ?
-                    tessdataPath.substring(0, tessdataPath.length()-1) : tessdataPath;
+            String prefix = tessdata.endsWith("\\") || tessdata.endsWith("/") ?
+                    tessdata.substring(0, tessdata.length()-1) : tessdata;
             pb.environment().put("TESSDATA_PREFIX", new File(prefix).getParent());
         }
         pb.redirectErrorStream(true);
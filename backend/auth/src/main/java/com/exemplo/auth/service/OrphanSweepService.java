@@ -0,0 +1,274 @@
+package com.exemplo.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Coleta de lixo dos arquivos de imagem: rede de segurança para o que o
+ * {@link FileReclaimService} não viu (linhas apagadas antes da fila existir,
+ * processo derrubado no meio de um upload, rascunhos do OCR).
+ *
+ * Marcação e varredura incrementais: a cada rodada uma página de
+ * app.storage.gc.page-size arquivos de data/users, data/blobs e data/derived
+ * (nesta ordem, cada pasta em ordem de nome, retomando do último arquivo
+ * visto). Para a página inteira, as formas possíveis do imagePath vão numa
+ * consulta IN por tabela (cartas, anúncios, mensagens, avatares); o que
+ * ninguém referencia e é mais velho que a carência é apagado, junto com as
+ * miniaturas. Miniatura cujo original não é referenciado também sai.
+ *
+ * A carência (app.storage.gc.grace-hours) cobre o intervalo entre gravar o
+ * blob e a linha chegar ao banco; o BlobStore renova o mtime quando um
+ * upload repetido reaproveita um blob existente.
+ *
+ * Ao fim de cada passada, os rascunhos mais velhos que uma hora são
+ * removidos: data/tmp, data/blobs/tmp, data/derived/tmp e os ocr_name_ /
+ * title_ que versões antigas deixavam no temp do sistema.
+ *
+ * Só começa depois que o {@link StorageMigrationService} passou todos os
+ * imagePath para a forma /files/...: um caminho absoluto antigo não estaria
+ * entre as formas consultadas e o arquivo sairia como órfão.
+ *
+ * O ritmo é limitado pela página e pelo intervalo entre rodadas, para não
+ * disputar disco e banco com as requisições.
+ */
+@Service
+public class OrphanSweepService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanSweepService.class);
+
+    private static final List<String> ROOTS =
+            List.of("users", BlobStore.BLOB_DIR, ImageDerivativeService.DERIVED_DIR);
+    private static final Duration SCRATCH_GRACE = Duration.ofHours(1);
+    private static final List<String> LEGACY_TEMP_PREFIXES = List.of("ocr_name_", "title_");
+
+    private final FileReclaimService reclaim;
+    private final BlobStore blobs;
+    private final StorageMigrationService migration;
+
+    @Value("${app.storage.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.storage.gc.page-size:200}")
+    private int pageSize;
+
+    @Value("${app.storage.gc.grace-hours:24}")
+    private long graceHours;
+
+    /** Posição da passada: pasta atual e último arquivo visto (segmentos do caminho). */
+    private int rootIndex;
+    private List<String> cursor;
+    private long scanned;
+    private long deleted;
+    private long freedBytes;
+
+    public OrphanSweepService(FileReclaimService reclaim, BlobStore blobs, StorageMigrationService migration) {
+        this.reclaim = reclaim;
+        this.blobs = blobs;
+        this.migration = migration;
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.gc.interval-ms:15000}",
+               fixedDelayString = "${app.storage.gc.interval-ms:15000}")
+    public synchronized void step() {
+        if (!enabled || !migration.pathsNormalized()) return;
+        try {
+            if (rootIndex >= ROOTS.size()) {
+                int scratch = sweepScratch();
+                log.info("[gc] passada completa: {} arquivos vistos, {} apagados ({} MB), {} rascunhos",
+                        scanned, deleted, freedBytes / (1024 * 1024), scratch);
+                rootIndex = 0;
+                cursor = null;
+                scanned = deleted = freedBytes = 0;
+                return;
+            }
+
+            Path root = StoragePaths.dataRoot().resolve(ROOTS.get(rootIndex));
+            List<Path> page = Files.isDirectory(root) ? page(root, cursor, pageSize) : List.of();
+            sweep(page);
+            if (page.size() < pageSize) {
+                rootIndex++;
+                cursor = null;
+            } else {
+                cursor = segments(root.relativize(page.get(page.size() - 1)));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("[gc] rodada interrompida: {}", e.getMessage());
+        }
+    }
+
+    /* ===================== marcação e varredura ===================== */
+
+    private record Candidate(Path file, String owner, long size) {}
+
+    private void sweep(List<Path> page) throws IOException {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+        Map<Path, Candidate> candidates = new LinkedHashMap<>();
+        Set<String> aliases = new HashSet<>();
+        for (Path f : page) {
+            scanned++;
+            String owner = ownerOf(f);
+            if (owner == null) continue;
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(f, BasicFileAttributes.class);
+            } catch (NoSuchFileException gone) {
+                continue;
+            }
+            if (attrs.lastModifiedTime().toInstant().isAfter(cutoff)) continue;
+            candidates.put(f, new Candidate(f, owner, attrs.size()));
+            aliases.addAll(StoragePaths.aliases(owner));
+        }
+        if (candidates.isEmpty()) return;
+
+        Set<String> referenced = reclaim.referencedAmong(aliases);
+        for (Candidate c : candidates.values()) {
+            if (StoragePaths.aliases(c.owner()).stream().anyMatch(referenced::contains)) continue;
+            try {
+                boolean removed;
+                if (isDerived(c.file())) {
+                    removed = Files.deleteIfExists(c.file());
+                } else {
+                    removed = blobs.delete(c.owner()) | Files.deleteIfExists(c.file());
+                    for (Path d : ImageDerivativeService.derivativesOf(c.file())) Files.deleteIfExists(d);
+                }
+                if (removed) {
+                    deleted++;
+                    freedBytes += c.size();
+                }
+            } catch (IOException e) {
+                log.warn("[gc] não foi possível apagar {}: {}", c.file(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * imagePath que mantém o arquivo vivo: o próprio arquivo, ou o original
+     * no caso de uma miniatura. Null para rascunhos (tratados à parte).
+     */
+    static String ownerOf(Path file) {
+        String rel = StoragePaths.dataRoot().relativize(file.toAbsolutePath().normalize())
+                .toString().replace('\\', '/');
+        if (rel.contains("/" + StoragePaths.SCRATCH_DIR + "/")) return null;
+        String derivedPrefix = ImageDerivativeService.DERIVED_DIR + "/";
+        if (!rel.startsWith(derivedPrefix)) return StoragePaths.PUBLIC_PREFIX + rel;
+
+        // derived/<largura>/<original>.webp
+        String rest = rel.substring(derivedPrefix.length());
+        int slash = rest.indexOf('/');
+        if (slash < 0 || !rest.endsWith(".webp")) return null;
+        return StoragePaths.PUBLIC_PREFIX + rest.substring(slash + 1, rest.length() - ".webp".length());
+    }
+
+    private static boolean isDerived(Path file) {
+        return file.toAbsolutePath().normalize()
+                .startsWith(StoragePaths.dataRoot().resolve(ImageDerivativeService.DERIVED_DIR));
+    }
+
+    /* ===================== rascunhos ===================== */
+
+    private int sweepScratch() throws IOException {
+        Instant cutoff = Instant.now().minus(SCRATCH_GRACE);
+        Path data = StoragePaths.dataRoot();
+        int n = 0;
+        for (Path dir : List.of(data.resolve(StoragePaths.SCRATCH_DIR),
+                BlobStore.blobRoot().resolve(StoragePaths.SCRATCH_DIR),
+                data.resolve(ImageDerivativeService.DERIVED_DIR).resolve(StoragePaths.SCRATCH_DIR))) {
+            n += deleteOlder(dir, cutoff, name -> true);
+        }
+        // versões antigas gravavam os recortes do OCR no temp do sistema e não apagavam
+        n += deleteOlder(Paths.get(System.getProperty("java.io.tmpdir")), cutoff,
+                name -> name.endsWith(".png") && LEGACY_TEMP_PREFIXES.stream().anyMatch(name::startsWith));
+        return n;
+    }
+
+    private static int deleteOlder(Path dir, Instant cutoff, Predicate<String> name) throws IOException {
+        if (!Files.isDirectory(dir)) return 0;
+        int n = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path f : entries) {
+                if (!Files.isRegularFile(f, LinkOption.NOFOLLOW_LINKS) || !name.test(f.getFileName().toString())) continue;
+                try {
+                    if (Files.getLastModifiedTime(f).toInstant().isBefore(cutoff) && Files.deleteIfExists(f)) n++;
+                } catch (NoSuchFileException gone) {
+                    // apagado por quem criou
+                }
+            }
+        }
+        return n;
+    }
+
+    /* ===================== paginação ===================== */
+
+    /**
+     * Até {@code limit} arquivos depois de {@code after}, em profundidade e
+     * em ordem de nome dentro de cada pasta. Subárvores inteiramente antes
+     * do cursor nem são listadas.
+     */
+    static List<Path> page(Path root, List<String> after, int limit) throws IOException {
+        List<Path> out = new ArrayList<>(limit);
+        collect(root, List.of(), after, limit, out);
+        return out;
+    }
+
+    private static void collect(Path dir, List<String> prefix, List<String> after, int limit, List<Path> out)
+            throws IOException {
+        List<Path> children;
+        try (Stream<Path> list = Files.list(dir)) {
+            children = list.sorted(Comparator.comparing(p -> p.getFileName().toString())).toList();
+        } catch (NoSuchFileException gone) {
+            return;
+        }
+        for (Path c : children) {
+            if (out.size() >= limit) return;
+            List<String> segs = new ArrayList<>(prefix);
+            segs.add(c.getFileName().toString());
+            if (Files.isDirectory(c, LinkOption.NOFOLLOW_LINKS)) {
+                if (after != null && compare(segs, after) < 0 && !isPrefix(segs, after)) continue;
+                collect(c, segs, after, limit, out);
+            } else if (after == null || compare(segs, after) > 0) {
+                out.add(c);
+            }
+        }
+    }
+
+    private static List<String> segments(Path rel) {
+        List<String> out = new ArrayList<>();
+        for (Path p : rel) out.add(p.toString());
+        return out;
+    }
+
+    private static int compare(List<String> a, List<String> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int c = a.get(i).compareTo(b.get(i));
+            if (c != 0) return c;
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> of) {
+        return prefix.size() <= of.size() && prefix.equals(of.subList(0, prefix.size()));
+    }
+}
@@ -0,0 +1,405 @@
+package com.exemplo.auth.service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Pré-processamento do OCR direto nos arrays de pixels, sem passar pelo
+ * Graphics2D: cinza (8 bits, w*h), ampliação 2x, Otsu e limiar adaptativo
+ * pela média da vizinhança.
+ *
+ * Os laços quentes usam o Vector API (VectorPixelKernels, em src/vector)
+ * quando a JVM sobe com --add-modules jdk.incubator.vector (o build.gradle
+ * já passa a flag no bootRun e nos testes); sem ela, o mesmo cálculo roda
+ * escalar e o resultado é idêntico. A classe é compilada à parte e chamada
+ * por MethodHandle, para o compile principal não depender do módulo
+ * incubado. Imagens acima de {@value #PARALLEL_MIN_PIXELS}
+ * pixels são cortadas em faixas de linhas e processadas no ForkJoinPool
+ * comum; a faixa do nome de uma carta fica abaixo disso e roda numa thread.
+ */
+public final class PixelKernels {
+
+    static final int PARALLEL_MIN_PIXELS = 1 << 20;
+    private static final int TILE_PIXELS = 1 << 16;
+
+    private static final String VECTOR_KERNELS = "com.exemplo.auth.service.VectorPixelKernels";
+
+    /** Laços SIMD; todos null sem o módulo, sem a classe ou em máquina de 128 bits. */
+    private static final MethodHandle SIMD_GRAY;
+    private static final MethodHandle SIMD_THRESHOLD;
+    private static final MethodHandle SIMD_ADAPTIVE_ROW;
+
+    static {
+        MethodHandle gray = null;
+        MethodHandle threshold = null;
+        MethodHandle adaptiveRow = null;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                Class<?> k = Class.forName(VECTOR_KERNELS);
+                MethodHandle usable = lookup.findStatic(k, "usable", MethodType.methodType(boolean.class));
+                if ((boolean) usable.invokeExact()) {
+                    gray = lookup.findStatic(k, "grayscale", MethodType.methodType(int.class,
+                            int[].class, int.class, byte[].class, int.class, int.class));
+                    threshold = lookup.findStatic(k, "threshold", MethodType.methodType(int.class,
+                            byte[].class, byte[].class, int.class, int.class, int.class));
+                    adaptiveRow = lookup.findStatic(k, "adaptiveRow", MethodType.methodType(int.class,
+                            byte[].class, byte[].class, int.class, int[].class, int[].class, int.class, int.class, int.class));
+                }
+            } catch (Throwable e) { // classe fora do classpath, LinkageError do módulo: fica escalar
+                gray = threshold = adaptiveRow = null;
+            }
+        }
+        SIMD_GRAY = gray;
+        SIMD_THRESHOLD = threshold;
+        SIMD_ADAPTIVE_ROW = adaptiveRow;
+    }
+
+    private static final boolean SIMD_AVAILABLE = SIMD_GRAY != null && SIMD_THRESHOLD != null && SIMD_ADAPTIVE_ROW != null;
+
+    /** SIMD quando disponível e fork/join nas imagens grandes: o que o OCR usa. */
+    public static final PixelKernels DEFAULT = new PixelKernels(true, true);
+    /** Referência do benchmark: laços escalares numa thread. */
+    public static final PixelKernels SCALAR = new PixelKernels(false, false);
+
+    private final boolean simd;
+    private final boolean parallel;
+
+    private PixelKernels(boolean simd, boolean parallel) {
+        this.simd = simd && SIMD_AVAILABLE;
+        this.parallel = parallel;
+    }
+
+    public static PixelKernels of(boolean simd, boolean parallel) {
+        return new PixelKernels(simd, parallel);
+    }
+
+    public static boolean simdAvailable() {
+        return SIMD_AVAILABLE;
+    }
+
+    public boolean usesSimd() {
+        return simd;
+    }
+
+    /* ===================== cinza ===================== */
+
+    /**
+     * Luma 8 bits, linha a linha, sem cópia intermediária: lê o buffer
+     * direto quando a imagem é INT_RGB/ARGB ou BGR intercalado (o que o
+     * ImageIO devolve para JPEG/PNG, inclusive de getSubimage); qualquer
+     * outro formato passa por getRGB, uma linha por vez.
+     */
+    public byte[] grayscale(BufferedImage img) {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        byte[] out = new byte[w * h];
+        Raster r = img.getRaster();
+        int tx = -r.getSampleModelTranslateX();
+        int ty = -r.getSampleModelTranslateY();
+
+        if (r.getDataBuffer() instanceof DataBufferInt db && r.getSampleModel() instanceof SinglePixelPackedSampleModel sm
+                && (img.getType() == BufferedImage.TYPE_INT_RGB || img.getType() == BufferedImage.TYPE_INT_ARGB)) {
+            int[] px = db.getData();
+            int stride = sm.getScanlineStride();
+            int base = db.getOffset();
+            forRows(w, h, (y0, y1) -> {
+                for (int y = y0; y < y1; y++) grayRow(px, base + (y + ty) * stride + tx, out, y * w, w);
+            });
+        } else if (r.getDataBuffer() instanceof DataBufferByte db && r.getSampleModel() instanceof ComponentSampleModel sm
+                && (img.getType() == BufferedImage.TYPE_3BYTE_BGR || img.getType() == BufferedImage.TYPE_4BYTE_ABGR)) {
+            byte[] px = db.getData();
+            int stride = sm.getScanlineStride();
+            int step = sm.getPixelStride();
+            int[] offs = sm.getBandOffsets(); // R, G, B(, A) dentro do pixel
+            int base = db.getOffset();
+            forRows(w, h, (y0, y1) -> {
+                for (int y = y0; y < y1; y++) {
+                    int p = base + (y + ty) * stride + tx * step;
+                    int o = y * w;
+                    for (int x = 0; x < w; x++, p += step) {
+                        out[o + x] = (byte) luma(px[p + offs[0]] & 0xff, px[p + offs[1]] & 0xff, px[p + offs[2]] & 0xff);
+                    }
+                }
+            });
+        } else {
+            forRows(w, h, (y0, y1) -> {
+                int[] row = new int[w];
+                for (int y = y0; y < y1; y++) {
+                    img.getRGB(0, y, w, 1, row, 0, w);
+                    grayRow(row, 0, out, y * w, w);
+                }
+            });
+        }
+        return out;
+    }
+
+    private void grayRow(int[] rgb, int src, byte[] out, int dst, int n) {
+        int x = simd ? simdGray(rgb, src, out, dst, n) : 0;
+        for (; x < n; x++) {
+            int p = rgb[src + x];
+            out[dst + x] = (byte) luma((p >>> 16) & 0xff, (p >>> 8) & 0xff, p & 0xff);
+        }
+    }
+
+    private static int luma(int r, int g, int b) {
+        return (77 * r + 150 * g + 29 * b + 128) >> 8;
+    }
+
+    /* ===================== ampliação ===================== */
+
+    /** 2x bilinear: pixels pares copiam, ímpares são a média dos vizinhos. */
+    public byte[] upscale2x(byte[] gray, int w, int h) {
+        int nw = w * 2;
+        byte[] out = new byte[nw * h * 2];
+        forRows(w, h, (y0, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                int src = y * w;
+                int below = (y + 1 < h ? y + 1 : y) * w;
+                int even = 2 * y * nw;
+                int odd = even + nw;
+                for (int x = 0; x < w; x++) {
+                    int xr = x + 1 < w ? x + 1 : x;
+                    int a = gray[src + x] & 0xff;
+                    int b = gray[src + xr] & 0xff;
+                    int c = gray[below + x] & 0xff;
+                    int d = gray[below + xr] & 0xff;
+                    out[even + 2 * x] = (byte) a;
+                    out[even + 2 * x + 1] = (byte) ((a + b + 1) >> 1);
+                    out[odd + 2 * x] = (byte) ((a + c + 1) >> 1);
+                    out[odd + 2 * x + 1] = (byte) ((a + b + c + d + 2) >> 2);
+                }
+            }
+        });
+        return out;
+    }
+
+    /* ===================== limiar global (Otsu) ===================== */
+
+    public int[] histogram(byte[] gray, int w, int h) {
+        int tiles = tileCount(w, h);
+        int[][] parts = new int[tiles][];
+        int rowsPerTile = rowsPerTile(w, h);
+        forTiles(tiles, k -> {
+            // quatro histogramas intercalados: pixels iguais seguidos não esperam o mesmo contador
+            int[] h0 = new int[256], h1 = new int[256], h2 = new int[256], h3 = new int[256];
+            int from = k * rowsPerTile * w;
+            int to = Math.min(h, (k + 1) * rowsPerTile) * w;
+            int i = from;
+            for (; i + 3 < to; i += 4) {
+                h0[gray[i] & 0xff]++;
+                h1[gray[i + 1] & 0xff]++;
+                h2[gray[i + 2] & 0xff]++;
+                h3[gray[i + 3] & 0xff]++;
+            }
+            for (; i < to; i++) h0[gray[i] & 0xff]++;
+            for (int v = 0; v < 256; v++) h0[v] += h1[v] + h2[v] + h3[v];
+            parts[k] = h0;
+        });
+        int[] hist = new int[256];
+        for (int[] p : parts) for (int v = 0; v < 256; v++) hist[v] += p[v];
+        return hist;
+    }
+
+    /** Nível que maximiza a variância entre as classes; pixels &gt; nível são fundo claro. */
+    public static int otsuThreshold(int[] hist) {
+        long total = 0;
+        double sum = 0;
+        for (int v = 0; v < 256; v++) {
+            total += hist[v];
+            sum += (double) v * hist[v];
+        }
+        long below = 0;
+        double sumBelow = 0;
+        double best = -1;
+        int level = 127;
+        for (int t = 0; t < 256; t++) {
+            below += hist[t];
+            if (below == 0) continue;
+            long above = total - below;
+            if (above == 0) break;
+            sumBelow += (double) t * hist[t];
+            double mb = sumBelow / below;
+            double ma = (sum - sumBelow) / above;
+            double between = (double) below * above * (mb - ma) * (mb - ma);
+            if (between > best) {
+                best = between;
+                level = t;
+            }
+        }
+        return level;
+    }
+
+    public byte[] threshold(byte[] gray, int w, int h, int level) {
+        byte[] out = new byte[gray.length];
+        forRows(w, h, (y0, y1) -> {
+            int from = y0 * w;
+            int to = y1 * w;
+            int i = simd ? simdThreshold(gray, out, from, to, level) : from;
+            for (; i < to; i++) out[i] = (gray[i] & 0xff) > level ? (byte) 255 : 0;
+        });
+        return out;
+    }
+
+    public byte[] binarizeOtsu(byte[] gray, int w, int h) {
+        return threshold(gray, w, h, otsuThreshold(histogram(gray, w, h)));
+    }
+
+    /* ===================== limiar adaptativo ===================== */
+
+    /**
+     * 255 onde o pixel passa da média da janela {@code block}x{@code block}
+     * menos {@code c} (o ADAPTIVE_THRESH_MEAN_C do OpenCV, com a janela
+     * encolhida nas bordas). Aguenta sombra e reflexo que um nível global
+     * não aguenta. Somas separáveis: horizontal por linha e depois uma
+     * soma corrida vertical, sem imagem integral de 64 bits.
+     */
+    public byte[] binarizeAdaptive(byte[] gray, int w, int h, int block, int c) {
+        if (block < 3 || block % 2 == 0) throw new IllegalArgumentException("janela deve ser ímpar e >= 3");
+        int r = block / 2;
+        int[] rowSums = new int[w * h];
+        int[] counts = new int[w];
+        for (int x = 0; x < w; x++) counts[x] = Math.min(w - 1, x + r) - Math.max(0, x - r) + 1;
+
+        forRows(w, h, (y0, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                int o = y * w;
+                int s = 0;
+                for (int x = 0; x <= Math.min(r, w - 1); x++) s += gray[o + x] & 0xff;
+                for (int x = 0; x < w; x++) {
+                    rowSums[o + x] = s;
+                    int in = x + r + 1;
+                    int outX = x - r;
+                    if (in < w) s += gray[o + in] & 0xff;
+                    if (outX >= 0) s -= gray[o + outX] & 0xff;
+                }
+            }
+        });
+
+        byte[] out = new byte[gray.length];
+        forRows(w, h, (y0, y1) -> {
+            // cada faixa monta a própria soma vertical a partir da sua primeira linha
+            int[] sums = new int[w];
+            int top = Math.max(0, y0 - r);
+            int bottom = Math.min(h - 1, y0 + r);
+            for (int y = top; y <= bottom; y++) addRow(sums, rowSums, y * w, w, 1);
+            for (int y = y0; y < y1; y++) {
+                int rows = Math.min(h - 1, y + r) - Math.max(0, y - r) + 1;
+                int o = y * w;
+                int x = simd ? simdAdaptiveRow(gray, out, o, sums, counts, rows, c, w) : 0;
+                for (; x < w; x++) {
+                    int area = counts[x] * rows;
+                    out[o + x] = (gray[o + x] & 0xff) * area > sums[x] - c * area ? (byte) 255 : 0;
+                }
+                if (y + r + 1 < h) addRow(sums, rowSums, (y + r + 1) * w, w, 1);
+                if (y - r >= 0) addRow(sums, rowSums, (y - r) * w, w, -1);
+            }
+        });
+        return out;
+    }
+
+    private static void addRow(int[] sums, int[] rowSums, int off, int w, int sign) {
+        for (int x = 0; x < w; x++) sums[x] += sign * rowSums[off + x];
+    }
+
+    /* ===================== saída ===================== */
+
+    /** Cinza (ou 0/255) como TYPE_BYTE_GRAY, pronto para o ImageIO gravar em PNG. */
+    public static BufferedImage toImage(byte[] gray, int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] dst = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        System.arraycopy(gray, 0, dst, 0, w * h);
+        return img;
+    }
+
+    /* ===================== fork/join ===================== */
+
+    private interface RowRange {
+        void run(int y0, int y1);
+    }
+
+    private interface Tile {
+        void run(int k);
+    }
+
+    private void forRows(int w, int h, RowRange body) {
+        int rowsPerTile = rowsPerTile(w, h);
+        forTiles(tileCount(w, h), k -> body.run(k * rowsPerTile, Math.min(h, (k + 1) * rowsPerTile)));
+    }
+
+    private void forTiles(int tiles, Tile body) {
+        if (tiles == 1) {
+            body.run(0);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new Tiles(body, 0, tiles));
+    }
+
+    private int tileCount(int w, int h) {
+        int rows = rowsPerTile(w, h);
+        return (h + rows - 1) / rows;
+    }
+
+    private int rowsPerTile(int w, int h) {
+        if (!parallel || (long) w * h < PARALLEL_MIN_PIXELS) return Math.max(1, h);
+        return Math.max(1, TILE_PIXELS / Math.max(1, w));
+    }
+
+    private static final class Tiles extends RecursiveAction {
+        private final Tile body;
+        private final int lo;
+        private final int hi;
+
+        Tiles(Tile body, int lo, int hi) {
+            this.body = body;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                body.run(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Tiles(body, lo, mid), new Tiles(body, mid, hi));
+        }
+    }
+
+    /* ===================== SIMD (MethodHandle static final: o JIT inlina) ===================== */
+
+    private static int simdGray(int[] rgb, int src, byte[] out, int dst, int n) {
+        try {
+            return (int) SIMD_GRAY.invokeExact(rgb, src, out, dst, n);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int simdThreshold(byte[] gray, byte[] out, int from, int to, int level) {
+        try {
+            return (int) SIMD_THRESHOLD.invokeExact(gray, out, from, to, level);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int simdAdaptiveRow(byte[] gray, byte[] out, int rowOff, int[] sums, int[] counts,
+                                       int rows, int c, int w) {
+        try {
+            return (int) SIMD_ADAPTIVE_ROW.invokeExact(gray, out, rowOff, sums, counts, rows, c, w);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class PokemonDictionary {
 
     private final Set<String> names;          // normalizados (sem acento), em lower-case
     private final List<String> originalNames; // como carregados (para retornar ao usuário)
+    private final Map<String, Integer> idByNorm; // nome normalizado -> posição em originalNames
 
     public PokemonDictionary() {
         // tenta carregar de classpath:pokemon.txt
@@ -43,6 +44,9 @@ public class PokemonDictionary {
                 .map(PokemonDictionary::norm)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
 
+        this.idByNorm = new HashMap<>();
+        for (int i = 0; i < originalNames.size(); i++) idByNorm.putIfAbsent(norm(originalNames.get(i)), i);
+
         INSTANCE = this; // registra instância para score() estático
     }
 
@@ -101,6 +105,49 @@ public class PokemonDictionary {
         return Optional.empty();
     }
 
+    /**
+     * Todos os nomes parecidos com a busca (frase inteira ou qualquer token),
+     * do mais para o menos parecido. Usado na busca da coleção, onde um
+     * erro de digitação ("charizrd") ainda deve achar "Charizard".
+     */
+    public List<String> similarNames(String query, int limit) {
+        if (query == null || query.isBlank()) return List.of();
+        String nq = norm(query);
+        List<String> probes = new ArrayList<>();
+        probes.add(nq);
+        for (String t : nq.split("\\s+")) if (t.length() >= 3 && !t.equals(nq)) probes.add(t);
+
+        Map<String, Double> scored = new HashMap<>();
+        int i = 0;
+        for (String n : names) {
+            double best = 0.0;
+            for (String p : probes) best = Math.max(best, similarity(p, n));
+            if (best >= 0.70) scored.put(originalNames.get(i), best);
+            i++;
+        }
+        return scored.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /* ---------- ids estáveis (posição no pokemon.txt) para bitsets ---------- */
+
+    /** Id do nome exato (sem diferenciar acento/caixa) ou -1 se não estiver no dicionário. */
+    public int idOf(String name) {
+        if (name == null || name.isBlank()) return -1;
+        return idByNorm.getOrDefault(norm(name), -1);
+    }
+
+    public String nameOf(int id) {
+        return originalNames.get(id);
+    }
+
+    public int size() {
+        return originalNames.size();
+    }
+
     /**
      * Score (0..100) de “parece um nome de Pokémon” para um texto.
      * Útil para escolher entre múltiplas hipóteses de OCR.
@@ -0,0 +1,279 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.PriceAlert;
+import com.exemplo.auth.model.PriceAlertHit;
+import com.exemplo.auth.repository.PriceAlertHitRepository;
+import com.exemplo.auth.repository.PriceAlertRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Alertas de preço ("me avise quando um Charizard for anunciado por até X").
+ *
+ * Funciona como um percolator: as regras ficam indexadas em memória por
+ * Pokémon normalizado e, dentro dele, por preço máximo. Um anúncio novo ou
+ * repreçado a {@code p} só visita as regras com maxPrice >= p (tailMap),
+ * então o custo é proporcional aos alertas que casam, não ao total de alertas.
+ * A entrega (gravação do hit + push via SSE) roda no executor "alertExecutor".
+ * Os hits de um anúncio vão num único batch com "on conflict do nothing":
+ * um disparo repetido (dois eventos do mesmo anúncio em paralelo) é só
+ * pulado, sem derrubar os disparos das outras regras.
+ */
+@Service
+public class PriceAlertService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceAlertService.class);
+
+    private static final int MAX_ALERTS_PER_USER = 200;
+
+    /** Mesmo valor do allocationSize de PriceAlertHit. */
+    private static final int HIT_ID_BLOCK = 50;
+
+    private static final String INSERT_HIT =
+            "insert into price_alert_hits (id, alert_id, user_id, listing_id, pokemon_name, price, created_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?) on conflict (alert_id, listing_id) do nothing";
+
+    private final PriceAlertRepository alerts;
+    private final PriceAlertHitRepository hits;
+    private final PokemonDictionary dict;
+    private final SaleNotificationService push;
+    private final JdbcTemplate jdbc;
+
+    /** pokemonKey → (maxPrice → regras); maxPrice null fica em {@link #ANY_PRICE}. */
+    private final Map<String, NavigableMap<BigDecimal, Set<Rule>>> index = new ConcurrentHashMap<>();
+    private static final BigDecimal ANY_PRICE = new BigDecimal("999999999999");
+
+    private record Rule(Long alertId, Long userId) {}
+
+    public PriceAlertService(PriceAlertRepository alerts,
+                             PriceAlertHitRepository hits,
+                             PokemonDictionary dict,
+                             SaleNotificationService push,
+                             JdbcTemplate jdbc) {
+        this.alerts = alerts;
+        this.hits = hits;
+        this.dict = dict;
+        this.push = push;
+        this.jdbc = jdbc;
+    }
+
+    /* ===================== CRUD ===================== */
+
+    @Transactional
+    public PriceAlert create(Long userId, String pokemonName, BigDecimal maxPrice) {
+        String raw = pokemonName == null ? "" : pokemonName.trim();
+        if (raw.isEmpty()) throw new IllegalArgumentException("pokemonName obrigatório.");
+        if (maxPrice != null && maxPrice.signum() <= 0) {
+            throw new IllegalArgumentException("Preço máximo deve ser maior que zero.");
+        }
+        if (alerts.countByUserId(userId) >= MAX_ALERTS_PER_USER) {
+            throw new IllegalArgumentException("Limite de " + MAX_ALERTS_PER_USER + " alertas atingido.");
+        }
+
+        // mesma normalização usada ao criar anúncios
+        String name = dict.bestMatchLoose(raw).orElse(raw);
+
+        PriceAlert a = new PriceAlert();
+        a.setUserId(userId);
+        a.setPokemonName(name);
+        a.setPokemonKey(key(name));
+        a.setMaxPrice(maxPrice);
+        a.setCreatedAt(Instant.now());
+        PriceAlert saved = alerts.save(a);
+        afterCommit(() -> register(saved));
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PriceAlert> list(Long userId) {
+        return alerts.findByUserIdOrderByIdDesc(userId);
+    }
+
+    @Transactional
+    public void delete(Long userId, Long alertId) {
+        PriceAlert a = alerts.findByIdAndUserId(alertId, userId)
+                .orElseThrow(() -> new IllegalArgumentException("Alerta não encontrado."));
+        alerts.delete(a);
+        afterCommit(() -> unregister(a));
+    }
+
+    /** Sem {@code since}: últimos 100 disparos. Com {@code since}: só os posteriores. */
+    @Transactional(readOnly = true)
+    public List<PriceAlertHit> hits(Long userId, Instant since) {
+        if (since == null) return hits.findTop100ByUserIdOrderByCreatedAtDesc(userId);
+        return hits.findByUserIdAndCreatedAtAfterOrderByCreatedAtAsc(userId, since);
+    }
+
+    /* ===================== índice ===================== */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        index.clear();
+        List<PriceAlert> all = alerts.findAll();
+        all.forEach(this::register);
+        log.info("Índice de alertas de preço: {} regras", all.size());
+    }
+
+    private void register(PriceAlert a) {
+        index.computeIfAbsent(a.getPokemonKey(), k -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(threshold(a), p -> ConcurrentHashMap.newKeySet())
+                .add(new Rule(a.getId(), a.getUserId()));
+    }
+
+    private void unregister(PriceAlert a) {
+        NavigableMap<BigDecimal, Set<Rule>> byPrice = index.get(a.getPokemonKey());
+        if (byPrice == null) return;
+        byPrice.computeIfPresent(threshold(a), (p, rules) -> {
+            rules.remove(new Rule(a.getId(), a.getUserId()));
+            return rules.isEmpty() ? null : rules;
+        });
+    }
+
+    /** Regras que casam com um anúncio de {@code pokemonName} a {@code price}. */
+    private List<Rule> candidates(String pokemonName, BigDecimal price) {
+        NavigableMap<BigDecimal, Set<Rule>> byPrice = index.get(key(pokemonName));
+        if (byPrice == null || price == null) return List.of();
+
+        List<Rule> out = new ArrayList<>();
+        for (Set<Rule> rules : byPrice.tailMap(price, true).values()) out.addAll(rules);
+        return out;
+    }
+
+    /* ===================== matching ===================== */
+
+    @Async("alertExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingEvent(MarketListingEvent e) {
+        percolate(e);
+    }
+
+    @Async("alertExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingBatch(MarketListingBatchEvent batch) {
+        batch.events().forEach(this::percolate);
+    }
+
+    private void percolate(MarketListingEvent e) {
+        if (e.type() != MarketListingEvent.Type.CREATED && e.type() != MarketListingEvent.Type.UPDATED) return;
+
+        List<Rule> matched = new ArrayList<>();
+        for (Rule r : candidates(e.pokemonName(), e.price())) {
+            if (!r.userId().equals(e.sellerId())) matched.add(r); // não avisa o próprio vendedor
+        }
+        if (matched.isEmpty()) return;
+
+        // um repreço não dispara de novo a mesma regra para o mesmo anúncio
+        Set<Long> alreadyHit = new HashSet<>();
+        hits.findByListingIdAndAlertIdIn(e.listingId(), matched.stream().map(Rule::alertId).toList())
+                .forEach(h -> alreadyHit.add(h.getAlertId()));
+
+        List<PriceAlertHit> fresh = new ArrayList<>();
+        for (Rule r : matched) {
+            if (alreadyHit.contains(r.alertId())) continue;
+            PriceAlertHit h = new PriceAlertHit();
+            h.setAlertId(r.alertId());
+            h.setUserId(r.userId());
+            h.setListingId(e.listingId());
+            h.setPokemonName(e.pokemonName());
+            h.setPrice(e.price());
+            h.setCreatedAt(Instant.now());
+            fresh.add(h);
+        }
+        if (fresh.isEmpty()) return;
+
+        List<PriceAlertHit> inserted;
+        try {
+            inserted = insertHits(fresh);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao gravar disparos de alerta do anúncio {}: {}", e.listingId(), ex.getMessage());
+            return;
+        }
+        for (PriceAlertHit h : inserted) push.pushToUser(h.getUserId(), "alert", h);
+    }
+
+    /** Grava os hits num batch e devolve só os que entraram (conflitos são pulados). */
+    private List<PriceAlertHit> insertHits(List<PriceAlertHit> fresh) {
+        List<Long> ids = nextHitIds(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) fresh.get(i).setId(ids.get(i));
+
+        int[] counts = jdbc.batchUpdate(INSERT_HIT, fresh, fresh.size(), (ps, h) -> {
+            ps.setLong(1, h.getId());
+            ps.setLong(2, h.getAlertId());
+            ps.setLong(3, h.getUserId());
+            ps.setLong(4, h.getListingId());
+            ps.setString(5, h.getPokemonName());
+            ps.setBigDecimal(6, h.getPrice());
+            ps.setTimestamp(7, Timestamp.from(h.getCreatedAt()));
+        })[0];
+
+        List<PriceAlertHit> inserted = new ArrayList<>();
+        for (int i = 0; i < fresh.size(); i++) {
+            // 0 = conflito; SUCCESS_NO_INFO (-2) conta como gravado
+            if (counts[i] != 0) inserted.add(fresh.get(i));
+        }
+        return inserted;
+    }
+
+    /**
+     * IDs pela regra do otimizador pooled do Hibernate, para não colidir com
+     * os que ele mesmo gera: cada nextval reserva os {@value #HIT_ID_BLOCK}
+     * valores que terminam nele (o SequenceAlignment garante nextval >= 2 blocos).
+     */
+    private List<Long> nextHitIds(int n) {
+        int blocks = (n + HIT_ID_BLOCK - 1) / HIT_ID_BLOCK;
+        List<Long> highs = jdbc.queryForList(
+                "select nextval('price_alert_hits_seq') from generate_series(1, ?)", Long.class, blocks);
+        List<Long> ids = new ArrayList<>(n);
+        for (Long hi : highs) {
+            for (long id = hi - HIT_ID_BLOCK + 1; id <= hi && ids.size() < n; id++) ids.add(id);
+        }
+        return ids;
+    }
+
+    /* ===================== helpers ===================== */
+
+    /** O índice só enxerga regras gravadas de fato. */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static BigDecimal threshold(PriceAlert a) {
+        return a.getMaxPrice() != null ? a.getMaxPrice() : ANY_PRICE;
+    }
+
+    private static String key(String pokemonName) {
+        return pokemonName == null ? "" : pokemonName.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,15 @@
+package com.exemplo.auth.service;
+
+import java.util.Set;
+
+/**
+ * O preço de referência (vendas recentes) de alguns Pokémon pode ter mudado.
+ * {@code keys} são chaves de {@link MarketStatsService#key}; vazio significa
+ * "todos" (depois de um rebuild).
+ */
+public record ReferencePriceEvent(Set<String> keys) {
+
+    public boolean all() {
+        return keys.isEmpty();
+    }
+}
@@ -0,0 +1,313 @@
+package com.exemplo.auth.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Blobs num bucket S3 (AWS ou compatível: MinIO, Ceph, R2...), em
+ * &lt;bucket&gt;/ab/cd/&lt;sha256&gt;.ext, com endereçamento por caminho.
+ *
+ * Cliente mínimo sobre java.net.http com assinatura SigV4: só PUT, GET, HEAD
+ * e DELETE de objeto. O corpo do PUT já vem assinado de graça, porque o
+ * SHA-256 do conteúdo é o próprio nome do blob.
+ *
+ * data/blobs vira cache local com o mesmo layout: o que acabou de ser
+ * gravado fica lá (o OCR lê em seguida) e o que é lido volta para lá.
+ * Acima de app.storage.s3.cache-max-bytes o cache perde os arquivos usados
+ * há mais tempo, mas só os que já estão no bucket.
+ *
+ * Para testar localmente:
+ *   docker run -p 9000:9000 minio/minio server /data
+ * e app.storage.backend=s3 com as credenciais padrão do MinIO.
+ */
+public class S3BlobBackend implements BlobBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(S3BlobBackend.class);
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})\\.[a-z0-9]{1,5}");
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final long cacheMaxBytes;
+
+    private final Path cacheRoot;
+    private final Path tmpDir;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /** Último uso de cada chave do cache (o mtime não muda na leitura). */
+    private final Map<String, Long> lastUse = new ConcurrentHashMap<>();
+
+    public S3BlobBackend(Path cacheRoot, String endpoint, String region, String bucket,
+                         String accessKey, String secretKey, long cacheMaxBytes) {
+        if (bucket == null || bucket.isBlank()) throw new IllegalArgumentException("app.storage.s3.bucket é obrigatório");
+        this.cacheRoot = cacheRoot;
+        this.tmpDir = cacheRoot.resolve("tmp");
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+
+    /** Cria o bucket se não existir (o stand-in local começa vazio). */
+    public void ensureBucket() throws IOException {
+        int status = send("HEAD", null, HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256,
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 200) return;
+        if (status != 404) throw new IOException("bucket " + bucket + ": HTTP " + status);
+        expectOk(send("PUT", null, HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256,
+                HttpResponse.BodyHandlers.ofString()), "criar bucket");
+        log.info("[s3] bucket {} criado em {}", bucket, endpoint);
+    }
+
+    /* ===================== BlobBackend ===================== */
+
+    @Override
+    public void store(String key, Path file) throws IOException {
+        if (!exists(key)) upload(key, file);
+        Path cached = cachePath(key);
+        if (Files.exists(cached)) {
+            Files.deleteIfExists(file);
+            LocalBlobBackend.touch(cached);
+        } else {
+            Files.createDirectories(cached.getParent());
+            try {
+                Files.move(file, cached, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException race) {
+                Files.deleteIfExists(file);
+            }
+        }
+        lastUse.put(key, System.currentTimeMillis());
+    }
+
+    @Override
+    public void storeCopy(String key, Path file) throws IOException {
+        if (!exists(key)) upload(key, file);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> r = send("HEAD", key, HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256,
+                HttpResponse.BodyHandlers.discarding());
+        if (r.statusCode() == 404) return false;
+        expectOk(r, "HEAD " + key);
+        return true;
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) throws IOException {
+        Path cached = cachePath(key);
+        if (Files.isRegularFile(cached)) {
+            lastUse.put(key, System.currentTimeMillis());
+            return Optional.of(cached);
+        }
+
+        Files.createDirectories(tmpDir);
+        Path tmp = tmpDir.resolve(UUID.randomUUID() + ".part");
+        try {
+            HttpResponse<Path> r = send("GET", key, HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256,
+                    HttpResponse.BodyHandlers.ofFile(tmp));
+            if (r.statusCode() == 404) return Optional.empty();
+            expectOk(r, "GET " + key);
+            Files.createDirectories(cached.getParent());
+            // leituras simultâneas da mesma chave baixam os mesmos bytes; tanto faz quem fica
+            Files.move(tmp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            lastUse.put(key, System.currentTimeMillis());
+            return Optional.of(cached);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        HttpResponse<String> r = send("DELETE", key, HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256,
+                HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 404) expectOk(r, "DELETE " + key);
+        lastUse.remove(key);
+        Files.deleteIfExists(cachePath(key));
+        return r.statusCode() != 404;
+    }
+
+    @Override
+    public boolean isLocal() {
+        return false;
+    }
+
+    /* ===================== cache ===================== */
+
+    private record Cached(String key, Path file, long size, long lastUse) {}
+
+    @Scheduled(fixedDelayString = "${app.storage.s3.cache-trim-ms:600000}")
+    public void trimCache() {
+        if (cacheMaxBytes <= 0 || !Files.isDirectory(cacheRoot)) return;
+        List<Cached> all = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> walk = Files.walk(cacheRoot)) {
+            for (Path p : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                if (p.startsWith(tmpDir)) continue;
+                String key = cacheRoot.relativize(p).toString().replace('\\', '/');
+                if (!KEY.matcher(key).matches()) continue;
+                long size = Files.size(p);
+                long used = lastUse.getOrDefault(key, Files.getLastModifiedTime(p).toMillis());
+                all.add(new Cached(key, p, size, used));
+                total += size;
+            }
+        } catch (IOException e) {
+            log.warn("[s3] não foi possível varrer o cache: {}", e.getMessage());
+            return;
+        }
+        if (total <= cacheMaxBytes) return;
+
+        all.sort(Comparator.comparingLong(Cached::lastUse));
+        long goal = cacheMaxBytes / 10 * 9; // folga para não rodar de novo no próximo upload
+        int evicted = 0;
+        for (Cached c : all) {
+            if (total <= goal) break;
+            try {
+                if (!exists(c.key())) continue; // ainda só local: a migração sobe antes
+                Files.deleteIfExists(c.file());
+                lastUse.remove(c.key());
+                total -= c.size();
+                evicted++;
+            } catch (IOException e) {
+                log.warn("[s3] cache: {} ficou: {}", c.key(), e.getMessage());
+                break; // bucket fora do ar; tenta na próxima rodada
+            }
+        }
+        log.info("[s3] cache: {} arquivos removidos, {} MB em disco", evicted, total / (1024 * 1024));
+    }
+
+    private Path cachePath(String key) {
+        if (!KEY.matcher(key).matches()) throw new IllegalArgumentException("chave inválida: " + key);
+        return cacheRoot.resolve(key);
+    }
+
+    /* ===================== HTTP + SigV4 ===================== */
+
+    private void upload(String key, Path file) throws IOException {
+        var m = KEY.matcher(key);
+        if (!m.matches()) throw new IllegalArgumentException("chave inválida: " + key);
+        expectOk(send("PUT", key, HttpRequest.BodyPublishers.ofFile(file), m.group(1),
+                HttpResponse.BodyHandlers.ofString()), "PUT " + key);
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, HttpRequest.BodyPublisher body,
+                                     String payloadSha256, HttpResponse.BodyHandler<T> handler) throws IOException {
+        String path = "/" + bucket + (key == null ? "" : "/" + key);
+        URI uri = URI.create(endpoint + path);
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = AMZ_DATE.format(now);
+        String day = amzDate.substring(0, 8);
+
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonical = method + "\n" + path + "\n\n"
+                + "host:" + hostHeader(uri) + "\n"
+                + "x-amz-content-sha256:" + payloadSha256 + "\n"
+                + "x-amz-date:" + amzDate + "\n\n"
+                + signedHeaders + "\n" + payloadSha256;
+        String scope = day + "/" + region + "/s3/aws4_request";
+        String toSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + hex(sha256(canonical));
+
+        byte[] k = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), day);
+        k = hmac(k, region);
+        k = hmac(k, "s3");
+        k = hmac(k, "aws4_request");
+        String signature = hex(hmac(k, toSign));
+
+        HttpRequest req = HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .method(method, body)
+                .header("x-amz-content-sha256", payloadSha256)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature)
+                .build();
+        try {
+            return http.send(req, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrompido em " + method + " " + path);
+        }
+    }
+
+    /** O mesmo Host que o HttpClient envia: porta só quando não é a padrão do esquema. */
+    private static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        boolean standard = port == -1
+                || (port == 80 && "http".equalsIgnoreCase(uri.getScheme()))
+                || (port == 443 && "https".equalsIgnoreCase(uri.getScheme()));
+        return standard ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static void expectOk(HttpResponse<?> r, String what) throws IOException {
+        if (r.statusCode() / 100 != 2) {
+            Object body = r.body();
+            String detail = body instanceof String s && !s.isBlank() ? ": " + s.strip() : "";
+            throw new IOException("S3 " + what + ": HTTP " + r.statusCode() + detail);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sha256(String s) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] b) {
+        return HexFormat.of().formatHex(b);
+    }
+}
@@ -0,0 +1,168 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.MarketListing;
+import com.exemplo.auth.model.MarketListing.Status;
+import com.exemplo.auth.repository.MarketListingRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Notificações de venda empurradas para o vendedor logo após o commit do buy:
+ * SSE (canal principal) e long-poll (fallback para clientes sem EventSource).
+ * O mesmo canal SSE também leva outros avisos do mercado (ex.: alertas de preço).
+ *
+ * As escritas SSE rodam no "pushExecutor", nunca na thread de quem comitou;
+ * um heartbeat periódico mantém as conexões vivas e descarta as que caíram.
+ */
+@Service
+public class SaleNotificationService {
+
+    private static final long SSE_TIMEOUT_MS = 30 * 60 * 1000L;   // cliente reconecta sozinho
+    private static final long LONG_POLL_TIMEOUT_MS = 25 * 1000L;
+
+    private final MarketListingRepository listings;
+    private final MarketListingViews views;
+    private final Executor pushExecutor;
+
+    private final Map<Long, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+    private final Map<Long, Set<DeferredResult<List<Map<String,Object>>>>> waiters = new ConcurrentHashMap<>();
+
+    public SaleNotificationService(MarketListingRepository listings, MarketListingViews views,
+                                   @Qualifier("pushExecutor") Executor pushExecutor) {
+        this.listings = listings;
+        this.views = views;
+        this.pushExecutor = pushExecutor;
+    }
+
+    /* ===================== consultas ===================== */
+
+    /** Vendas do vendedor depois de {@code since} (delta "desde a última vista"). */
+    public List<MarketListing> salesSince(Long sellerId, Instant since) {
+        return listings.findBySellerIdAndStatusAndSoldAtAfterOrderBySoldAtAsc(sellerId, Status.SOLD, since);
+    }
+
+    /* ===================== SSE ===================== */
+
+    public SseEmitter subscribe(Long sellerId) {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        addTo(streams, sellerId, emitter);
+
+        Runnable remove = () -> removeFrom(streams, sellerId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(ex -> remove.run());
+
+        try {
+            emitter.send(SseEmitter.event().name("ready").data(Instant.now().toString()));
+        } catch (IOException e) {
+            remove.run();
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /* ===================== long-poll ===================== */
+
+    /**
+     * Responde na hora se já houver vendas depois de {@code since};
+     * senão segura a requisição até a próxima venda ou até o timeout (lista vazia).
+     * Cada venda vai na mesma forma de /notifications ({@link MarketListingViews}).
+     */
+    public DeferredResult<List<Map<String,Object>>> poll(Long sellerId, Instant since) {
+        DeferredResult<List<Map<String,Object>>> result = new DeferredResult<>(LONG_POLL_TIMEOUT_MS, List.of());
+
+        // registra antes de consultar: uma venda que comite no meio do caminho não se perde
+        addTo(waiters, sellerId, result);
+        result.onCompletion(() -> removeFrom(waiters, sellerId, result));
+
+        List<MarketListing> pending = salesSince(sellerId, since);
+        if (!pending.isEmpty()) result.setResult(pending.stream().map(views::toView).toList());
+        return result;
+    }
+
+    /* ===================== eventos ===================== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingEvent(MarketListingEvent e) {
+        if (e.type() != MarketListingEvent.Type.SOLD) return;
+
+        Long sellerId = e.sellerId();
+        boolean hasStream = !streams.getOrDefault(sellerId, Set.of()).isEmpty();
+        boolean hasWaiter = !waiters.getOrDefault(sellerId, Set.of()).isEmpty();
+        if (!hasStream && !hasWaiter) return;
+
+        pushExecutor.execute(() -> notifySold(sellerId, e.listingId()));
+    }
+
+    private void notifySold(Long sellerId, Long listingId) {
+        MarketListing sold = listings.findById(listingId).orElse(null);
+        if (sold == null) return;
+        Map<String,Object> view = views.toView(sold);
+
+        send(sellerId, () -> SseEmitter.event()
+                .id(String.valueOf(sold.getId()))
+                .name("sold")
+                .data(view));
+
+        for (DeferredResult<List<Map<String,Object>>> r : waiters.getOrDefault(sellerId, Set.of())) {
+            r.setResult(List.of(view));
+        }
+    }
+
+    /** Envia um evento nomeado para todos os streams SSE abertos do usuário. */
+    public void pushToUser(Long userId, String eventName, Object payload) {
+        if (streams.getOrDefault(userId, Set.of()).isEmpty()) return;
+        pushExecutor.execute(() -> send(userId, () -> SseEmitter.event().name(eventName).data(payload)));
+    }
+
+    /** Comentário SSE (ignorado pelo EventSource); quem falhar na escrita sai da lista. */
+    @Scheduled(fixedDelayString = "${app.market.sse.heartbeat-ms:25000}",
+               initialDelayString = "${app.market.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Long userId : streams.keySet()) {
+            pushExecutor.execute(() -> send(userId, () -> SseEmitter.event().comment("hb")));
+        }
+    }
+
+    /** O builder não é reaproveitável (build() acrescenta a linha final), daí um por stream. */
+    private void send(Long userId, Supplier<SseEmitter.SseEventBuilder> event) {
+        for (SseEmitter emitter : streams.getOrDefault(userId, Set.of())) {
+            try {
+                emitter.send(event.get());
+            } catch (IOException | IllegalStateException ex) {
+                removeFrom(streams, userId, emitter);
+            }
+        }
+    }
+
+    /* ===================== helpers ===================== */
+
+    private static <T> void addTo(Map<Long, Set<T>> map, Long key, T value) {
+        map.compute(key, (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(value);
+            return set;
+        });
+    }
+
+    private static <T> void removeFrom(Map<Long, Set<T>> map, Long key, T value) {
+        map.computeIfPresent(key, (k, set) -> {
+            set.remove(value);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
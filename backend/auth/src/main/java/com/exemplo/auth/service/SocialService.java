@@ -7,18 +7,15 @@ import com.exemplo.auth.model.User;
 import com.exemplo.auth.repository.DirectMessageRepository;
 import com.exemplo.auth.repository.FriendshipRepository;
 import com.exemplo.auth.repository.UserRepository;
+import com.exemplo.auth.service.ImageUploadService.StoredImage;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.exemplo.auth.dto.PendingFriendView;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.UUID;
 import com.exemplo.auth.dto.FriendView;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -191,7 +188,7 @@ public Friendship requestFriend(Long requesterId, String email) {
     /* ===================== Messages ===================== */
 
     @Transactional
-    public DirectMessage sendMessage(Long from, Long to, String text, File image, Path storageRoot) throws Exception {
+    public DirectMessage sendMessage(Long from, Long to, String text, StoredImage image) {
         // exige amizade ACCEPTED em qualquer direção
         if (!isFriends(from, to))
             throw new IllegalArgumentException("vocês não são amigos");
@@ -202,15 +199,7 @@ public Friendship requestFriend(Long requesterId, String email) {
         dm.setText(text != null && !text.isBlank() ? text : null);
         dm.setCreatedAt(Instant.now());
 
-        if (image != null) {
-            Files.createDirectories(storageRoot);
-            String ext = extOf(image.getName());
-            String safeName = UUID.randomUUID() + (ext.isEmpty() ? "" : "." + ext);
-            Path target = storageRoot.resolve(safeName);
-            // copy em vez de move para evitar problemas de cross-device
-            Files.copy(image.toPath(), target);
-            dm.setImagePath(target.toString());
-        }
+        if (image != null) dm.setImagePath(image.url());
 
         return msgs.save(dm);
     }
@@ -228,12 +217,4 @@ public Friendship requestFriend(Long requesterId, String email) {
         return msgs.findByCreatedAtAfterAndSenderIdAndReceiverIdOrCreatedAtAfterAndSenderIdAndReceiverIdOrderByCreatedAtAsc(
                 after, a, b, after, b, a);
     }
-
-    /* ===================== helpers ===================== */
-
-    private static String extOf(String filename) {
-        int i = filename.lastIndexOf('.');
-        if (i <= 0 || i == filename.length() - 1) return "";
-        return filename.substring(i + 1).replaceAll("[^A-Za-z0-9]", "");
-    }
 }
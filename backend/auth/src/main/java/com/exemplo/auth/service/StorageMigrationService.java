@@ -0,0 +1,261 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.repository.CardItemRepository;
+import com.exemplo.auth.repository.DirectMessageRepository;
+import com.exemplo.auth.repository.MarketListingRepository;
+import com.exemplo.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Migração do armazenamento com a aplicação no ar, um lote por rodada.
+ *
+ * 0. imagePath gravados em outra forma (caminho absoluto, data\\users\\...)
+ *    passam para /files/... antes de tudo, mesmo com a migração desligada.
+ *    Migração e {@link OrphanSweepService} só casam as formas de
+ *    {@link StoragePaths#aliases}; o coletor espera {@link #pathsNormalized()}.
+ * 1. Pastas antigas (data/users/{id}/images, market, messages, avatar):
+ *    cada arquivo vira blob, as quatro tabelas com imagePath passam a
+ *    apontar para o blob numa transação por lote e, depois do commit, o
+ *    arquivo antigo sai. Nada novo é gravado nessas pastas, então nenhuma
+ *    escrita concorrente volta a usar o caminho antigo. Por 24 h a URL
+ *    antiga redireciona para o blob ({@link #movedTo}), para páginas que
+ *    ainda estavam abertas.
+ * 2. Com backend remoto (S3): o que só existe em data/blobs (gravado antes
+ *    da troca de backend) sobe para o bucket, percorrendo as 65536 pastas
+ *    do particionamento em ordem.
+ *
+ * Idempotente: pode parar a qualquer momento e continua de onde der.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    private static final Duration REDIRECT_TTL = Duration.ofHours(24);
+    private static final int SHARDS = 256 * 256;
+
+    private final BlobStore blobs;
+    private final CardItemRepository cards;
+    private final MarketListingRepository listings;
+    private final DirectMessageRepository messages;
+    private final UserRepository users;
+    private final TransactionTemplate tx;
+
+    @Value("${app.storage.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.storage.migration.batch:100}")
+    private int batch;
+
+    private record Moved(String url, Instant at) {}
+
+    /** URL antiga → blob, para redirecionar enquanto houver cliente com a página velha. */
+    private final Map<String, Moved> moved = new ConcurrentHashMap<>();
+
+    private int shardCursor;
+    private int uploadedThisPass;
+    private volatile boolean pathsNormalized;
+    private boolean legacyDone;
+    private boolean remoteDone;
+
+    public StorageMigrationService(BlobStore blobs,
+                                   CardItemRepository cards,
+                                   MarketListingRepository listings,
+                                   DirectMessageRepository messages,
+                                   UserRepository users,
+                                   PlatformTransactionManager txManager) {
+        this.blobs = blobs;
+        this.cards = cards;
+        this.listings = listings;
+        this.messages = messages;
+        this.users = users;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Blob para onde uma URL antiga foi movida recentemente. */
+    public Optional<String> movedTo(String oldUrl) {
+        Moved m = moved.get(oldUrl);
+        return m == null ? Optional.empty() : Optional.of(m.url());
+    }
+
+    /** Todos os imagePath que apontam para data/ já estão na forma /files/... */
+    public boolean pathsNormalized() {
+        return pathsNormalized;
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.migration.interval-ms:30000}",
+               fixedDelayString = "${app.storage.migration.interval-ms:30000}")
+    public synchronized void step() {
+        Instant cutoff = Instant.now().minus(REDIRECT_TTL);
+        moved.values().removeIf(m -> m.at().isBefore(cutoff));
+        try {
+            if (!pathsNormalized) normalizeStoredPaths();
+            if (!enabled) return;
+            if (!legacyDone && migrateLegacy() > 0) return;
+            if (!remoteDone && !blobs.backend().isLocal()) uploadLocalBlobs();
+        } catch (IOException | RuntimeException e) {
+            log.warn("[storage] migração parou nesta rodada: {}", e.getMessage());
+        }
+    }
+
+    /* ===================== 0. formas antigas do imagePath ===================== */
+
+    private void normalizeStoredPaths() {
+        Map<String, Set<String>> byUrl = new LinkedHashMap<>();
+        for (List<String> stored : List.of(cards.findNonPublicImagePaths(), listings.findNonPublicImagePaths(),
+                messages.findNonPublicImagePaths(), users.findNonPublicImagePaths())) {
+            for (String path : stored) {
+                String url = StoragePaths.publicUrl(path);
+                if (url != null) byUrl.computeIfAbsent(url, u -> new HashSet<>()).add(path);
+            }
+        }
+
+        int updated = 0;
+        List<Map.Entry<String, Set<String>>> entries = new ArrayList<>(byUrl.entrySet());
+        for (int i = 0; i < entries.size(); i += batch) {
+            List<Map.Entry<String, Set<String>>> chunk = entries.subList(i, Math.min(i + batch, entries.size()));
+            Integer n = tx.execute(s -> {
+                int rows = 0;
+                for (Map.Entry<String, Set<String>> e : chunk) {
+                    rows += cards.repointImagePath(e.getValue(), e.getKey());
+                    rows += listings.repointImagePath(e.getValue(), e.getKey());
+                    rows += messages.repointImagePath(e.getValue(), e.getKey());
+                    rows += users.repointImagePath(e.getValue(), e.getKey());
+                }
+                return rows;
+            });
+            updated += n == null ? 0 : n;
+        }
+
+        pathsNormalized = true;
+        if (updated > 0) log.info("[storage] {} imagePath antigos passaram para /files/...", updated);
+    }
+
+    /* ===================== 1. pastas antigas ===================== */
+
+    private int migrateLegacy() throws IOException {
+        Path usersDir = StoragePaths.dataRoot().resolve("users");
+        if (!Files.isDirectory(usersDir)) {
+            legacyDone = true;
+            return 0;
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(usersDir)) {
+            files = walk.filter(Files::isRegularFile).limit(batch).toList();
+        }
+        if (files.isEmpty()) {
+            removeEmptyDirs(usersDir);
+            legacyDone = true;
+            log.info("[storage] pastas antigas migradas");
+            return 0;
+        }
+
+        Map<Path, String> chunk = new LinkedHashMap<>();
+        for (Path f : files) {
+            try {
+                chunk.put(f, blobs.adopt(f, BlobStore.extOf(f.getFileName().toString())));
+            } catch (IOException e) {
+                log.warn("[storage] ignorando {}: {}", f, e.getMessage());
+            }
+        }
+
+        Integer updated = tx.execute(s -> {
+            int n = 0;
+            for (Map.Entry<Path, String> e : chunk.entrySet()) {
+                Set<String> from = StoragePaths.aliases(StoragePaths.toPublicUrl(e.getKey()));
+                n += cards.repointImagePath(from, e.getValue());
+                n += listings.repointImagePath(from, e.getValue());
+                n += messages.repointImagePath(from, e.getValue());
+                n += users.repointImagePath(from, e.getValue());
+            }
+            return n;
+        });
+
+        // referências já trocadas: o blob é o único dono dos bytes
+        Instant now = Instant.now();
+        for (Map.Entry<Path, String> e : chunk.entrySet()) {
+            Path old = e.getKey();
+            moved.put(StoragePaths.toPublicUrl(old), new Moved(e.getValue(), now));
+            Files.deleteIfExists(old);
+            for (Path derived : ImageDerivativeService.derivativesOf(old)) Files.deleteIfExists(derived);
+        }
+        // arquivo ilegível não pode travar a fila: sai do caminho para a próxima rodada
+        for (Path f : files) {
+            if (!chunk.containsKey(f) && Files.exists(f)) {
+                Path aside = StoragePaths.dataRoot().resolve("migration-failed").resolve(usersDir.relativize(f));
+                Files.createDirectories(aside.getParent());
+                Files.move(f, aside);
+            }
+        }
+
+        log.info("[storage] {} arquivos antigos viraram blob; {} linhas atualizadas",
+                chunk.size(), updated == null ? 0 : updated);
+        return files.size();
+    }
+
+    private static void removeEmptyDirs(Path dir) throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : walk.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).toList()) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(p)) {
+                    if (!entries.iterator().hasNext()) Files.delete(p);
+                }
+            }
+        }
+    }
+
+    /* ===================== 2. data/blobs → backend remoto ===================== */
+
+    private void uploadLocalBlobs() throws IOException {
+        Path root = BlobStore.blobRoot();
+        BlobBackend backend = blobs.backend();
+        int seen = 0;
+        while (seen < batch) {
+            String shard = String.format("%02x/%02x", shardCursor >> 8, shardCursor & 0xff);
+            Path dir = root.resolve(shard);
+            if (Files.isDirectory(dir)) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                    for (Path f : entries) {
+                        if (!Files.isRegularFile(f)) continue;
+                        String key = shard + "/" + f.getFileName();
+                        if (!backend.exists(key)) {
+                            backend.storeCopy(key, f);
+                            uploadedThisPass++;
+                        }
+                        seen++;
+                    }
+                }
+            }
+            if (++shardCursor == SHARDS) {
+                log.info("[storage] passada completa em data/blobs: {} blobs enviados", uploadedThisPass);
+                shardCursor = 0;
+                remoteDone = uploadedThisPass == 0;
+                uploadedThisPass = 0;
+                return;
+            }
+        }
+    }
+}
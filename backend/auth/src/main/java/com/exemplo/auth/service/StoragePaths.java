@@ -0,0 +1,96 @@
+package com.exemplo.auth.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Conversões entre o que fica gravado nas entidades (imagePath) e o arquivo
+ * físico em data/. Aceita tanto a URL pública (/files/users/1/images/x.png)
+ * quanto caminhos antigos gravados direto do disco (data\\users\\1\\...).
+ */
+public final class StoragePaths {
+
+    public static final String PUBLIC_PREFIX = "/files/";
+
+    /** Pasta de rascunho (OCR etc.); o {@link OrphanSweepService} limpa o que ficar para trás. */
+    static final String SCRATCH_DIR = "tmp";
+
+    private StoragePaths() {}
+
+    public static Path dataRoot() {
+        return Paths.get("data").toAbsolutePath().normalize();
+    }
+
+    /** Arquivo temporário em data/tmp; quem cria apaga, a varredura cobre falhas. */
+    public static File newScratchFile(String prefix, String suffix) throws IOException {
+        Path dir = Files.createDirectories(dataRoot().resolve(SCRATCH_DIR));
+        return File.createTempFile(prefix, suffix, dir.toFile());
+    }
+
+    /**
+     * Caminho relativo a data/ com '/' (ex.: users/1/images/x.png), já
+     * normalizado, se estiver dentro de data/. Qualquer segmento ".." é
+     * recusado: o resultado vira chave de blob, alias e alvo de exclusão.
+     */
+    public static Optional<String> relative(String imagePath) {
+        if (imagePath == null || imagePath.isBlank() || hasParentSegment(imagePath)) return Optional.empty();
+
+        Path root = dataRoot();
+        Path abs = imagePath.startsWith(PUBLIC_PREFIX)
+                ? root.resolve(imagePath.substring(PUBLIC_PREFIX.length())).normalize()
+                : Paths.get(imagePath).toAbsolutePath().normalize();
+        if (!abs.startsWith(root) || abs.equals(root)) return Optional.empty();
+        return Optional.of(root.relativize(abs).toString().replace(File.separatorChar, '/'));
+    }
+
+    private static boolean hasParentSegment(String path) {
+        for (String seg : path.split("[/\\\\]")) {
+            if (seg.equals("..")) return true;
+        }
+        return false;
+    }
+
+    /** Arquivo físico correspondente; vazio se apontar para fora de data/. */
+    public static Optional<Path> toFile(String imagePath) {
+        return relative(imagePath).flatMap(StoragePaths::resolve);
+    }
+
+    /** URL pública de um arquivo dentro de data/. */
+    public static String toPublicUrl(Path file) {
+        Path abs = file.toAbsolutePath().normalize();
+        return PUBLIC_PREFIX + dataRoot().relativize(abs).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * URL pública /files/... para o que estiver gravado na entidade: a própria
+     * URL, ou o caminho antigo (data\\users\\...) convertido. Null se vazio ou
+     * fora de data/.
+     */
+    public static String publicUrl(String imagePath) {
+        return relative(imagePath).map(rel -> PUBLIC_PREFIX + rel).orElse(null);
+    }
+
+    /** Todas as formas com que o mesmo arquivo pode estar gravado no banco. */
+    public static Set<String> aliases(String imagePath) {
+        Set<String> out = new LinkedHashSet<>();
+        out.add(imagePath);
+        relative(imagePath).ifPresent(rel -> {
+            out.add(PUBLIC_PREFIX + rel);
+            out.add("data/" + rel);
+            out.add("data\\" + rel.replace('/', '\\'));
+        });
+        return out;
+    }
+
+    private static Optional<Path> resolve(String rel) {
+        Path root = dataRoot();
+        Path p = root.resolve(rel).normalize();
+        return p.startsWith(root) ? Optional.of(p) : Optional.empty();
+    }
+}
@@ -0,0 +1,253 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.dto.TradeSuggestion;
+import com.exemplo.auth.model.User;
+import com.exemplo.auth.repository.FriendshipRepository;
+import com.exemplo.auth.repository.UserRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trocas sugeridas entre amigos.
+ *
+ * "Tenho" = Pokémon com mais de uma cópia; "preciso" = nomes do dicionário
+ * que faltam. Os dois vêm como RoaringBitmap do {@link CollectionStatsService},
+ * então cada par de amigos é só duas intersecções (minhas repetidas ∩ o que
+ * falta a ele, e o inverso), calculadas em paralelo no "tradeExecutor".
+ *
+ * O resultado fica em cache por par. Uma mudança na coleção de alguém
+ * descarta só os pares dessa pessoa; os outros amigos não são recalculados.
+ * A lista de amigos é lida a cada pedido (uma consulta), então amizade nova
+ * ou desfeita aparece na hora.
+ */
+@Service
+public class TradeMatchService {
+
+    /** Nomes devolvidos por lado; as contagens continuam completas. */
+    private static final int NAMES_PER_SIDE = 50;
+
+    /** Pares sem leitura há mais que isso saem do cache. */
+    private static final Duration IDLE = Duration.ofHours(2);
+
+    private final FriendshipRepository friendships;
+    private final UserRepository users;
+    private final CollectionStatsService stats;
+    private final PokemonDictionary dict;
+    private final Executor executor;
+
+    /** Leitura sem lock; escrita (inclusão, descarte, expiração) sob {@code indexLock}. */
+    private final Map<Pair, Match> pairs = new ConcurrentHashMap<>();
+    /** usuário → pares em cache que o envolvem (para descartar só esses). */
+    private final Map<Long, Set<Pair>> pairsOf = new HashMap<>();
+    /** usuário → geração; muda a cada alteração na coleção. */
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Object indexLock = new Object();
+
+    public TradeMatchService(FriendshipRepository friendships,
+                             UserRepository users,
+                             CollectionStatsService stats,
+                             PokemonDictionary dict,
+                             @Qualifier("tradeExecutor") Executor executor) {
+        this.friendships = friendships;
+        this.users = users;
+        this.stats = stats;
+        this.dict = dict;
+        this.executor = executor;
+    }
+
+    /* ===================== leitura ===================== */
+
+    /** Melhores trocas com amigos, da maior para a menor. */
+    public List<TradeSuggestion> suggestions(Long userId, int limit) {
+        if (limit <= 0 || limit > 100) throw new IllegalArgumentException("limit deve estar entre 1 e 100");
+
+        List<Long> friendIds = friendships.findFriendsOf(userId).stream()
+                .map(f -> f.otherOf(userId))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (friendIds.isEmpty()) return List.of();
+
+        Side[] mine = new Side[1];
+        long myGen = generation(userId);
+        List<CompletableFuture<Match>> futures = new ArrayList<>(friendIds.size());
+        for (Long friendId : friendIds) {
+            Match cached = pairs.get(Pair.of(userId, friendId));
+            if (cached != null) {
+                futures.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            if (mine[0] == null) mine[0] = side(userId); // só se algum par precisar
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> compute(userId, myGen, mine[0], friendId), executor));
+        }
+
+        Instant now = Instant.now();
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < friendIds.size(); i++) {
+            Match m = futures.get(i).join();
+            m.lastAccess = now;
+            Long friendId = friendIds.get(i);
+            RoaringBitmap give = m.givenBy(userId);
+            RoaringBitmap get = m.givenBy(friendId);
+            if (give.isEmpty() || get.isEmpty()) continue; // troca precisa dos dois lados
+            candidates.add(new Candidate(friendId, give, get));
+        }
+        candidates.sort(Comparator.comparingInt(Candidate::score).reversed()
+                .thenComparing(Comparator.comparingInt(Candidate::size).reversed()));
+        if (candidates.size() > limit) candidates = candidates.subList(0, limit);
+        if (candidates.isEmpty()) return List.of();
+
+        Map<Long, User> byId = users.findAllById(candidates.stream().map(Candidate::friendId).toList()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<TradeSuggestion> out = new ArrayList<>(candidates.size());
+        for (Candidate c : candidates) {
+            User u = byId.get(c.friendId());
+            if (u == null) continue;
+            out.add(new TradeSuggestion(u.getId(), u.getUsername(), c.score(),
+                    c.give().getCardinality(), c.get().getCardinality(),
+                    names(c.give()), names(c.get())));
+        }
+        return out;
+    }
+
+    /* ===================== manutenção incremental ===================== */
+
+    // roda depois do CollectionStatsService (ver @Order lá): quem recalcular já vê os bitmaps novos
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCollectionChange(CollectionChangeEvent e) {
+        if (e.upserted().isEmpty() && e.removed().isEmpty()) return; // só pasta criada/renomeada
+        synchronized (indexLock) {
+            generations.computeIfAbsent(e.userId(), id -> new AtomicLong()).incrementAndGet();
+            Set<Pair> mine = pairsOf.remove(e.userId());
+            if (mine == null) return;
+            for (Pair p : mine) {
+                pairs.remove(p);
+                unindex(p.other(e.userId()), p);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.trades.evict-ms:600000}",
+               initialDelayString = "${app.trades.evict-ms:600000}")
+    public void evictIdle() {
+        Instant cutoff = Instant.now().minus(IDLE);
+        synchronized (indexLock) {
+            pairs.entrySet().removeIf(en -> {
+                if (!en.getValue().lastAccess.isBefore(cutoff)) return false;
+                unindex(en.getKey().a(), en.getKey());
+                unindex(en.getKey().b(), en.getKey());
+                return true;
+            });
+        }
+    }
+
+    /* ===================== cálculo ===================== */
+
+    private Match compute(Long userId, long myGen, Side mine, Long friendId) {
+        long friendGen = generation(friendId);
+        Side theirs = side(friendId);
+
+        RoaringBitmap iGive = RoaringBitmap.and(mine.have(), theirs.need());
+        RoaringBitmap theyGive = RoaringBitmap.and(theirs.have(), mine.need());
+        Pair p = Pair.of(userId, friendId);
+        Match m = p.a() == userId ? new Match(p.a(), iGive, theyGive) : new Match(p.a(), theyGive, iGive);
+
+        // se alguma coleção mudou durante o cálculo, o resultado serve só para este pedido
+        synchronized (indexLock) {
+            if (generation(userId) == myGen && generation(friendId) == friendGen) {
+                pairs.put(p, m);
+                pairsOf.computeIfAbsent(p.a(), id -> new HashSet<>()).add(p);
+                pairsOf.computeIfAbsent(p.b(), id -> new HashSet<>()).add(p);
+            }
+        }
+        return m;
+    }
+
+    private void unindex(long userId, Pair p) {
+        Set<Pair> set = pairsOf.get(userId);
+        if (set == null) return;
+        set.remove(p);
+        if (set.isEmpty()) pairsOf.remove(userId);
+    }
+
+    private Side side(Long userId) {
+        return new Side(stats.duplicateIds(userId), stats.missingIds(userId));
+    }
+
+    private long generation(Long userId) {
+        AtomicLong g = generations.get(userId);
+        return g == null ? 0 : g.get();
+    }
+
+    private List<String> names(RoaringBitmap ids) {
+        Set<String> out = new LinkedHashSet<>();
+        for (int id : ids) {
+            out.add(dict.nameOf(id));
+            if (out.size() == NAMES_PER_SIDE) break;
+        }
+        return List.copyOf(out);
+    }
+
+    /* ===================== tipos ===================== */
+
+    /** Par não ordenado de usuários (a &lt; b). */
+    private record Pair(long a, long b) {
+        static Pair of(long x, long y) {
+            return x < y ? new Pair(x, y) : new Pair(y, x);
+        }
+
+        long other(long userId) {
+            return userId == a ? b : a;
+        }
+    }
+
+    private record Side(RoaringBitmap have, RoaringBitmap need) {}
+
+    /** Intersecções de um par; os bitmaps não mudam depois de criados. */
+    private static final class Match {
+        final long a;
+        final RoaringBitmap aGives;
+        final RoaringBitmap bGives;
+        volatile Instant lastAccess = Instant.now();
+
+        Match(long a, RoaringBitmap aGives, RoaringBitmap bGives) {
+            this.a = a;
+            this.aGives = aGives;
+            this.bGives = bGives;
+        }
+
+        /** O que esse usuário do par tem de repetido e falta ao outro. */
+        RoaringBitmap givenBy(long userId) {
+            return userId == a ? aGives : bGives;
+        }
+    }
+
+    private record Candidate(Long friendId, RoaringBitmap give, RoaringBitmap get) {
+        int score() { return Math.min(give.getCardinality(), get.getCardinality()); }
+        int size() { return give.getCardinality() + get.getCardinality(); }
+    }
+}
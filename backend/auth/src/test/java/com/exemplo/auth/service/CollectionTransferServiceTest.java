@@ -0,0 +1,135 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.model.CardItem;
+import com.exemplo.auth.model.CollectionFolder;
+import com.exemplo.auth.repository.CardItemRepository;
+import com.exemplo.auth.repository.CollectionFolderRepository;
+import com.exemplo.auth.service.CollectionTransferService.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CollectionTransferServiceTest {
+
+    private static final long USER = 7L;
+    private static final String BLOB = "/files/blobs/ab/cd/abcd0123.png";
+    private static final String MISSING_BLOB = "/files/blobs/ee/ff/eeff4567.png";
+
+    private final CollectionFolderRepository folders = mock(CollectionFolderRepository.class);
+    private final CardItemRepository items = mock(CardItemRepository.class);
+    private final BlobBackend backend = mock(BlobBackend.class);
+    private final List<CardItem> saved = new ArrayList<>();
+
+    private CollectionTransferService transfer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BlobStore blobs = new BlobStore(backend, mock(ApplicationEventPublisher.class));
+        transfer = new CollectionTransferService(folders, items, mock(PokemonDictionary.class),
+                new ObjectMapper().findAndRegisterModules(), mock(ApplicationEventPublisher.class), blobs);
+        ReflectionTestUtils.setField(transfer, "em", mock(EntityManager.class));
+
+        CollectionFolder f = new CollectionFolder();
+        f.setId(1L);
+        f.setUserId(USER);
+        f.setName("Fichário");
+        f.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        when(folders.findByUserId(USER)).thenReturn(List.of(f));
+
+        when(backend.exists(anyString())).thenReturn(false);
+        when(backend.exists("ab/cd/abcd0123.png")).thenReturn(true);
+
+        // o serviço limpa a lista do lote depois do saveAll
+        doAnswer(inv -> {
+            saved.addAll(inv.getArgument(0));
+            return inv.getArgument(0);
+        }).when(items).saveAll(anyList());
+    }
+
+    @Test
+    void ndjsonRoundTripKeepsBlobImages() throws Exception {
+        roundTrip(Format.NDJSON);
+    }
+
+    @Test
+    void csvRoundTripKeepsBlobImages() throws Exception {
+        roundTrip(Format.CSV);
+    }
+
+    @Test
+    void dropsBlobThatIsNotInTheStore() throws Exception {
+        String line = "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"Pikachu\",\"imagePath\":\"" + MISSING_BLOB + "\"}\n";
+
+        transfer.importCards(USER, Format.NDJSON, new ByteArrayInputStream(line.getBytes()));
+
+        assertThat(saved).singleElement().extracting(CardItem::getImagePath).isNull();
+    }
+
+    @Test
+    void keepsOnlyOwnLegacyFiles() throws Exception {
+        String body = "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"A\",\"imagePath\":\"/files/users/7/images/a.png\"}\n"
+                + "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"B\",\"imagePath\":\"/files/users/8/images/b.png\"}\n";
+
+        transfer.importCards(USER, Format.NDJSON, new ByteArrayInputStream(body.getBytes()));
+
+        assertThat(saved).extracting(CardItem::getImagePath)
+                .containsExactly("/files/users/7/images/a.png", null);
+    }
+
+    @Test
+    void rejectsPathsEscapingTheUserDirectory() throws Exception {
+        String body = "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"A\",\"imagePath\":\"/files/users/7/../8/images/x.png\"}\n"
+                + "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"B\",\"imagePath\":\"/files/users/7/images/../../8/x.png\"}\n"
+                + "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"C\",\"imagePath\":\"/files/blobs/../users/8/x.png\"}\n"
+                + "{\"type\":\"card\",\"folder\":\"Fichário\",\"cardName\":\"D\",\"imagePath\":\"/files/users/7/./images/d.png\"}\n";
+
+        transfer.importCards(USER, Format.NDJSON, new ByteArrayInputStream(body.getBytes()));
+
+        assertThat(saved).extracting(CardItem::getImagePath)
+                .containsExactly(null, null, null, "/files/users/7/images/d.png");
+    }
+
+    private void roundTrip(Format format) throws Exception {
+        when(items.streamByUserId(USER)).thenReturn(Stream.of(
+                card("Charizard", BLOB),
+                card("Pikachu", null)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transfer.export(USER, format, out);
+        Map<String, Integer> result = transfer.importCards(USER, format, new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(result).containsEntry("cardsImported", 2).containsEntry("foldersCreated", 0);
+        assertThat(saved).extracting(CardItem::getCardName).containsExactly("Charizard", "Pikachu");
+        assertThat(saved).extracting(CardItem::getImagePath).containsExactly(BLOB, null);
+    }
+
+    private static CardItem card(String name, String imagePath) {
+        CardItem c = new CardItem();
+        c.setFolderId(1L);
+        c.setUserId(USER);
+        c.setCardName(name);
+        c.setPokemonName(name);
+        c.setSource("manual");
+        c.setImagePath(imagePath);
+        c.setCreatedAt(Instant.parse("2025-02-01T12:00:00Z"));
+        return c;
+    }
+}
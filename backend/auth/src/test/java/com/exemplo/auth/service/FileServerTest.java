@@ -0,0 +1,188 @@
+package com.exemplo.auth.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileServerTest {
+
+    private static final int LENGTH = 100;
+
+    @TempDir
+    Path dir;
+
+    private final FileServer server = new FileServer();
+    private Path file;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) content[i] = (byte) i;
+        file = dir.resolve("card.txt");
+        Files.write(file, content);
+    }
+
+    /* ===================== parseRange ===================== */
+
+    @Test
+    void parsesClosedAndOpenRanges() {
+        assertThat(FileServer.parseRange("bytes=10-19", LENGTH)).containsExactly(10, 19);
+        assertThat(FileServer.parseRange("bytes=90-", LENGTH)).containsExactly(90, 99);
+        assertThat(FileServer.parseRange("bytes=10-500", LENGTH)).containsExactly(10, 99);
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertThat(FileServer.parseRange("bytes=-10", LENGTH)).containsExactly(90, 99);
+        assertThat(FileServer.parseRange("bytes=-500", LENGTH)).containsExactly(0, 99);
+        assertThat(FileServer.parseRange("bytes=-0", LENGTH)).isNull();
+    }
+
+    @Test
+    void startOutOfBoundsIsUnsatisfiable() {
+        assertThat(FileServer.parseRange("bytes=100-", LENGTH)).isNull();
+        assertThat(FileServer.parseRange("bytes=500-600", LENGTH)).isNull();
+        assertThat(FileServer.parseRange("bytes=20-10", LENGTH)).isNull();
+    }
+
+    @Test
+    void ignoresMultipleOrMalformedRanges() {
+        assertThat(FileServer.parseRange("bytes=0-1,5-6", LENGTH)).isEmpty();
+        assertThat(FileServer.parseRange("items=0-1", LENGTH)).isEmpty();
+        assertThat(FileServer.parseRange("bytes=a-b", LENGTH)).isEmpty();
+        assertThat(FileServer.parseRange("bytes=10", LENGTH)).isEmpty();
+    }
+
+    /* ===================== serve: ranges ===================== */
+
+    @Test
+    void servesSuffixRangeAsPartialContent() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=-10");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 90-99/100");
+        assertThat(res.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 90, 100));
+    }
+
+    @Test
+    void outOfBoundsStartGives416() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=500-");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(416);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */100");
+    }
+
+    @Test
+    void ifRangeWithOtherEtagServesWholeFile() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        req.addHeader(HttpHeaders.IF_RANGE, "\"stale-etag\"");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(res.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void ifRangeWithCurrentEtagServesRange() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        req.addHeader(HttpHeaders.IF_RANGE, etag());
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 0, 10));
+    }
+
+    /* ===================== serve: If-None-Match ===================== */
+
+    @Test
+    void ifNoneMatchListContainingEtagIsNotModified() throws Exception {
+        String etag = etag();
+        for (String header : new String[]{"\"a\", " + etag + ", \"b\"", "\"a\",W/" + etag, "*"}) {
+            MockHttpServletRequest req = get();
+            req.addHeader(HttpHeaders.IF_NONE_MATCH, header);
+
+            MockHttpServletResponse res = serve(req);
+
+            assertThat(res.getStatus()).as(header).isEqualTo(304);
+            assertThat(res.getContentAsByteArray()).as(header).isEmpty();
+        }
+    }
+
+    @Test
+    void ifNoneMatchListWithoutEtagServesFile() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.IF_NONE_MATCH, "\"a\", \"b\"");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    /* ===================== serve: variantes pré-comprimidas ===================== */
+
+    @Test
+    void skipsCodingsWithQZero() throws Exception {
+        Files.write(dir.resolve("card.txt.br"), new byte[]{1});
+        Files.write(dir.resolve("card.txt.gz"), new byte[]{2, 2});
+
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=0, gzip;q=0.5");
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(res.getContentAsByteArray()).isEqualTo(new byte[]{2, 2});
+        assertThat(res.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void allCodingsAtQZeroServesIdentity() throws Exception {
+        Files.write(dir.resolve("card.txt.br"), new byte[]{1});
+        Files.write(dir.resolve("card.txt.gz"), new byte[]{2, 2});
+
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.ACCEPT_ENCODING, "br; q=0.0, gzip;q=0");
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(res.getContentAsByteArray()).isEqualTo(content);
+        assertThat(res.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    /* ===================== helpers ===================== */
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/files/card.txt");
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest req) throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        server.serve(file, false, req, res);
+        return res;
+    }
+
+    private String etag() throws Exception {
+        return serve(get()).getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,257 @@
+package com.exemplo.auth.service;
+
+import com.exemplo.auth.service.MultipartStream.Part;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartStreamTest {
+
+    private static final String BOUNDARY = "AaB03x";
+    /** Tamanho do buffer interno do MultipartStream. */
+    private static final int BUFFER = 64 * 1024;
+
+    @Test
+    void readsFieldsAndFiles() throws IOException {
+        byte[] body = multipart(
+                "Content-Disposition: form-data; name=\"folderId\"\r\n", bytes("42"),
+                "Content-Disposition: form-data; name=\"file\"; filename=\"pika chu.png\"\r\n"
+                        + "Content-Type: image/png\r\n", bytes("PNGDATA"));
+
+        List<Read> parts = readAll(new ByteArrayInputStream(body));
+
+        assertThat(parts).hasSize(2);
+        assertThat(parts.get(0).name()).isEqualTo("folderId");
+        assertThat(parts.get(0).filename()).isNull();
+        assertThat(parts.get(0).body()).isEqualTo(bytes("42"));
+        assertThat(parts.get(1).name()).isEqualTo("file");
+        assertThat(parts.get(1).filename()).isEqualTo("pika chu.png");
+        assertThat(parts.get(1).contentType()).isEqualTo("image/png");
+        assertThat(parts.get(1).body()).isEqualTo(bytes("PNGDATA"));
+    }
+
+    @Test
+    void delimiterSplitAcrossSmallReads() throws IOException {
+        byte[] file = random(10_000, 1);
+        byte[] body = multipart(
+                "Content-Disposition: form-data; name=\"file\"; filename=\"a.jpg\"\r\n", file,
+                "Content-Disposition: form-data; name=\"x\"\r\n", bytes("y"));
+
+        for (int chunk : new int[]{1, 2, 3, 7, 11, 4096}) {
+            List<Read> parts = readAll(new Trickle(new ByteArrayInputStream(body), chunk));
+
+            assertThat(parts).as("chunk %d", chunk).hasSize(2);
+            assertThat(parts.get(0).body()).as("chunk %d", chunk).isEqualTo(file);
+            assertThat(parts.get(1).body()).as("chunk %d", chunk).isEqualTo(bytes("y"));
+        }
+    }
+
+    @Test
+    void delimiterStraddlingTheInternalBuffer() throws IOException {
+        // corpos ao redor de 64 KB: o delimitador cai em todas as posições da borda do buffer
+        for (int size = BUFFER - 200; size <= BUFFER + 20; size++) {
+            byte[] file = random(size, size);
+            byte[] body = multipart("Content-Disposition: form-data; name=\"file\"; filename=\"a.jpg\"\r\n", file);
+
+            List<Read> parts = readAll(new ByteArrayInputStream(body));
+
+            assertThat(parts).as("size %d", size).hasSize(1);
+            assertThat(parts.get(0).body()).as("size %d", size).isEqualTo(file);
+        }
+    }
+
+    @Test
+    void boundaryLikeBytesInsideBodyAreData() throws IOException {
+        byte[] file = bytes("a--" + BOUNDARY + "b\r\n--" + BOUNDARY.substring(0, 5) + "c\r\n-\r\n--\r\n");
+        byte[] tricky = bytes("\r\n--" + BOUNDARY.substring(0, 5)); // prefixo do delimitador no fim do corpo
+        byte[] body = multipart(
+                "Content-Disposition: form-data; name=\"a\"\r\n", file,
+                "Content-Disposition: form-data; name=\"b\"\r\n", tricky);
+
+        for (int chunk : new int[]{1, 3, BUFFER}) {
+            List<Read> parts = readAll(new Trickle(new ByteArrayInputStream(body), chunk));
+
+            assertThat(parts).hasSize(2);
+            assertThat(parts.get(0).body()).isEqualTo(file);
+            assertThat(parts.get(1).body()).isEqualTo(tricky);
+        }
+    }
+
+    @Test
+    void skipsPreambleAndUnreadParts() throws IOException {
+        byte[] body = concat(bytes("preâmbulo ignorado\r\n"), multipart(
+                "Content-Disposition: form-data; name=\"skipped\"\r\n", random(5_000, 3),
+                "Content-Disposition: form-data; name=\"kept\"\r\n", bytes("ok")));
+
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+        assertThat(mp.next().name()).isEqualTo("skipped"); // corpo não lido
+        Part kept = mp.next();
+        assertThat(kept.name()).isEqualTo("kept");
+        assertThat(kept.body().readAllBytes()).isEqualTo(bytes("ok"));
+        assertThat(mp.next()).isNull();
+        assertThat(mp.next()).isNull();
+    }
+
+    @Test
+    void truncatedBodyFails() throws IOException {
+        byte[] body = bytes("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.png\"\r\n\r\n"
+                + "metade do arquivo");
+
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+        Part p = mp.next();
+
+        assertThatThrownBy(() -> p.body().readAllBytes())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncado");
+    }
+
+    @Test
+    void missingCloseDelimiterFails() throws IOException {
+        byte[] body = bytes("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"\r\n\r\n"
+                + "1\r\n--" + BOUNDARY);
+
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+        assertThat(mp.next().body().readAllBytes()).isEqualTo(bytes("1"));
+
+        assertThatThrownBy(mp::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncado");
+    }
+
+    @Test
+    void truncatedHeadersFail() {
+        byte[] body = bytes("--" + BOUNDARY + "\r\nContent-Disposition: form-da");
+
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+
+        assertThatThrownBy(mp::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncado");
+    }
+
+    @Test
+    void emptyRequestFails() {
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(new byte[0]), BOUNDARY);
+
+        assertThatThrownBy(mp::next).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void unfoldsFoldedHeaders() throws IOException {
+        byte[] body = multipart(
+                "Content-Disposition: form-data;\r\n name=\"file\";\r\n\tfilename=\"a.png\"\r\n"
+                        + "Content-Type:\r\n image/png\r\n", bytes("x"));
+
+        List<Read> parts = readAll(new ByteArrayInputStream(body));
+
+        assertThat(parts).singleElement().satisfies(p -> {
+            assertThat(p.name()).isEqualTo("file");
+            assertThat(p.filename()).isEqualTo("a.png");
+            assertThat(p.contentType()).isEqualTo("image/png");
+            assertThat(p.body()).isEqualTo(bytes("x"));
+        });
+    }
+
+    @Test
+    void rejectsOversizedHeaderLine() {
+        byte[] body = multipart("Content-Disposition: form-data; name=\"" + "n".repeat(20_000) + "\"\r\n", bytes("x"));
+
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+
+        assertThatThrownBy(mp::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("grande demais");
+    }
+
+    @Test
+    void rejectsTooManyHeaderBytes() {
+        StringBuilder headers = new StringBuilder("Content-Disposition: form-data; name=\"a\"\r\n");
+        for (int i = 0; i < 400; i++) headers.append("X-Filler-").append(i).append(": ").append("v".repeat(40)).append("\r\n");
+        byte[] body = multipart(headers.toString(), bytes("x"));
+
+        MultipartStream mp = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+
+        assertThatThrownBy(mp::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("grandes demais");
+    }
+
+    @Test
+    void parsesBoundaryFromContentType() {
+        assertThat(MultipartStream.boundaryOf("multipart/form-data; boundary=AaB03x")).contains("AaB03x");
+        assertThat(MultipartStream.boundaryOf("Multipart/Form-Data; charset=UTF-8; boundary=\"a b\"")).contains("a b");
+        assertThat(MultipartStream.boundaryOf("multipart/form-data")).isEmpty();
+        assertThat(MultipartStream.boundaryOf("application/json; boundary=x")).isEmpty();
+        assertThat(MultipartStream.boundaryOf("multipart/form-data; boundary=" + "b".repeat(71))).isEmpty();
+    }
+
+    /* ===================== helpers ===================== */
+
+    private record Read(String name, String filename, String contentType, byte[] body) {}
+
+    private static List<Read> readAll(InputStream in) throws IOException {
+        MultipartStream mp = new MultipartStream(in, BOUNDARY);
+        List<Read> out = new ArrayList<>();
+        for (Part p = mp.next(); p != null; p = mp.next()) {
+            out.add(new Read(p.name(), p.filename(), p.contentType(), p.body().readAllBytes()));
+        }
+        return out;
+    }
+
+    /** Alterna cabeçalhos (terminados em CRLF) e corpos; fecha com o delimitador final. */
+    private static byte[] multipart(Object... headersAndBodies) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < headersAndBodies.length; i += 2) {
+            out.writeBytes(bytes("--" + BOUNDARY + "\r\n" + headersAndBodies[i] + "\r\n"));
+            out.writeBytes((byte[]) headersAndBodies[i + 1]);
+            out.writeBytes(bytes("\r\n"));
+        }
+        out.writeBytes(bytes("--" + BOUNDARY + "--\r\n"));
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] b = new byte[size];
+        new Random(seed).nextBytes(b);
+        return b;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = new byte[a.length + b.length];
+        System.arraycopy(a, 0, out, 0, a.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    /** Entrega no máximo {@code chunk} bytes por read, como um socket lento. */
+    private static final class Trickle extends FilterInputStream {
+        private final int chunk;
+
+        Trickle(InputStream in, int chunk) {
+            super(in);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, chunk));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.exemplo.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Os caminhos SIMD e fork/join precisam dar exatamente o mesmo resultado do
+ * escalar. Tamanhos ímpares deixam cauda fora da largura do vetor; a imagem
+ * grande passa de {@link PixelKernels#PARALLEL_MIN_PIXELS} e vai em faixas.
+ */
+class PixelKernelsTest {
+
+    private static final PixelKernels SIMD = PixelKernels.of(true, false);
+
+    @Test
+    void scalarGrayscaleIsBt601Luma() {
+        BufferedImage img = photo(BufferedImage.TYPE_INT_RGB, 37, 11, 1);
+
+        byte[] gray = PixelKernels.SCALAR.grayscale(img);
+
+        for (int y = 0; y < img.getHeight(); y++) {
+            for (int x = 0; x < img.getWidth(); x++) {
+                int p = img.getRGB(x, y);
+                int expected = (77 * ((p >> 16) & 0xff) + 150 * ((p >> 8) & 0xff) + 29 * (p & 0xff) + 128) >> 8;
+                assertThat(gray[y * img.getWidth() + x] & 0xff).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void simdMatchesScalar() {
+        assumeTrue(PixelKernels.simdAvailable(), "JVM sem jdk.incubator.vector ou sem vetores de 256 bits");
+        assertThat(SIMD.usesSimd()).isTrue();
+
+        for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR}) {
+            compare(SIMD, photo(type, 257, 131, type));
+        }
+        compare(SIMD, photo(BufferedImage.TYPE_INT_RGB, 7, 5, 2)); // menor que um vetor
+        compare(SIMD, photo(BufferedImage.TYPE_INT_RGB, 300, 200, 3).getSubimage(13, 7, 201, 97));
+    }
+
+    @Test
+    void parallelMatchesScalar() {
+        BufferedImage big = photo(BufferedImage.TYPE_INT_RGB, 1201, 901, 4);
+        assertThat((long) big.getWidth() * big.getHeight()).isGreaterThan(PixelKernels.PARALLEL_MIN_PIXELS);
+
+        compare(PixelKernels.of(false, true), big);
+        compare(PixelKernels.DEFAULT, big);
+    }
+
+    /** Cinza, 2x, histograma, nível de Otsu e os dois limiares, contra o escalar. */
+    private static void compare(PixelKernels k, BufferedImage img) {
+        PixelKernels ref = PixelKernels.SCALAR;
+        int w = img.getWidth();
+        int h = img.getHeight();
+
+        byte[] gray = ref.grayscale(img);
+        assertThat(k.grayscale(img)).isEqualTo(gray);
+
+        byte[] scaled = ref.upscale2x(gray, w, h);
+        assertThat(k.upscale2x(gray, w, h)).isEqualTo(scaled);
+        int sw = w * 2;
+        int sh = h * 2;
+
+        int[] hist = ref.histogram(scaled, sw, sh);
+        assertThat(k.histogram(scaled, sw, sh)).isEqualTo(hist);
+        int level = PixelKernels.otsuThreshold(hist);
+        assertThat(level).isBetween(1, 254);
+
+        for (int t : new int[]{0, level, 127, 128, 254, 255}) {
+            assertThat(k.threshold(scaled, sw, sh, t)).as("limiar %d", t).isEqualTo(ref.threshold(scaled, sw, sh, t));
+        }
+        assertThat(k.binarizeOtsu(scaled, sw, sh)).isEqualTo(ref.threshold(scaled, sw, sh, level));
+
+        for (int block : new int[]{3, 15, 31}) {
+            for (int c : new int[]{-5, 0, 10}) {
+                assertThat(k.binarizeAdaptive(scaled, sw, sh, block, c)).as("janela %d, c %d", block, c)
+                        .isEqualTo(ref.binarizeAdaptive(scaled, sw, sh, block, c));
+            }
+        }
+    }
+
+    /** Fundo claro com faixas escuras (texto) e ruído: Otsu tem onde cortar e todos os níveis aparecem. */
+    private static BufferedImage photo(int type, int w, int h, long seed) {
+        Random rnd = new Random(seed);
+        BufferedImage img = new BufferedImage(w, h, type);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                boolean ink = (x / 5 + y / 3) % 4 == 0;
+                int base = ink ? 40 : 200;
+                int r = clamp(base + rnd.nextInt(111) - 55);
+                int g = clamp(base + rnd.nextInt(111) - 55);
+                int b = clamp(base + rnd.nextInt(111) - 55);
+                img.setRGB(x, y, 0xff000000 | r << 16 | g << 8 | b);
+            }
+        }
+        return img;
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+}
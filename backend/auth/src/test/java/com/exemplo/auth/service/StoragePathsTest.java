@@ -0,0 +1,45 @@
+package com.exemplo.auth.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoragePathsTest {
+
+    @Test
+    void relativeOfPublicUrl() {
+        assertThat(StoragePaths.relative("/files/users/1/images/x.png")).contains("users/1/images/x.png");
+        assertThat(StoragePaths.relative("/files/users/1/./images//x.png")).contains("users/1/images/x.png");
+    }
+
+    @Test
+    void relativeOfLegacyDiskPath() {
+        String abs = StoragePaths.dataRoot().resolve("users/1/images/x.png").toString();
+        assertThat(StoragePaths.relative(abs)).contains("users/1/images/x.png");
+        assertThat(StoragePaths.relative("data/users/1/images/x.png")).contains("users/1/images/x.png");
+    }
+
+    @Test
+    void rejectsParentSegments() {
+        assertThat(StoragePaths.relative("/files/users/7/../8/images/x.png")).isEmpty();
+        assertThat(StoragePaths.relative("/files/../data/users/1/x.png")).isEmpty();
+        assertThat(StoragePaths.relative("data/users/7/../8/x.png")).isEmpty();
+        assertThat(StoragePaths.relative("data\\users\\7\\..\\8\\x.png")).isEmpty();
+        assertThat(StoragePaths.publicUrl("/files/users/7/../8/images/x.png")).isNull();
+        assertThat(StoragePaths.aliases("/files/users/7/../8/images/x.png"))
+                .containsExactly("/files/users/7/../8/images/x.png");
+    }
+
+    @Test
+    void rejectsPathsOutsideData() {
+        assertThat(StoragePaths.relative("/files//etc/passwd")).isEmpty();
+        assertThat(StoragePaths.relative("/etc/passwd")).isEmpty();
+        assertThat(StoragePaths.relative("/files/")).isEmpty();
+    }
+
+    @Test
+    void aliasesUseTheNormalizedPath() {
+        assertThat(StoragePaths.aliases("/files/users/1/./images/x.png")).contains(
+                "/files/users/1/images/x.png", "data/users/1/images/x.png", "data\\users\\1\\images\\x.png");
+    }
+}
@@ -0,0 +1,80 @@
+package com.exemplo.auth.service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Laços SIMD do {@link PixelKernels} (jdk.incubator.vector). Só é carregada
+ * quando o módulo está na JVM; cada método cobre [from, to) e devolve o
+ * índice onde parou, para o chamador terminar a cauda no laço escalar.
+ *
+ * Pixel a pixel em int usa a espécie preferida de int (8 lanes com AVX2) e
+ * a de byte com o mesmo número de lanes (1/4 do tamanho), para converter
+ * int &lt;-&gt; byte sem máscara. Em máquina só com 128 bits não há espécie de
+ * byte de 32 bits; aí {@link #usable()} responde false e tudo fica escalar.
+ */
+final class VectorPixelKernels {
+
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> B = I.vectorBitSize() >= 256
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(I.vectorBitSize() / 4))
+            : null;
+    /** Limiar: bytes contra bytes, na largura toda do registrador. */
+    private static final VectorSpecies<Byte> BW = ByteVector.SPECIES_PREFERRED;
+
+    private VectorPixelKernels() {}
+
+    static boolean usable() {
+        return B != null && B.length() == I.length();
+    }
+
+    /** Luma BT.601 em ponto fixo: (77 R + 150 G + 29 B + 128) >> 8, de 0xRRGGBB. */
+    static int grayscale(int[] rgb, int srcOff, byte[] out, int outOff, int n) {
+        int upper = I.loopBound(n);
+        for (int i = 0; i < upper; i += I.length()) {
+            IntVector p = IntVector.fromArray(I, rgb, srcOff + i);
+            IntVector r = p.lanewise(VectorOperators.LSHR, 16).and(0xff);
+            IntVector g = p.lanewise(VectorOperators.LSHR, 8).and(0xff);
+            IntVector b = p.and(0xff);
+            IntVector y = r.mul(77).add(g.mul(150)).add(b.mul(29)).add(128)
+                    .lanewise(VectorOperators.LSHR, 8);
+            ((ByteVector) y.convertShape(VectorOperators.I2B, B, 0)).intoArray(out, outOff + i);
+        }
+        return upper;
+    }
+
+    /** 255 onde gray &gt; t, 0 no resto (comparação sem sinal). */
+    static int threshold(byte[] gray, byte[] out, int from, int to, int t) {
+        int upper = from + BW.loopBound(to - from);
+        ByteVector zero = ByteVector.zero(BW);
+        for (int i = from; i < upper; i += BW.length()) {
+            VectorMask<Byte> fg = ByteVector.fromArray(BW, gray, i)
+                    .compare(VectorOperators.UNSIGNED_GT, (byte) t);
+            zero.blend((byte) -1, fg).intoArray(out, i);
+        }
+        return upper;
+    }
+
+    /**
+     * Uma linha do limiar adaptativo: 255 onde gray * área &gt; soma - c * área.
+     * {@code sums} é a soma da janela e {@code counts} a largura dela em cada
+     * coluna; {@code rows} é a altura da janela nesta linha.
+     */
+    static int adaptiveRow(byte[] gray, byte[] out, int rowOff, int[] sums, int[] counts,
+                           int rows, int c, int w) {
+        int upper = I.loopBound(w);
+        for (int x = 0; x < upper; x += I.length()) {
+            IntVector g = ((IntVector) ByteVector.fromArray(B, gray, rowOff + x)
+                    .convertShape(VectorOperators.B2I, I, 0)).and(0xff);
+            IntVector area = IntVector.fromArray(I, counts, x).mul(rows);
+            IntVector s = IntVector.fromArray(I, sums, x);
+            VectorMask<Integer> fg = g.mul(area).compare(VectorOperators.GT, s.sub(area.mul(c)));
+            ByteVector.zero(B).blend((byte) -1, fg.cast(B)).intoArray(out, rowOff + x);
+        }
+        return upper;
+    }
+}
@@ -86,7 +86,7 @@ async function loadFolders() {
   list.innerHTML = '<li class="muted">Carregando...</li>';
 
   try {
-    const folders = await getJson('/api/collections/folders');
+    const folders = await getJson('/api/collections/folders/summary');
     if (!folders || !folders.length) {
       list.innerHTML = '<li class="muted">Nenhuma pasta criada ainda.</li>';
       setOut(folders || {});
@@ -99,6 +99,8 @@ async function loadFolders() {
       li.innerHTML = `
         <div class="folder-name">
           ${f.name}
+          <span class="muted">(${f.cardCount ?? 0})</span>
+          ${f.estimatedValue > 0 ? `<span class="muted">· R$ ${Number(f.estimatedValue).toFixed(2)}</span>` : ''}
         </div>
         <div class="folder-actions">
           <button class="btn btn-ghost btn-xs" data-open="${f.id}">Abrir</button>
@@ -186,12 +188,78 @@ async function deleteFolder(folderId) {
   }
 }
 
+// ---- cache local da coleção (sync incremental) ----
+// Guarda pastas/cartas no localStorage e só pede ao servidor o que mudou
+// desde a última versão vista (/api/collections/sync?since=N).
+
+let collection = null;
+
+function collectionKey() {
+  return `collectionSync:${window.meId ?? 'anon'}`;
+}
+
+function loadCollectionCache() {
+  try {
+    const raw = localStorage.getItem(collectionKey());
+    if (raw) {
+      const c = JSON.parse(raw);
+      return { version: c.version || 0, folders: new Map(c.folders), cards: new Map(c.cards) };
+    }
+  } catch (e) {
+    console.warn('cache da coleção inválido, recomeçando', e);
+  }
+  return { version: 0, folders: new Map(), cards: new Map() };
+}
+
+function saveCollectionCache() {
+  try {
+    localStorage.setItem(collectionKey(), JSON.stringify({
+      version: collection.version,
+      folders: [...collection.folders],
+      cards: [...collection.cards]
+    }));
+  } catch (e) {
+    // quota cheia: segue só com a memória
+  }
+}
+
+async function syncCollection() {
+  if (!collection) collection = loadCollectionCache();
+
+  const d = await getJson(`/api/collections/sync?since=${collection.version}`);
+  if (!d) return collection;
+
+  if (d.full) {
+    collection.folders.clear();
+    collection.cards.clear();
+  }
+  d.folders.forEach(f => collection.folders.set(f.id, f));
+  d.cards.forEach(c => collection.cards.set(c.id, c));
+  d.deletedFolderIds.forEach(id => collection.folders.delete(id));
+  d.deletedCardIds.forEach(id => collection.cards.delete(id));
+  collection.version = d.version;
+
+  saveCollectionCache();
+  return collection;
+}
+
 // ---- cards / conteúdo da pasta ----
 
 async function openFolder(folderId) {
   try {
-    const r = await getJson(`/api/collections/folders/${folderId}`);
-    if (!r) return;
+    const c = await syncCollection();
+    const folder = c.folders.get(folderId);
+    if (!folder) {
+      alert('Pasta não encontrada.');
+      return;
+    }
+    const r = {
+      id: folder.id,
+      name: folder.name,
+      items: [...c.cards.values()]
+        .filter(it => it.folderId === folderId)
+        .sort((a, b) => a.id - b.id)
+    };
 
     currentFolderId = folderId;
     setOut(r);
@@ -224,7 +292,7 @@ async function openFolder(folderId) {
           <div class="card-thumb">
             ${
               hasImage
-                ? `<img src="${it.imagePath}" alt="${pokemonName}">`
+                ? `<img src="${it.thumbUrl || it.imagePath}" alt="${pokemonName}" loading="lazy">`
                 : `<div class="card-no-img">Sem imagem</div>`
             }
           </div>
@@ -363,12 +431,15 @@ async function scanUpload() {
     return;
   }
 
+  // várias fotos da mesma carta: o servidor escolhe a mais nítida
+  const files = Array.from(fileInput.files).slice(0, 8);
+  const burst = files.length > 1;
   const form = new FormData();
   form.append('folderName', folderName);
-  form.append('file', fileInput.files[0]);
+  for (const f of (burst ? files : files.slice(0, 1))) form.append(burst ? 'frames' : 'file', f);
 
   const xhr = new XMLHttpRequest();
-  xhr.open('POST', '/api/collections/cards/scan', true);
+  xhr.open('POST', burst ? '/api/collections/cards/scan/burst' : '/api/collections/cards/scan', true);
   xhr.withCredentials = true;
 
   xhr.upload.onprogress = (e) => {
@@ -384,6 +455,10 @@ async function scanUpload() {
     try {
       const json = JSON.parse(xhr.responseText || '{}');
       setOut(json);
+      if (xhr.status === 400 && json.error) {
+        alert(json.error);
+        return;
+      }
 
       // se você quiser recarregar a pasta, precisa do id atual:
       if (currentFolderId != null) {
@@ -29,7 +29,7 @@ function renderMyListings(list) {
   box.innerHTML = list.map(m => `
     <article class="market-card">
       <div class="market-thumb">
-        ${m.imagePath ? `<img src="${m.imagePath}" alt="${escapeHtml(m.pokemonName)}">` : ''}
+        ${m.imagePath ? `<img src="${m.thumbUrl || m.imagePath}" alt="${escapeHtml(m.pokemonName)}" loading="lazy">` : ''}
       </div>
       <div class="market-title">${escapeHtml(m.pokemonName || 'Desconhecido')}</div>
       <!-- cardName NÃO é mais exibido -->
@@ -120,7 +120,7 @@ function renderSearchResults(list) {
   box.innerHTML = list.map(m => `
     <article class="market-card">
       <div class="market-thumb">
-        ${m.imagePath ? `<img src="${m.imagePath}" alt="${escapeHtml(m.pokemonName)}">` : ''}
+        ${m.imagePath ? `<img src="${m.thumbUrl || m.imagePath}" alt="${escapeHtml(m.pokemonName)}" loading="lazy">` : ''}
       </div>
       <div class="market-title">${escapeHtml(m.pokemonName || 'Desconhecido')}</div>
       
@@ -176,7 +176,7 @@ function renderListingsInto(list, containerId) {
     box.innerHTML = list.map(m => `
         <article class="market-card">
         <div class="market-thumb">
-            ${m.imagePath ? `<img src="${m.imagePath}" alt="${escapeHtml(m.pokemonName)}">` : ''}
+            ${m.imagePath ? `<img src="${m.thumbUrl || m.imagePath}" alt="${escapeHtml(m.pokemonName)}" loading="lazy">` : ''}
         </div>
         <div class="market-title">${escapeHtml(m.pokemonName || 'Desconhecido')}</div>
         <!-- NOVO: email do vendedor -->
@@ -276,11 +276,67 @@ async function loadMyListings() {
   renderMyListings(json);
 }
 
+// vendas já exibidas + cursor (soldAt mais recente) para pedir só o delta
+let salesSeen = [];
+let salesCursor = null;
+
+function mergeSales(list) {
+  if (!Array.isArray(list) || list.length === 0) return;
+  const known = new Set(salesSeen.map(m => m.id));
+  for (const m of list) {
+    if (known.has(m.id)) continue;
+    salesSeen.unshift(m);
+    if (m.soldAt && (!salesCursor || m.soldAt > salesCursor)) salesCursor = m.soldAt;
+  }
+  renderNotifications(salesSeen);
+}
+
 async function loadNotifications() {
-  const r = await fetch('/api/market/notifications', { credentials: 'same-origin' });
+  const url = salesCursor
+    ? `/api/market/notifications?since=${encodeURIComponent(salesCursor)}`
+    : '/api/market/notifications';
+  const r = await fetch(url, { credentials: 'same-origin' });
   if (r.status === 401) { location.href = '/'; return; }
   const json = await r.json();
-  renderNotifications(json);
+  if (!salesCursor) {
+    // primeira carga: histórico completo, na ordem que veio
+    salesSeen = Array.isArray(json) ? json : [];
+    for (const m of salesSeen) {
+      if (m.soldAt && (!salesCursor || m.soldAt > salesCursor)) salesCursor = m.soldAt;
+    }
+    renderNotifications(salesSeen);
+    return;
+  }
+  mergeSales(json);
+}
+
+// SSE com fallback para long-poll
+function watchSales() {
+  if (window.EventSource) {
+    const es = new EventSource('/api/market/notifications/stream');
+    es.addEventListener('sold', ev => {
+      try { mergeSales([JSON.parse(ev.data)]); } catch { /* ignora evento malformado */ }
+    });
+    // ao reconectar, busca o que pode ter passado enquanto a conexão caiu
+    es.addEventListener('ready', () => { if (salesCursor) loadNotifications(); });
+    return;
+  }
+  pollSales();
+}
+
+async function pollSales() {
+  for (;;) {
+    try {
+      const since = salesCursor || new Date().toISOString();
+      const r = await fetch(`/api/market/notifications/poll?since=${encodeURIComponent(since)}`,
+        { credentials: 'same-origin' });
+      if (r.status === 401) { location.href = '/'; return; }
+      if (r.ok) mergeSales(await r.json());
+      else await new Promise(res => setTimeout(res, 5000));
+    } catch {
+      await new Promise(res => setTimeout(res, 5000));
+    }
+  }
 }
 
 async function loadAllListings() {
@@ -385,6 +441,7 @@ async function handleSellScan() {
  
 
   loadMyListings();
-  loadNotifications();
+  await loadNotifications();
+  watchSales();
   loadAllListings(); // carrega alguns anúncios logo de cara
 })();